@@ -0,0 +1,290 @@
+package io.keepcoding.pickandgol;
+
+import android.content.Context;
+import android.support.annotation.Nullable;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.keepcoding.pickandgol.manager.db.DBManager;
+import io.keepcoding.pickandgol.manager.db.DBManagerBuilder;
+import io.keepcoding.pickandgol.manager.db.DBManagerListener;
+import io.keepcoding.pickandgol.manager.db.realm.model.RealmEventId;
+import io.keepcoding.pickandgol.manager.db.realm.model.RealmPub;
+import io.keepcoding.pickandgol.manager.db.realm.model.RealmString;
+import io.keepcoding.pickandgol.manager.db.realm.model.RealmUserId;
+import io.keepcoding.pickandgol.model.Pub;
+import io.keepcoding.pickandgol.model.PubAggregate;
+import io.keepcoding.pickandgol.util.GeoHash;
+import io.keepcoding.pickandgol.util.MainThread;
+import io.realm.Realm;
+import io.realm.RealmList;
+import io.realm.RealmResults;
+
+import static io.keepcoding.pickandgol.manager.db.DBManagerBuilder.DatabaseType.REALM;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Instrumentation test, which will execute on an Android device.
+ *
+ * Measures the latency of a "pubs near me" search with 1000 and 10000 stored pubs, comparing
+ * a full scan of the pubs table (checking the distance to every pub) with the IN query on the
+ * indexed geohash column, and also the whole RealmDBManager.getPubsNearby() operation.
+ *
+ * @see <a href="http://d.android.com/tools/testing">Testing documentation</a>
+ */
+@RunWith(AndroidJUnit4.class)
+public class RealmNearbyPubsBenchmarkTests {
+
+    private static final String LOG_TAG = "NearbyBenchmark";
+
+    private static final String PUB_ID_PREFIX = "benchmark-nearby-pub-";
+    private static final int[] PUB_COUNTS = {1000, 10000};
+    private static final double RADIUS_KM = 5;
+    private static final int ROUNDS = 20;
+    private static final int MAX_QUERY_CELLS = 64;      // same as RealmDBManager.MAX_GEOHASH_QUERY_CELLS
+
+    // Benchmark pubs are spread over the Iberian Peninsula
+    private static final double MIN_LATITUDE = 36, MAX_LATITUDE = 43.5;
+    private static final double MIN_LONGITUDE = -9, MAX_LONGITUDE = 3;
+
+    private DBManager dbManager;
+
+
+    @Before
+    public void setUp() {
+
+        Context appContext = InstrumentationRegistry.getTargetContext();
+        dbManager = new DBManagerBuilder().type(REALM).init(appContext).build();
+
+        removeBenchmarkData();
+    }
+
+    @After
+    public void tearDown() {
+
+        removeBenchmarkData();
+    }
+
+
+    // Measures the query alone: full scan vs. geohash IN query (both must find the same pubs)
+    @Test
+    public void benchmarkNearbyQuery() {
+
+        for (int count : PUB_COUNTS) {
+
+            createPubs(count);
+            double[][] centers = getRandomCenters(count);
+
+            Realm realm = Realm.getDefaultInstance();
+            try {
+                long scanNanos = 0, indexNanos = 0;
+
+                for (double[] center : centers) {
+
+                    long start = System.nanoTime();
+                    int scanCount = countWithFullScan(realm, center[0], center[1]);
+                    scanNanos += System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    int indexCount = countWithGeohashIndex(realm, center[0], center[1]);
+                    indexNanos += System.nanoTime() - start;
+
+                    assertEquals(scanCount, indexCount);
+                }
+
+                Log.i(LOG_TAG, count +" pubs - full scan: "+ (scanNanos / ROUNDS / 1000) +" us, "
+                                   + "geohash IN query: "+ (indexNanos / ROUNDS / 1000) +" us");
+            }
+            finally {
+                realm.close();
+            }
+
+            removeBenchmarkData();
+        }
+    }
+
+    // Measures the whole DBManager operation, from the call until the listener gets the results
+    @Test
+    public void benchmarkGetPubsNearby() throws InterruptedException {
+
+        for (int count : PUB_COUNTS) {
+
+            createPubs(count);
+            double[][] centers = getRandomCenters(count);
+            long totalNanos = 0;
+
+            Realm realm = Realm.getDefaultInstance();
+            try {
+                for (double[] center : centers) {
+
+                    long start = System.nanoTime();
+                    Object result = getPubsNearby(center[0], center[1]);
+                    totalNanos += System.nanoTime() - start;
+
+                    assertTrue(result instanceof PubAggregate);
+                    assertEquals(countWithFullScan(realm, center[0], center[1]),
+                                 countBenchmarkPubs((PubAggregate) result));
+                }
+            }
+            finally {
+                realm.close();
+            }
+
+            Log.i(LOG_TAG, count +" pubs - getPubsNearby(): "+ (totalNanos / ROUNDS / 1000) +" us");
+
+            removeBenchmarkData();
+        }
+    }
+
+
+    /*************************************************************
+       Auxiliary methods to prepare the tests:
+     ************************************************************/
+
+    // The search without an index (the distance to every benchmark pub is checked)
+    private int countWithFullScan(Realm realm, double latitude, double longitude) {
+
+        RealmResults<RealmPub> pubs = realm.where(RealmPub.class).beginsWith("id", PUB_ID_PREFIX).findAll();
+
+        int found = 0;
+        for (RealmPub pub : pubs)
+            if (GeoHash.getDistanceKm(latitude, longitude, pub.getLatitude(), pub.getLongitude()) <= RADIUS_KM)
+                found++;
+
+        return found;
+    }
+
+    // The search used now (only the pubs in the geohash cells that cover the circle are checked)
+    private int countWithGeohashIndex(Realm realm, double latitude, double longitude) {
+
+        double[] area = GeoHash.getAreaAround(latitude, longitude, RADIUS_KM);
+        List<String> cells = GeoHash.getCellsInArea(area[0], area[1], area[2], area[3],
+                                                    RealmPub.GEOHASH_PRECISION, MAX_QUERY_CELLS);
+        assertNotNull(cells);
+
+        RealmResults<RealmPub> pubs = realm.where(RealmPub.class)
+                                           .in("geohash", cells.toArray(new String[cells.size()]))
+                                           .beginsWith("id", PUB_ID_PREFIX)
+                                           .findAll();
+
+        int found = 0;
+        for (RealmPub pub : pubs)
+            if (GeoHash.getDistanceKm(latitude, longitude, pub.getLatitude(), pub.getLongitude()) <= RADIUS_KM)
+                found++;
+
+        return found;
+    }
+
+    // Counts the benchmark pubs in a result (the database may also have other pubs stored)
+    private int countBenchmarkPubs(PubAggregate pubs) {
+
+        int found = 0;
+        for (Pub pub : pubs.getAll())
+            if ( pub.getId().startsWith(PUB_ID_PREFIX) )
+                found++;
+
+        return found;
+    }
+
+    // Calls the DBManager from the main thread and waits for the result
+    private @Nullable Object getPubsNearby(final double latitude, final double longitude) throws InterruptedException {
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Object[] result = new Object[1];
+
+        MainThread.run(new Runnable() {
+            @Override
+            public void run() {
+                dbManager.getPubsNearby(latitude, longitude, RADIUS_KM, new DBManagerListener() {
+                    @Override
+                    public void onError(Throwable e) {
+                        result[0] = e;
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onSuccess(@Nullable Object res) {
+                        result[0] = res;
+                        latch.countDown();
+                    }
+                });
+            }
+        });
+
+        assertTrue("Timeout waiting for the database", latch.await(30, TimeUnit.SECONDS));
+        return result[0];
+    }
+
+    // Gets the search locations (always the same ones for the same number of pubs)
+    private double[][] getRandomCenters(int pubCount) {
+
+        Random random = new Random(pubCount + 1);
+
+        double[][] centers = new double[ROUNDS][2];
+        for (int i = 0; i < ROUNDS; i++) {
+            centers[i][0] = MIN_LATITUDE + random.nextDouble() * (MAX_LATITUDE - MIN_LATITUDE);
+            centers[i][1] = MIN_LONGITUDE + random.nextDouble() * (MAX_LONGITUDE - MIN_LONGITUDE);
+        }
+
+        return centers;
+    }
+
+    // Stores the given number of pubs, at random locations
+    private void createPubs(final int pubCount) {
+
+        final Random random = new Random(pubCount);
+
+        Realm realm = Realm.getDefaultInstance();
+        try {
+            realm.executeTransaction(new Realm.Transaction() {
+                @Override
+                public void execute(Realm realm) {
+
+                    for (int i = 0; i < pubCount; i++) {
+
+                        double latitude = MIN_LATITUDE + random.nextDouble() * (MAX_LATITUDE - MIN_LATITUDE);
+                        double longitude = MIN_LONGITUDE + random.nextDouble() * (MAX_LONGITUDE - MIN_LONGITUDE);
+
+                        realm.copyToRealmOrUpdate(new RealmPub(PUB_ID_PREFIX + i, "Pub "+ i, latitude, longitude, "",
+                                                  new RealmUserId("benchmark-owner"), new RealmList<RealmEventId>(),
+                                                  new RealmList<RealmString>()) );
+                    }
+                }
+            });
+        }
+        finally {
+            realm.close();
+        }
+    }
+
+    // Removes all the pubs created by these tests
+    private void removeBenchmarkData() {
+
+        Realm realm = Realm.getDefaultInstance();
+        try {
+            realm.executeTransaction(new Realm.Transaction() {
+                @Override
+                public void execute(Realm realm) {
+                    realm.where(RealmPub.class).beginsWith("id", PUB_ID_PREFIX).findAll().deleteAllFromRealm();
+                }
+            });
+        }
+        finally {
+            realm.close();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package io.keepcoding.pickandgol;
+
+import android.content.Context;
+import android.support.annotation.Nullable;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.keepcoding.pickandgol.manager.db.DBManager;
+import io.keepcoding.pickandgol.manager.db.DBManagerBuilder;
+import io.keepcoding.pickandgol.manager.db.DBManagerListener;
+import io.keepcoding.pickandgol.manager.db.realm.model.RealmEvent;
+import io.keepcoding.pickandgol.manager.db.realm.model.RealmEventId;
+import io.keepcoding.pickandgol.manager.db.realm.model.RealmPub;
+import io.keepcoding.pickandgol.manager.db.realm.model.RealmPubId;
+import io.keepcoding.pickandgol.manager.db.realm.model.RealmString;
+import io.keepcoding.pickandgol.manager.db.realm.model.RealmUserId;
+import io.keepcoding.pickandgol.model.EventAggregate;
+import io.keepcoding.pickandgol.util.MainThread;
+import io.realm.Realm;
+import io.realm.RealmList;
+import io.realm.RealmQuery;
+
+import static io.keepcoding.pickandgol.manager.db.DBManagerBuilder.DatabaseType.REALM;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Instrumentation test, which will execute on an Android device.
+ *
+ * Measures the latency of the relationship lookups (events of a pub) with 10, 100 and 1000
+ * linked ids, comparing the previous query (one OR term per id) with the current IN query
+ * on the primary key, and also the whole RealmDBManager.getEventsFromPub() operation.
+ *
+ * @see <a href="http://d.android.com/tools/testing">Testing documentation</a>
+ */
+@RunWith(AndroidJUnit4.class)
+public class RealmRelationshipLookupBenchmarkTests {
+
+    private static final String LOG_TAG = "LookupBenchmark";
+
+    private static final String PUB_ID_PREFIX = "benchmark-pub-";
+    private static final String EVENT_ID_PREFIX = "benchmark-event-";
+    private static final int[] LINKED_ID_COUNTS = {10, 100, 1000};
+    private static final int ROUNDS = 20;
+
+    private DBManager dbManager;
+
+
+    @Before
+    public void setUp() {
+
+        Context appContext = InstrumentationRegistry.getTargetContext();
+        dbManager = new DBManagerBuilder().type(REALM).init(appContext).build();
+
+        removeBenchmarkData();
+    }
+
+    @After
+    public void tearDown() {
+
+        removeBenchmarkData();
+    }
+
+
+    // Measures the query alone: OR chain vs. IN query (both must return the same events)
+    @Test
+    public void benchmarkEventsFromPubQuery() {
+
+        for (int count : LINKED_ID_COUNTS) {
+
+            String pubId = createPubWithEvents(count);
+
+            Realm realm = Realm.getDefaultInstance();
+            try {
+                RealmPub pub = realm.where(RealmPub.class).equalTo("id", pubId).findFirst();
+                assertNotNull(pub);
+
+                long orNanos = 0, inNanos = 0;
+
+                for (int round = 0; round < ROUNDS; round++) {
+
+                    long start = System.nanoTime();
+                    int orCount = queryWithOrChain(realm, pub.getEvents()).findAll().size();
+                    orNanos += System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    int inCount = queryWithIn(realm, pub.getEvents()).findAll().size();
+                    inNanos += System.nanoTime() - start;
+
+                    assertEquals(count, orCount);
+                    assertEquals(count, inCount);
+                }
+
+                Log.i(LOG_TAG, count +" linked ids - OR chain: "+ (orNanos / ROUNDS / 1000) +" us, "
+                                         + "IN query: "+ (inNanos / ROUNDS / 1000) +" us");
+            }
+            finally {
+                realm.close();
+            }
+        }
+    }
+
+    // Measures the whole DBManager operation, from the call until the listener gets the results
+    @Test
+    public void benchmarkGetEventsFromPub() throws InterruptedException {
+
+        for (int count : LINKED_ID_COUNTS) {
+
+            String pubId = createPubWithEvents(count);
+            long totalNanos = 0;
+
+            for (int round = 0; round < ROUNDS; round++) {
+
+                long start = System.nanoTime();
+                Object result = getEventsFromPub(pubId);
+                totalNanos += System.nanoTime() - start;
+
+                assertTrue(result instanceof EventAggregate);
+                assertEquals(count, ((EventAggregate) result).size());
+            }
+
+            Log.i(LOG_TAG, count +" linked ids - getEventsFromPub(): "+ (totalNanos / ROUNDS / 1000) +" us");
+        }
+    }
+
+
+    /*************************************************************
+       Auxiliary methods to prepare the tests:
+     ************************************************************/
+
+    // The query used before (events whose id="" OR id=id1 OR id=id2 OR ...)
+    private RealmQuery<RealmEvent> queryWithOrChain(Realm realm, RealmList<RealmEventId> eventIds) {
+
+        RealmQuery<RealmEvent> query = realm.where(RealmEvent.class).equalTo("id", "");
+        for (RealmEventId eventId : eventIds)
+            query = query.or().equalTo("id", eventId.getId());
+
+        return query;
+    }
+
+    // The query used now (events whose id is IN the list)
+    private RealmQuery<RealmEvent> queryWithIn(Realm realm, RealmList<RealmEventId> eventIds) {
+
+        String[] ids = new String[ eventIds.size() ];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = eventIds.get(i).getId();
+
+        return realm.where(RealmEvent.class).in("id", ids);
+    }
+
+    // Calls the DBManager from the main thread and waits for the result
+    private @Nullable Object getEventsFromPub(final String pubId) throws InterruptedException {
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Object[] result = new Object[1];
+
+        MainThread.run(new Runnable() {
+            @Override
+            public void run() {
+                dbManager.getEventsFromPub(pubId, new DBManagerListener() {
+                    @Override
+                    public void onError(Throwable e) {
+                        result[0] = e;
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onSuccess(@Nullable Object res) {
+                        result[0] = res;
+                        latch.countDown();
+                    }
+                });
+            }
+        });
+
+        assertTrue("Timeout waiting for the database", latch.await(30, TimeUnit.SECONDS));
+        return result[0];
+    }
+
+    // Stores a pub linked to the given number of events (and the events), returns the pub id
+    private String createPubWithEvents(final int eventCount) {
+
+        final String pubId = PUB_ID_PREFIX + eventCount;
+
+        Realm realm = Realm.getDefaultInstance();
+        try {
+            realm.executeTransaction(new Realm.Transaction() {
+                @Override
+                public void execute(Realm realm) {
+
+                    RealmList<RealmEventId> eventIds = new RealmList<>();
+
+                    for (int i = 0; i < eventCount; i++) {
+
+                        String eventId = EVENT_ID_PREFIX + eventCount +"-"+ i;
+                        eventIds.add( new RealmEventId(eventId) );
+
+                        realm.copyToRealmOrUpdate(new RealmEvent(eventId, "Event "+ i, new Date(), "",
+                                                  "", "", new RealmList<RealmPubId>()) );
+                    }
+
+                    realm.copyToRealmOrUpdate(new RealmPub(pubId, "Benchmark pub", "",
+                                              new RealmUserId("benchmark-owner"), eventIds,
+                                              new RealmList<RealmString>()) );
+                }
+            });
+        }
+        finally {
+            realm.close();
+        }
+
+        return pubId;
+    }
+
+    // Removes all the pubs and events created by these tests
+    private void removeBenchmarkData() {
+
+        Realm realm = Realm.getDefaultInstance();
+        try {
+            realm.executeTransaction(new Realm.Transaction() {
+                @Override
+                public void execute(Realm realm) {
+                    realm.where(RealmPub.class).beginsWith("id", PUB_ID_PREFIX).findAll().deleteAllFromRealm();
+                    realm.where(RealmEvent.class).beginsWith("id", EVENT_ID_PREFIX).findAll().deleteAllFromRealm();
+                }
+            });
+        }
+        finally {
+            realm.close();
+        }
+    }
+}
@@ -2,16 +2,24 @@ package io.keepcoding.pickandgol;
 
 import android.app.Application;
 import android.content.Context;
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.Log;
 
 import java.lang.ref.WeakReference;
 
-import io.keepcoding.pickandgol.interactor.DownloadCategoriesInteractor;
+import io.keepcoding.pickandgol.interactor.SyncCategoriesInteractor;
 import io.keepcoding.pickandgol.manager.db.DBManagerBuilder;
 import io.keepcoding.pickandgol.manager.db.DBManagerBuilder.DatabaseType;
+import io.keepcoding.pickandgol.manager.image.ImageManager;
+import io.keepcoding.pickandgol.manager.net.BandwidthPolicy;
+import io.keepcoding.pickandgol.manager.net.NetworkRequestQueue;
+import io.keepcoding.pickandgol.util.StartupOrchestrator;
 
 import static io.keepcoding.pickandgol.manager.db.DBManagerBuilder.DatabaseType.REALM;
+import static io.keepcoding.pickandgol.util.StartupOrchestrator.Stage.BACKGROUND;
+import static io.keepcoding.pickandgol.util.StartupOrchestrator.Stage.CRITICAL;
+import static io.keepcoding.pickandgol.util.StartupOrchestrator.Stage.DEFERRED;
 
 
 /**
@@ -27,6 +35,16 @@ public class PickAndGolApp extends Application {
     // Values to init the local database (CHANGE AS NEEDED)
     public static final DatabaseType DBTYPE = REALM;
 
+    // Names of the startup tasks (see StartupOrchestrator)
+    private static final String STARTUP_DATABASE = "database";
+    private static final String STARTUP_NETWORK = "network";
+    private static final String STARTUP_BANDWIDTH = "bandwidth";
+    private static final String STARTUP_IMAGES = "images";
+    private static final String STARTUP_CATEGORIES = "categories";
+
+    // Runs the app initialization tasks (only the critical ones before the first screen)
+    private StartupOrchestrator startup;
+
     // APPLICATION ENTRY POINT
     // (where all the app initial settings should be done)
     @Override
@@ -36,11 +54,58 @@ public class PickAndGolApp extends Application {
         // Keep a copy of the application context
         appContext = new WeakReference<>( getApplicationContext() );
 
-        // Set the type of database we will use, and its setup param (if needed)
-        initDatabase(DBTYPE, getApplicationContext());
+        startup = new StartupOrchestrator(this)
+
+                // Set the type of database we will use, and its setup param (if needed)
+                .add(STARTUP_DATABASE, CRITICAL, new StartupOrchestrator.Initializer() {
+                    @Override
+                    public void run(@NonNull Context context) {
+                        initDatabase(DBTYPE, context);
+                    }
+                })
+
+                // Start the request queue shared by all network operations
+                .add(STARTUP_NETWORK, CRITICAL, new StartupOrchestrator.Initializer() {
+                    @Override
+                    public void run(@NonNull Context context) {
+                        NetworkRequestQueue.start(context);
+                    }
+                })
+
+                // Watch the connection type, so that searches and images use less data on metered connections
+                .add(STARTUP_BANDWIDTH, CRITICAL, new StartupOrchestrator.Initializer() {
+                    @Override
+                    public void run(@NonNull Context context) {
+                        BandwidthPolicy.start(context);
+                    }
+                })
+
+                // Build the image manager (Picasso, disk cache...) while the first activity is being created
+                .add(STARTUP_IMAGES, BACKGROUND, new StartupOrchestrator.Initializer() {
+                    @Override
+                    public void run(@NonNull Context context) {
+                        ImageManager.getInstance(context);
+                    }
+                })
+
+                // Synchronize the event categories with the server (if the local ones are outdated)
+                .add(STARTUP_CATEGORIES, DEFERRED, new StartupOrchestrator.Initializer() {
+                    @Override
+                    public void run(@NonNull Context context) {
+                        updateCategories();
+                    }
+                }, STARTUP_DATABASE, STARTUP_NETWORK);
+
+        startup.start();
+    }
 
-        // Download current event categories
-        updateCategories();
+    // Release the shared network resources when the process is terminated
+    // (only called on emulated environments, the system just kills the process on real devices)
+    @Override
+    public void onTerminate() {
+        NetworkRequestQueue.stop();
+        BandwidthPolicy.stop(this);
+        super.onTerminate();
     }
 
     // Override to warn about memory warnings
@@ -62,21 +127,26 @@ public class PickAndGolApp extends Application {
     }
 
     // Update the local database with the current event categories from the server
+    // (only the changes are applied, and only if the last sync is older than the sync TTL)
     private void updateCategories() {
 
-        Log.d(LOG_TAG, "Refreshing categories from server...");
         final Context ctx = getContext();
 
-        new DownloadCategoriesInteractor().execute(ctx, false, new DownloadCategoriesInteractor.DownloadCategoriesInteractorListener() {
+        new SyncCategoriesInteractor().execute(ctx, new SyncCategoriesInteractor.SyncCategoriesInteractorListener() {
+
+            @Override
+            public void onSyncCategoriesSkipped(long lastSyncTime) {
+                Log.d(LOG_TAG, "Categories are up to date, no need to refresh them");
+            }
 
             @Override
-            public void onDownloadCategoriesFail(Throwable e) {
+            public void onSyncCategoriesFail(Throwable e) {
                 Log.e(LOG_TAG, "Unable to update categories from the server. Category lists may be outdated: ", e);
             }
 
             @Override
-            public void onDownloadCategoriesSuccess(int count) {
-                Log.d(LOG_TAG, "Categories successfully updated: "+ count);
+            public void onSyncCategoriesSuccess(int changes) {
+                Log.d(LOG_TAG, "Categories successfully updated, changes: "+ changes);
             }
         });
     }
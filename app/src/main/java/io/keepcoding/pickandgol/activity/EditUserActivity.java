@@ -73,6 +73,7 @@ public class EditUserActivity extends AppCompatActivity {
 
         picturesChecker = new PermissionChecker(PICTURES_SET, this);
         imageManager = ImageManager.getInstance(this);
+        imageManager.prewarmRemoteStorage();     // this screen may upload images
 
         setupActionBar();
         setupButtons();
@@ -192,7 +192,7 @@ public class EventDetailActivity extends AppCompatActivity {
         if ( model.getPhotoUrl() == null )
             imageLayout.setVisibility(View.GONE);
         else
-            im.loadImage(model.getPhotoUrl(), imgPhoto, R.drawable.error_placeholder);
+            im.loadImage(model.getPhotoUrl(), imgPhoto, ImageManager.ImageSize.DETAIL, R.drawable.error_placeholder);
 
         new GetCategoryInteractor().execute(model.getCategory(), new GetCategoryInteractorListener() {
             @Override
@@ -20,7 +20,6 @@ import com.google.android.gms.maps.SupportMapFragment;
 import com.google.android.gms.maps.model.CameraPosition;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.Marker;
-import com.google.android.gms.maps.model.MarkerOptions;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -38,8 +37,10 @@ import io.keepcoding.pickandgol.model.Pub;
 import io.keepcoding.pickandgol.model.PubAggregate;
 import io.keepcoding.pickandgol.navigator.Navigator;
 import io.keepcoding.pickandgol.search.PubSearchParams;
+import io.keepcoding.pickandgol.search.PubTileLoader;
 import io.keepcoding.pickandgol.util.Utils;
 import io.keepcoding.pickandgol.view.PubListListener;
+import io.keepcoding.pickandgol.view.PubMarkerClusterer;
 
 import static com.google.android.gms.maps.GoogleMap.MAP_TYPE_HYBRID;
 import static com.google.android.gms.maps.GoogleMap.MAP_TYPE_NORMAL;
@@ -75,6 +76,9 @@ public class EventPubsActivity extends AppCompatActivity implements PubListListe
     private static final double DEFAULT_MAP_LONGITUDE = -3.70381;
     private static final int DEFAULT_MAP_ZOOM = 5;
 
+    // Space around the pubs of a cluster when zooming in to show them
+    private static final int CLUSTER_ZOOM_PADDING_PX = 100;
+
     // This the event the showed pubs are related to
     private Event model;
 
@@ -82,7 +86,8 @@ public class EventPubsActivity extends AppCompatActivity implements PubListListe
     private PubListFragment pubListFragment;
     private SupportMapFragment mapFragment;
     private GoogleMap map;
-    private ArrayList<Marker> currentMapMarkers;
+    private PubMarkerClusterer markerClusterer;
+    private PubTileLoader tileLoader;
 
     // Reference to UI elements to be bound with Butterknife (not before the map fragment is inflated)
     @BindView(R.id.activity_event_pubs_map_toggle_view) ImageView toggleMapView;
@@ -298,6 +303,55 @@ public class EventPubsActivity extends AppCompatActivity implements PubListListe
         // Set an adapter to show customized info windows for the markers
         map.setInfoWindowAdapter(new PubInfoWindowAdapter(this));
 
+        // Group the pub markers, and update them every time the camera stops moving
+        // (after a refresh, the markers and tiles of the previous search are discarded)
+        if (markerClusterer != null)
+            markerClusterer.clear();
+
+        if (tileLoader != null)
+            tileLoader.clear();
+
+        markerClusterer = new PubMarkerClusterer(this, map);
+
+        // Besides the pubs in the list, load the ones in the visible area of the map (tile by tile)
+        PubSearchParams tileSearchParams = PubSearchParams.buildEmptyParams();
+        tileSearchParams.setEventId( model.getId() );
+
+        tileLoader = new PubTileLoader(this, tileSearchParams, new PubTileLoader.PubTileLoaderListener() {
+            @Override
+            public void onTilePubsReady(@NonNull List<Pub> pubs) {
+                markerClusterer.addPubs(pubs);
+            }
+
+            @Override
+            public void onTileLoadFail(Exception e) {
+                Log.e(LOG_TAG, "Failed to load the pubs of a map tile: "+ e.toString() );
+            }
+        });
+
+        map.setOnCameraIdleListener(new GoogleMap.OnCameraIdleListener() {
+            @Override
+            public void onCameraIdle() {
+                tileLoader.loadArea(map.getProjection().getVisibleRegion().latLngBounds,
+                                    map.getCameraPosition().zoom);
+                markerClusterer.refresh();
+            }
+        });
+
+        // Clicking on a cluster zooms in to show its pubs (clicking on a pub shows its info window)
+        map.setOnMarkerClickListener(new GoogleMap.OnMarkerClickListener() {
+            @Override
+            public boolean onMarkerClick(Marker marker) {
+
+                if ( !(marker.getTag() instanceof PubMarkerClusterer.Cluster) )
+                    return false;
+
+                PubMarkerClusterer.Cluster cluster = (PubMarkerClusterer.Cluster) marker.getTag();
+                map.animateCamera( CameraUpdateFactory.newLatLngBounds(cluster.getBounds(), CLUSTER_ZOOM_PADDING_PX) );
+                return true;
+            }
+        });
+
         // Define a listener to take action when the user clicks on the info window of a marker
         map.setOnInfoWindowClickListener(new GoogleMap.OnInfoWindowClickListener() {
 
@@ -326,47 +380,24 @@ public class EventPubsActivity extends AppCompatActivity implements PubListListe
         });
     }
 
-    // Clears all existing map markers and the references to them,
-    // then adds the markers for the given pubs to the map
+    // Replaces all the pubs shown on the map with the given ones
     // (use when initializing the map fragment)
     private void setMapPubMarkers(@NonNull PubAggregate pubs) {
 
-        map.clear();
-        currentMapMarkers = null;
+        if (markerClusterer == null)
+            return;
 
-        addPubMarkersToMap(pubs);
+        markerClusterer.setPubs( pubs.getAll() );
     }
 
-    // Adds markers to the map, corresponding to the given pubs
-    // (it does not clear nor overwrite the existing markers, use when loading next page of results)
+    // Adds the given pubs to the ones already shown on the map
+    // (only the markers that changed are updated, use when loading next page of results)
     private void addPubMarkersToMap(@NonNull PubAggregate pubs) {
 
-        if (map == null || pubs == null)
+        if (markerClusterer == null || pubs == null)
             return;
 
-        // If the marker list has not been initialized yet, do it now
-        if (currentMapMarkers == null)
-            currentMapMarkers = new ArrayList<>();
-
-        for (Pub pub: pubs.getAll()) {
-
-            LatLng pubLocation = new LatLng(pub.getLatitude(), pub.getLongitude());
-
-            // Create a new marker with the pub location and the pub name (allows to show at least
-            // the name in the marker's info window if no custom info window is configured later)
-            MarkerOptions markerOptions = new MarkerOptions()
-                    .position(pubLocation)
-                    .title(pub.getName());
-
-            Marker newMarker = map.addMarker(markerOptions);
-
-            // Store a reference to the Pub in the marker
-            // (needed to show the Pub data in the custom info window)
-            newMarker.setTag(pub);
-
-            // Keep a reference to the added marker (in case we need to save/restore the activity)
-            currentMapMarkers.add(newMarker);
-        }
+        markerClusterer.addPubs( pubs.getAll() );
     }
 
     // Configures and launches a new server query to get the first page of results
@@ -446,7 +477,7 @@ public class EventPubsActivity extends AppCompatActivity implements PubListListe
                                                interactorListener);
         }
         else {
-            gm.requestLastLocation(new GeoManager.GeoDirectLocationListener() {
+            gm.requestLastLocation(GeoManager.SEARCH_LOCATION_MAX_AGE_MILLIS, new GeoManager.GeoDirectLocationListener() {
                 @Override
                 public void onLocationError(Throwable error) {
                     lastPubSearchParams = searchParams;
@@ -22,6 +22,9 @@ import android.widget.TextView;
 
 import com.google.firebase.iid.FirebaseInstanceId;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import butterknife.BindView;
 import butterknife.ButterKnife;
 import io.keepcoding.pickandgol.R;
@@ -29,6 +32,10 @@ import io.keepcoding.pickandgol.adapter.PubListAdapter;
 import io.keepcoding.pickandgol.dialog.LoginDialog;
 import io.keepcoding.pickandgol.fragment.EventListFragment;
 import io.keepcoding.pickandgol.fragment.PubListFragment;
+import io.keepcoding.pickandgol.interactor.CachedSearchEventsInteractor;
+import io.keepcoding.pickandgol.interactor.CachedSearchEventsInteractor.CachedSearchEventsInteractorListener;
+import io.keepcoding.pickandgol.interactor.CachedSearchPubsInteractor;
+import io.keepcoding.pickandgol.interactor.CachedSearchPubsInteractor.CachedSearchPubsInteractorListener;
 import io.keepcoding.pickandgol.interactor.LoginInteractor;
 import io.keepcoding.pickandgol.interactor.SearchEventsInteractor;
 import io.keepcoding.pickandgol.interactor.SearchEventsInteractor.SearchEventsInteractorListener;
@@ -46,6 +53,10 @@ import io.keepcoding.pickandgol.model.PubAggregate;
 import io.keepcoding.pickandgol.model.User;
 import io.keepcoding.pickandgol.navigator.Navigator;
 import io.keepcoding.pickandgol.search.EventSearchParams;
+import io.keepcoding.pickandgol.search.PaginationController;
+import io.keepcoding.pickandgol.search.PaginationController.PageConsumer;
+import io.keepcoding.pickandgol.search.PaginationController.PageLoader;
+import io.keepcoding.pickandgol.search.PaginationController.PageLoaderListener;
 import io.keepcoding.pickandgol.search.PubSearchParams;
 import io.keepcoding.pickandgol.util.PermissionChecker;
 import io.keepcoding.pickandgol.util.Utils;
@@ -119,6 +130,10 @@ public class MainActivity extends AppCompatActivity implements EventListListener
     private int lastEventSearchTotalResults;
     private int lastPubSearchTotalResults;
 
+    // Load the next pages of the current searches in advance, while the user scrolls
+    private PaginationController<EventAggregate> eventPaginator;
+    private PaginationController<PubAggregate> pubPaginator;
+
     // References to the activity action bar title and indicator of what fragment is currently shown
     // (useful to save/restore the activity state)
     private String actionBarTitle;
@@ -152,6 +167,9 @@ public class MainActivity extends AppCompatActivity implements EventListListener
         im = ImageManager.getInstance(this);
         gm = new GeoManager(this);
 
+        eventPaginator = newEventPaginator();
+        pubPaginator = newPubPaginator();
+
         setupActionBar();
         setupDrawer();
 
@@ -247,11 +265,21 @@ public class MainActivity extends AppCompatActivity implements EventListListener
         if (showingFragment == EVENT_LIST) {
             eventListFragment = (EventListFragment) getSupportFragmentManager().findFragmentById(R.id.mainContentFragment_placeholder);
             hideFloatingButton();
+
+            // Continue the pagination after the events already shown
+            if (eventListFragment != null && eventListFragment.getEvents() != null)
+                eventPaginator.start(eventListFragment.getEvents().size(),
+                                     lastEventSearchParams.getLimit(), lastEventSearchTotalResults);
         }
 
         else if (showingFragment == PUB_LIST) {
             pubListFragment = (PubListFragment) getSupportFragmentManager().findFragmentById(R.id.mainContentFragment_placeholder);
             showNewPubButton();
+
+            // Continue the pagination after the pubs already shown
+            if (pubListFragment != null && pubListFragment.getPubs() != null)
+                pubPaginator.start(pubListFragment.getPubs().size(),
+                                   lastPubSearchParams.getLimit(), lastPubSearchTotalResults);
         }
     }
 
@@ -463,7 +491,7 @@ public class MainActivity extends AppCompatActivity implements EventListListener
                     @Override
                     public void onPermissionGranted() {
 
-                        gm.requestLastLocation(new GeoManager.GeoDirectLocationListener() {
+                        gm.requestLastLocation(GeoManager.SEARCH_LOCATION_MAX_AGE_MILLIS, new GeoManager.GeoDirectLocationListener() {
                             @Override
                             public void onLocationError(Throwable error) {
 
@@ -524,13 +552,34 @@ public class MainActivity extends AppCompatActivity implements EventListListener
 
         searchParams.setOffset(0);
 
+        // The pages (and images) prefetched for the previous search are no longer valid
+        eventPaginator.stop();
+        im.cancelPrefetches();
+
         // If we didn't come from a swipe gesture, show a progress dialog
         final ProgressDialog pDialog = Utils.newProgressDialog(this, getString(R.string.main_activity_searching_events));
         if ( swipeCaller == null )
             pDialog.show();
 
+        // Tells if cached results are being shown while waiting for the server (must be final)
+        final boolean[] showingCachedResults = new boolean[1];
+        final int[] cachedResultsCount = new int[1];
+
         // Define what to do with the search results
-        final SearchEventsInteractorListener interactorListener = new SearchEventsInteractorListener() {
+        final CachedSearchEventsInteractorListener interactorListener = new CachedSearchEventsInteractorListener() {
+
+            @Override
+            public void onSearchEventsCachedResults(EventAggregate cachedEvents) {
+
+                // If the user asked explicitly for a refresh, just wait for the server
+                if (swipeCaller != null)
+                    return;
+
+                pDialog.dismiss();
+                showingCachedResults[0] = true;
+                cachedResultsCount[0] = cachedEvents.size();
+                showEventList(cachedEvents);
+            }
 
             @Override
             public void onSearchEventsFail(Exception e) {
@@ -539,7 +588,11 @@ public class MainActivity extends AppCompatActivity implements EventListListener
                 else                        pDialog.dismiss();
 
                 Log.e(LOG_TAG, "Failed to search events: "+ e.toString() );
-                Utils.simpleDialog(MainActivity.this, getString(R.string.main_activity_event_search_error), e.getMessage());
+
+                if (showingCachedResults[0])
+                    Utils.shortSnack(MainActivity.this, getString(R.string.main_activity_error) + e.getMessage());
+                else
+                    Utils.simpleDialog(MainActivity.this, getString(R.string.main_activity_event_search_error), e.getMessage());
             }
 
             @Override
@@ -548,14 +601,11 @@ public class MainActivity extends AppCompatActivity implements EventListListener
                 if (swipeCaller == null)    pDialog.dismiss();
                 else                        swipeCaller.setRefreshing(false);
 
-                lastEventSearchTotalResults = events.getTotalResults();
-
-                eventListFragment = EventListFragment.newInstance(events, false);
-
-                getSupportFragmentManager()
-                        .beginTransaction()
-                        .replace(R.id.mainContentFragment_placeholder, eventListFragment)
-                        .commit();
+                // If the cached results are being shown, just put the fresh ones in their place
+                if (showingCachedResults[0] && cachedResultsCount[0] == events.size())
+                    updateEventList(events);
+                else
+                    showEventList(events);
 
                 Utils.shortSnack(MainActivity.this, events.getTotalResults() + " " + getString(R.string.main_activity_events_found));
             }
@@ -567,56 +617,73 @@ public class MainActivity extends AppCompatActivity implements EventListListener
 
         if ( !GeoManager.isLocationAccessGranted(this) ) {
             lastEventSearchParams = searchParams;
-            new SearchEventsInteractor().execute(MainActivity.this, searchParams, interactorListener);
+            new CachedSearchEventsInteractor().execute(MainActivity.this, searchParams, interactorListener);
         }
         else {
-            gm.requestLastLocation(new GeoManager.GeoDirectLocationListener() {
+            gm.requestLastLocation(GeoManager.SEARCH_LOCATION_MAX_AGE_MILLIS, new GeoManager.GeoDirectLocationListener() {
                 @Override
                 public void onLocationError(Throwable error) {
                     lastEventSearchParams = searchParams;
-                    new SearchEventsInteractor().execute(MainActivity.this, searchParams, interactorListener);
+                    new CachedSearchEventsInteractor().execute(MainActivity.this, searchParams, interactorListener);
                 }
 
                 @Override
                 public void onLocationSuccess(double latitude, double longitude) {
                     searchParams.setCoordinates(latitude, longitude);
                     lastEventSearchParams = searchParams;
-                    new SearchEventsInteractor().execute(MainActivity.this, searchParams, interactorListener);
+                    new CachedSearchEventsInteractor().execute(MainActivity.this, searchParams, interactorListener);
                 }
             });
         }
     }
 
-    // Launches an Event search for the next page of results, using the given search parameters
-    private void searchEventsNextPage(final @NonNull EventSearchParams searchParams) {
+    // Creates the controller that loads the next pages of the current Event search
+    // (each page is requested with a copy of the search parameters, so they are never modified)
+    private PaginationController<EventAggregate> newEventPaginator() {
 
-        int newOffset = searchParams.getOffset() + searchParams.getLimit();
+        PageLoader<EventAggregate> loader = new PageLoader<EventAggregate>() {
+            @Override
+            public void loadPage(int offset, final @NonNull PageLoaderListener<EventAggregate> listener) {
 
-        // If we are already at the last page of results, do nothing and return
-        if (newOffset >= lastEventSearchTotalResults)
-            return;
+                EventSearchParams pageParams = lastEventSearchParams.copy().setOffset(offset);
+
+                // No need to set the location for "next page" requests,
+                // so we can launch the request without checking permissions for the location services.
+                new SearchEventsInteractor().execute(MainActivity.this, pageParams, new SearchEventsInteractorListener() {
 
-        searchParams.setOffset(newOffset);
+                    @Override
+                    public void onSearchEventsFail(Exception e) {
+                        listener.onPageLoadFail(e);
+                    }
 
-        lastEventSearchParams = searchParams;
+                    @Override
+                    public void onSearchEventsSuccess(EventAggregate events) {
 
-        // No need to set the location for "next page" requests,
-        // so we can launch the request without checking permissions for the location services.
-        new SearchEventsInteractor().execute(MainActivity.this, searchParams, new SearchEventsInteractorListener() {
+                        // Start downloading the images of the page before it is shown
+                        im.prefetchImages(getImageUrls(events), ImageManager.ImageSize.CELL, false);
+                        listener.onPageLoaded(events);
+                    }
+                });
+            }
+        };
 
+        PageConsumer<EventAggregate> consumer = new PageConsumer<EventAggregate>() {
             @Override
-            public void onSearchEventsFail(Exception e) {
+            public void onNextPageReady(@NonNull EventAggregate events) {
 
-                Log.e(LOG_TAG, "Failed to search more events: "+ e.toString() );
-                Utils.shortSnack(MainActivity.this, getString(R.string.main_activity_error) + e.getMessage());
+                if (eventListFragment != null)
+                    eventListFragment.addMoreEvents(events);
             }
 
             @Override
-            public void onSearchEventsSuccess(EventAggregate events) {
+            public void onNextPageFail(Exception e) {
 
-                eventListFragment.addMoreEvents(events);
+                Log.e(LOG_TAG, "Failed to search more events: "+ e.toString() );
+                Utils.shortSnack(MainActivity.this, getString(R.string.main_activity_error) + e.getMessage());
             }
-        });
+        };
+
+        return new PaginationController<>(loader, consumer);
     }
 
     // Launches a Pub search for the first page of results, using the given search parameters
@@ -625,13 +692,35 @@ public class MainActivity extends AppCompatActivity implements EventListListener
 
         searchParams.setOffset(0);
 
+        // The pages (images and addresses) prefetched for the previous search are no longer valid
+        pubPaginator.stop();
+        im.cancelPrefetches();
+        gm.cancelAddressPreResolves();
+
         // If we didn't come from a swipe gesture, show a progress dialog
         final ProgressDialog pDialog = Utils.newProgressDialog(this, getString(R.string.searching_pubs));
         if ( swipeCaller == null )
             pDialog.show();
 
+        // Tells if cached results are being shown while waiting for the server (must be final)
+        final boolean[] showingCachedResults = new boolean[1];
+        final int[] cachedResultsCount = new int[1];
+
         // Define what to do with the search results
-        final SearchPubsInteractorListener interactorListener = new SearchPubsInteractorListener() {
+        final CachedSearchPubsInteractorListener interactorListener = new CachedSearchPubsInteractorListener() {
+
+            @Override
+            public void onSearchPubsCachedResults(PubAggregate cachedPubs) {
+
+                // If the user asked explicitly for a refresh, just wait for the server
+                if (swipeCaller != null)
+                    return;
+
+                pDialog.dismiss();
+                showingCachedResults[0] = true;
+                cachedResultsCount[0] = cachedPubs.size();
+                showPubList(cachedPubs);
+            }
 
             @Override
             public void onSearchPubsFail(Exception e) {
@@ -640,7 +729,11 @@ public class MainActivity extends AppCompatActivity implements EventListListener
                 else                        pDialog.dismiss();
 
                 Log.e(LOG_TAG, "Failed to search pubs: "+ e.toString() );
-                Utils.simpleDialog(MainActivity.this, getString(R.string.pub_search_error), e.getMessage());
+
+                if (showingCachedResults[0])
+                    Utils.shortSnack(MainActivity.this, getString(R.string.main_activity_error) + e.getMessage());
+                else
+                    Utils.simpleDialog(MainActivity.this, getString(R.string.pub_search_error), e.getMessage());
             }
 
             @Override
@@ -649,14 +742,13 @@ public class MainActivity extends AppCompatActivity implements EventListListener
                 if (swipeCaller == null)    pDialog.dismiss();
                 else                        swipeCaller.setRefreshing(false);
 
-                lastPubSearchTotalResults = pubs.getTotalResults();
+                // If the cached results are being shown, just put the fresh ones in their place
+                if (showingCachedResults[0] && cachedResultsCount[0] == pubs.size())
+                    updatePubList(pubs);
+                else
+                    showPubList(pubs);
 
-                pubListFragment = PubListFragment.newInstance(pubs, 0, PubListAdapter.LayoutType.CELLS);
-
-                getSupportFragmentManager()
-                        .beginTransaction()
-                        .replace(R.id.mainContentFragment_placeholder, pubListFragment)
-                        .commit();
+                gm.preResolveAddresses( pubs.getAll() );
 
                 Utils.shortSnack(MainActivity.this, pubs.getTotalResults() + " " + getString(R.string.pubs_found));
             }
@@ -664,39 +756,123 @@ public class MainActivity extends AppCompatActivity implements EventListListener
 
         // Save this search parameters for future use and launch the new search
         lastPubSearchParams = searchParams;
-        new SearchPubsInteractor().execute(MainActivity.this, searchParams, interactorListener);
+        new CachedSearchPubsInteractor().execute(MainActivity.this, searchParams, interactorListener);
     }
 
-    // Launches a Pub search for the next page of results, using the given search parameters
-    private void searchPubsNextPage(final @NonNull PubSearchParams searchParams) {
+    // Creates the controller that loads the next pages of the current Pub search
+    // (each page is requested with a copy of the search parameters, so they are never modified)
+    private PaginationController<PubAggregate> newPubPaginator() {
 
-        int newOffset = searchParams.getOffset() + searchParams.getLimit();
+        PageLoader<PubAggregate> loader = new PageLoader<PubAggregate>() {
+            @Override
+            public void loadPage(int offset, final @NonNull PageLoaderListener<PubAggregate> listener) {
 
-        // If we are already at the last page of results, do nothing and return
-        if (newOffset >= lastPubSearchTotalResults)
-            return;
+                PubSearchParams pageParams = lastPubSearchParams.copy().setOffset(offset);
 
-        searchParams.setOffset(newOffset);
+                // No need to set the location for "next page" requests,
+                // so we can launch the request without checking permissions for the location services.
+                new SearchPubsInteractor().execute(MainActivity.this, pageParams, new SearchPubsInteractorListener() {
 
-        lastPubSearchParams = searchParams;
+                    @Override
+                    public void onSearchPubsFail(Exception e) {
+                        listener.onPageLoadFail(e);
+                    }
 
-        // No need to set the location for "next page" requests,
-        // so we can launch the request without checking permissions for the location services.
-        new SearchPubsInteractor().execute(MainActivity.this, searchParams, new SearchPubsInteractorListener() {
+                    @Override
+                    public void onSearchPubsSuccess(PubAggregate pubs) {
 
+                        // Start downloading the images of the page before it is shown
+                        im.prefetchImages(getImageUrls(pubs), ImageManager.ImageSize.CELL, false);
+                        listener.onPageLoaded(pubs);
+                    }
+                });
+            }
+        };
+
+        PageConsumer<PubAggregate> consumer = new PageConsumer<PubAggregate>() {
             @Override
-            public void onSearchPubsFail(Exception e) {
+            public void onNextPageReady(@NonNull PubAggregate pubs) {
 
-                Log.e(LOG_TAG, "Failed to search more pubs: "+ e.toString() );
-                Utils.shortSnack(MainActivity.this, getString(R.string.main_activity_error) + e.getMessage());
+                if (pubListFragment != null)
+                    pubListFragment.addMorePubs(pubs);
+
+                // Resolve the addresses of the page being shown (not the ones loaded ahead of it)
+                gm.preResolveAddresses( pubs.getAll() );
             }
 
             @Override
-            public void onSearchPubsSuccess(PubAggregate pubs) {
+            public void onNextPageFail(Exception e) {
 
-                pubListFragment.addMorePubs(pubs);
+                Log.e(LOG_TAG, "Failed to search more pubs: "+ e.toString() );
+                Utils.shortSnack(MainActivity.this, getString(R.string.main_activity_error) + e.getMessage());
             }
-        });
+        };
+
+        return new PaginationController<>(loader, consumer);
+    }
+
+    // Shows the first page of results of an Event search (cached or just retrieved from the server)
+    private void showEventList(final @NonNull EventAggregate events) {
+
+        lastEventSearchTotalResults = events.getTotalResults();
+
+        eventListFragment = EventListFragment.newInstance(events, false);
+
+        getSupportFragmentManager()
+                .beginTransaction()
+                .replace(R.id.mainContentFragment_placeholder, eventListFragment)
+                .commit();
+
+        // Start loading the next pages right away
+        eventPaginator.start(events.size(), lastEventSearchParams.getLimit(), lastEventSearchTotalResults);
+    }
+
+    // Replaces the cached first page of an Event search (already shown) with the one just retrieved from
+    // the server, keeping the list (its scroll position and the pages added to it) and the pages already
+    // loaded by the paginator. If the list is not ready yet, it is shown again from scratch.
+    private void updateEventList(final @NonNull EventAggregate events) {
+
+        if (eventListFragment == null || eventListFragment.getView() == null) {
+            showEventList(events);
+            return;
+        }
+
+        lastEventSearchTotalResults = events.getTotalResults();
+
+        eventListFragment.replaceFirstEvents(events);
+        eventPaginator.updateTotalResults(lastEventSearchTotalResults);
+    }
+
+    // Shows the first page of results of a Pub search (cached or just retrieved from the server)
+    private void showPubList(final @NonNull PubAggregate pubs) {
+
+        lastPubSearchTotalResults = pubs.getTotalResults();
+
+        pubListFragment = PubListFragment.newInstance(pubs, 0, PubListAdapter.LayoutType.CELLS);
+
+        getSupportFragmentManager()
+                .beginTransaction()
+                .replace(R.id.mainContentFragment_placeholder, pubListFragment)
+                .commit();
+
+        // Start loading the next pages right away
+        pubPaginator.start(pubs.size(), lastPubSearchParams.getLimit(), lastPubSearchTotalResults);
+    }
+
+    // Replaces the cached first page of a Pub search (already shown) with the one just retrieved from
+    // the server, keeping the list (its scroll position and the pages added to it) and the pages already
+    // loaded by the paginator. If the list is not ready yet, it is shown again from scratch.
+    private void updatePubList(final @NonNull PubAggregate pubs) {
+
+        if (pubListFragment == null || pubListFragment.getView() == null) {
+            showPubList(pubs);
+            return;
+        }
+
+        lastPubSearchTotalResults = pubs.getTotalResults();
+
+        pubListFragment.replaceFirstPubs(pubs);
+        pubPaginator.updateTotalResults(lastPubSearchTotalResults);
     }
 
     // Attempts to authenticate against the server, with an user email and password
@@ -841,6 +1017,28 @@ public class MainActivity extends AppCompatActivity implements EventListListener
         Navigator.fromMainActivityToNewPubActivity(MainActivity.this);
     }
 
+    // Gets the urls of the images shown in the event list for the given events
+    private List<String> getImageUrls(EventAggregate events) {
+
+        List<String> imageUrls = new ArrayList<>();
+        for (Event event : events.getAll())
+            if (event.getPhotoUrl() != null)
+                imageUrls.add( event.getPhotoUrl() );
+
+        return imageUrls;
+    }
+
+    // Gets the urls of the images shown in the pub list (the first photo of each pub) for the given pubs
+    private List<String> getImageUrls(PubAggregate pubs) {
+
+        List<String> imageUrls = new ArrayList<>();
+        for (Pub pub : pubs.getAll())
+            if (pub.getPhotos() != null && pub.getPhotos().size() > 0)
+                imageUrls.add( pub.getPhotos().get(0) );
+
+        return imageUrls;
+    }
+
     // Updates the header views with the information in the device's session
     // (if there is no session stored, just update the views with the default values)
     private void updateHeaderFromSessionInfo() {
@@ -892,7 +1090,7 @@ public class MainActivity extends AppCompatActivity implements EventListListener
 
     @Override
     public void onEventListLoadNextPage() {
-        searchEventsNextPage(lastEventSearchParams);
+        eventPaginator.requestNextPage();
     }
 
 
@@ -926,6 +1124,6 @@ public class MainActivity extends AppCompatActivity implements EventListListener
 
     @Override
     public void onPubListLoadNextPage() {
-        searchPubsNextPage(lastPubSearchParams);
+        pubPaginator.requestNextPage();
     }
 }
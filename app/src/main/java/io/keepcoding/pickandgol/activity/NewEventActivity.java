@@ -98,6 +98,7 @@ public class NewEventActivity extends AppCompatActivity {
 
         sm = SessionManager.getInstance(this);
         im = ImageManager.getInstance(this);
+        im.prewarmRemoteStorage();     // this screen may upload images
 
         setupActionBar();
         setupCategorySpinner();
@@ -34,6 +34,7 @@ import io.keepcoding.pickandgol.interactor.CreatePubInteractor.CreatePubInteract
 import io.keepcoding.pickandgol.manager.geo.GeoManager;
 import io.keepcoding.pickandgol.manager.geo.GeoManager.GeoReverseLocationListener;
 import io.keepcoding.pickandgol.manager.image.ImageManager;
+import io.keepcoding.pickandgol.manager.image.ImageManager.ImageBatchUploadListener;
 import io.keepcoding.pickandgol.manager.image.ImageManager.ImagePickingListener;
 import io.keepcoding.pickandgol.manager.image.ImageManager.ImageProcessingListener;
 import io.keepcoding.pickandgol.manager.session.SessionManager;
@@ -100,6 +101,7 @@ public class NewPubActivity extends AppCompatActivity {
 
         sm = SessionManager.getInstance(this);
         im = ImageManager.getInstance(this);
+        im.prewarmRemoteStorage();     // this screen may upload images
         gm = new GeoManager(this);
 
         setupActionBar();
@@ -461,9 +463,9 @@ public class NewPubActivity extends AppCompatActivity {
         });
     }
 
-    // Attempts to upload the given image files to Amazon S3 (one after each other)
-    // In case one of them fails, the process stops and listener.onError() is called.
-    // If all the images are uploaded, then listener.onGetCategoriesSuccess() is called.
+    // Attempts to upload the given image files to Amazon S3 (all of them at the same time).
+    // In case one of them fails, the rest are cancelled and listener.onError() is called.
+    // If all the images are uploaded, then listener.onSuccess() is called.
     private void doUploadImages(final File[] imageFiles, final List<String> remoteFilenames, final ErrorSuccessListener listener) {
 
         if (remoteFilenames.size() == 0) {
@@ -473,72 +475,40 @@ public class NewPubActivity extends AppCompatActivity {
 
         Log.d(LOG_TAG, "Attempting to upload "+ remoteFilenames.size() +" image(s)");
 
-        ProgressDialog pDialog = Utils.newProgressBarDialog(this, 100, getString(R.string.new_pub_activity_uploading_images));
-        pDialog.show();
+        // The non-null image files are the ones to upload (in the same order as their remote names)
+        List<File> filesToUpload = new ArrayList<>();
+        for (File imageFile : imageFiles)
+            if (imageFile != null)
+                filesToUpload.add(imageFile);
 
-        uploadNextImage(0, imageFiles, remoteFilenames, pDialog, listener);
-    }
+        final ProgressDialog pDialog = Utils.newProgressBarDialog(this, 100, getString(R.string.new_pub_activity_uploading_images));
+        pDialog.show();
 
-    // Attempts to upload the given current image.
-    // In case of success, a recursive call with the next image is executed.
-    private void uploadNextImage(final int current, final File[] imageFiles, final List<String> remoteFilenames, final ProgressDialog pDialog, final ErrorSuccessListener listener) {
+        im.uploadImages(filesToUpload, remoteFilenames, new ImageBatchUploadListener() {
 
-        // If there are still pictures to upload
-        if (current < remoteFilenames.size()) {
+            @Override
+            public void onBatchProgressChanged(int uploadedImages, int totalImages, int percent) {
+                pDialog.setMessage(getString(R.string.new_pub_activity_uploading_pictures)
+                        + uploadedImages + "/"+ totalImages +")...");
+                pDialog.setProgress(percent);
+            }
 
-            final String filePath = imageFiles[current].getAbsolutePath();
-            final String remoteFileName = remoteFilenames.get(current);
+            @Override
+            public void onBatchUploadError(Exception e) {
+                pDialog.dismiss();
+                Log.e(LOG_TAG, "An error occurred: "+ e.toString());
 
-            if( ! new File(filePath).isFile() ) {
-                Log.e(LOG_TAG, "An error occurred: '"+ filePath +"' does not exist or is not a file");
                 listener.onError(null);
-                return;
             }
 
-            File sourceFile = new File(filePath);
-
-            int kbTotal = (int) (sourceFile.length() / 1024.0f);         // progress will be measured in KB
-            String fileSize = Utils.readableSize(sourceFile.length());   // a string ended with B/KB/MB/...
-
-            Log.d(LOG_TAG, "Uploading file '"+ filePath +"' ("+ fileSize +")...");
-
-            pDialog.setMessage(getString(R.string.new_pub_activity_uploading_pictures)
-                    + (1+current) + "/"+ remoteFilenames.size() +")...");
-            pDialog.setProgress(0);
-            pDialog.setMax(kbTotal);
-
-            im.uploadImage(sourceFile, remoteFileName, new ImageManager.ImageUploadListener() {
-
-                @Override
-                public void onProgressChanged(int transferId, long bytesCurrent, long bytesTotal) {
-                    int kbCurrent = (int) (bytesCurrent / 1024.0f);
-                    pDialog.setProgress( kbCurrent );
-                }
-
-                @Override
-                public void onImageUploadError(int transferId, Exception e) {
-                    pDialog.dismiss();
-                    Log.e(LOG_TAG, "[id "+ transferId +"] An error occurred: "+ e.toString());
-
-                    listener.onError(null);
-                }
-
-                @Override
-                public void onImageUploadCompletion(int transferId) {
-                    Log.d(LOG_TAG, "[id "+ transferId +"] File '" + filePath + "' has been stored as: "+ remoteFileName);
-
-                    uploadNextImage(current+1, imageFiles, remoteFilenames, pDialog, listener);
-                }
-            });
-        }
-
-        // If we already uploaded all the images successfully
-        else {
-            pDialog.dismiss();
-            Log.d(LOG_TAG, "All images uploaded successfully");
+            @Override
+            public void onBatchUploadCompletion(List<String> remoteUrls) {
+                pDialog.dismiss();
+                Log.d(LOG_TAG, "All images uploaded successfully");
 
-            listener.onSuccess(null);
-        }
+                listener.onSuccess(remoteUrls);
+            }
+        });
     }
 
     // Sends a remote request to register a new pub in the system
@@ -1,7 +1,6 @@
 package io.keepcoding.pickandgol.activity;
 
 import android.content.Intent;
-import android.location.Address;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -19,7 +18,6 @@ import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
-import java.util.List;
 import java.util.Locale;
 
 import butterknife.BindView;
@@ -33,6 +31,7 @@ import io.keepcoding.pickandgol.interactor.SearchEventsInteractor.SearchEventsIn
 import io.keepcoding.pickandgol.interactor.ToggleFavoriteInteractor;
 import io.keepcoding.pickandgol.interactor.ToggleFavoriteInteractor.ToggleFavoriteInteractorListener;
 import io.keepcoding.pickandgol.manager.geo.GeoManager;
+import io.keepcoding.pickandgol.manager.image.ImageManager;
 import io.keepcoding.pickandgol.manager.session.SessionManager;
 import io.keepcoding.pickandgol.model.EventAggregate;
 import io.keepcoding.pickandgol.model.Pub;
@@ -211,6 +210,9 @@ public class PubDetailActivity extends AppCompatActivity {
         ImagePagerAdapter adapter = new ImagePagerAdapter(this, model.getPhotos());
         imagePager.setAdapter(adapter);
 
+        // The pager only loads the photos next to the one shown, so download the rest in advance
+        ImageManager.getInstance(this).prefetchImages(model.getPhotos(), ImageManager.ImageSize.DETAIL, true);
+
         // The circle indicator will be shown only if there are more than one photos to show
         if (model.getPhotos().size() > 1)  circleIndicator.setViewPager(imagePager);
         else                               circleIndicator.setVisibility(GONE);
@@ -266,15 +268,16 @@ public class PubDetailActivity extends AppCompatActivity {
         double lat = model.getLatitude();
         double lon = model.getLongitude();
 
-        gm.requestReverseDecodedAddress(lat, lon, new GeoManager.GeoReverseLocationListener() {
+        // Pub locations never change, so the address is usually cached already
+        gm.requestAddress(lat, lon, new GeoManager.GeoAddressListener() {
             @Override
-            public void onReverseLocationError(Throwable error) {
+            public void onAddressError(Throwable error) {
                 txtAddress.setText(undefinedAddress);
             }
 
             @Override
-            public void onReverseLocationSuccess(@NonNull List<Address> addresses) {
-                txtAddress.setText( Utils.getAddressString(addresses.get(0)) );
+            public void onAddressSuccess(@NonNull String address) {
+                txtAddress.setText(address);
             }
         });
     }
@@ -219,7 +219,7 @@ public class PubEventsActivity extends AppCompatActivity implements EventListLis
                     interactorListener);
         }
         else {
-            gm.requestLastLocation(new GeoManager.GeoDirectLocationListener() {
+            gm.requestLastLocation(GeoManager.SEARCH_LOCATION_MAX_AGE_MILLIS, new GeoManager.GeoDirectLocationListener() {
                 @Override
                 public void onLocationError(Throwable error) {
                     lastEventSearchParams = searchParams;
@@ -273,7 +273,7 @@ public class PubSelectorActivity extends AppCompatActivity implements PubListLis
                                                interactorListener);
         }
         else {
-            gm.requestLastLocation(new GeoManager.GeoDirectLocationListener() {
+            gm.requestLastLocation(GeoManager.SEARCH_LOCATION_MAX_AGE_MILLIS, new GeoManager.GeoDirectLocationListener() {
                 @Override
                 public void onLocationError(Throwable error) {
                     lastPubSearchParams = searchParams;
@@ -38,9 +38,11 @@ public class EventListAdapter extends RecyclerView.Adapter<EventListAdapter.Even
     private Context context;
     private EventAggregate events;
     private int layoutId;
+    private ImageManager.ImageSize imageSize;
     private EventListListener listener;
     private ImageManager im;
     private LayoutInflater inflater;
+    private final Object imageLoadTag = new Object();   // a plain object, so Picasso never holds the adapter
 
 
     public EventListAdapter(Context context, EventAggregate events, LayoutType type) {
@@ -51,6 +53,10 @@ public class EventListAdapter extends RecyclerView.Adapter<EventListAdapter.Even
         if (type == ROWS)   this.layoutId = ROW_LAYOUT_ID;
         else                this.layoutId = CELL_LAYOUT_ID;
 
+        // Images are decoded at the size they are shown, depending on the layout
+        if (type == ROWS)   this.imageSize = ImageManager.ImageSize.ROW;
+        else                this.imageSize = ImageManager.ImageSize.CELL;
+
         this.im = ImageManager.getInstance(context);
         this.inflater = LayoutInflater.from(context);
     }
@@ -80,6 +86,24 @@ public class EventListAdapter extends RecyclerView.Adapter<EventListAdapter.Even
         });
     }
 
+    // When an item scrolls off screen, cancel its image load (if it did not finish yet)
+    @Override
+    public void onViewRecycled(EventViewHolder holder) {
+        super.onViewRecycled(holder);
+
+        im.cancelImageLoad(holder.eventImage);
+    }
+
+    /**
+     * Gets the tag of the image loads of this adapter (see ImageManager.loadImage()),
+     * so that they can be paused or cancelled together.
+     *
+     * @return  the tag of the image loads.
+     */
+    public Object getImageLoadTag() {
+        return imageLoadTag;
+    }
+
     @Override
     public int getItemCount() {
         return events.size();
@@ -93,6 +117,14 @@ public class EventListAdapter extends RecyclerView.Adapter<EventListAdapter.Even
         events.addElements(moreEvents);
     }
 
+    public void replaceFirstItems(EventAggregate firstEvents) {
+
+        for (int i = 0; i < firstEvents.size() && i < events.size(); i++)
+            events.update(firstEvents.get(i), i);
+
+        events.setTotalResults( firstEvents.getTotalResults() );
+    }
+
 
     // Auxiliary class that represents the view holder for an event
     class EventViewHolder extends RecyclerView.ViewHolder {
@@ -123,7 +155,7 @@ public class EventListAdapter extends RecyclerView.Adapter<EventListAdapter.Even
             eventDate.setText(date);
 
             if (imgUrl != null)
-                im.loadImage(imgUrl, eventImage, R.drawable.error_placeholder);
+                im.loadImage(imgUrl, eventImage, imageSize, R.drawable.error_placeholder, getImageLoadTag());
             else
                 im.loadImage(R.drawable.default_placeholder, eventImage);
         }
@@ -49,7 +49,7 @@ public class ImagePagerAdapter extends PagerAdapter {
         View view = layoutInflater.inflate(R.layout.pager_image_element, container, false);
 
         ImageView imageView = (ImageView) view.findViewById(R.id.pager_image_element_holder);
-        im.loadImage(imageUrlList.get(position), imageView, R.drawable.error_placeholder);
+        im.loadImage(imageUrlList.get(position), imageView, ImageManager.ImageSize.DETAIL, R.drawable.error_placeholder);
 
         container.addView(view);
         return view;
@@ -46,6 +46,10 @@ public class PubInfoWindowAdapter implements GoogleMap.InfoWindowAdapter {
     @Override
     public View getInfoContents(final Marker marker) {
 
+        // Cluster markers have no info window
+        if ( !(marker.getTag() instanceof Pub) )
+            return null;
+
         Pub pub = (Pub) marker.getTag();
 
         final ImageView markerImage = (ImageView) infoWindowContents.findViewById(R.id.pub_image);
@@ -71,6 +75,7 @@ public class PubInfoWindowAdapter implements GoogleMap.InfoWindowAdapter {
             ImageManager.getInstance(context).loadImage(
                     pubImageUrl,
                     markerImage,
+                    ImageManager.ImageSize.ROW,
                     R.drawable.error_placeholder,
                     R.drawable.default_placeholder,
                     new ImageManager.ImageLoadListener() {
@@ -18,6 +18,7 @@ import io.keepcoding.pickandgol.model.PubAggregate;
 import io.keepcoding.pickandgol.navigator.Navigator;
 import io.keepcoding.pickandgol.view.PubListListener;
 
+import static io.keepcoding.pickandgol.adapter.PubListAdapter.LayoutType.CELLS;
 import static io.keepcoding.pickandgol.adapter.PubListAdapter.LayoutType.ROWS;
 import static io.keepcoding.pickandgol.adapter.PubListAdapter.LayoutType.ROWS_WITH_DETAIL_BUTTON;
 
@@ -46,9 +47,11 @@ public class PubListAdapter extends RecyclerView.Adapter<PubListAdapter.PubViewH
     private Context context;
     private PubAggregate pubs;
     private int layoutId;
+    private ImageManager.ImageSize imageSize;
     private PubListListener listener;
     private ImageManager im;
     private LayoutInflater inflater;
+    private final Object imageLoadTag = new Object();   // a plain object, so Picasso never holds the adapter
 
 
     public PubListAdapter(Context context, PubAggregate pubs, LayoutType type) {
@@ -65,6 +68,9 @@ public class PubListAdapter extends RecyclerView.Adapter<PubListAdapter.PubViewH
         else
             this.layoutId = CELL_LAYOUT_ID;
 
+        // Images are decoded at the size they are shown, depending on the layout
+        this.imageSize = (type == CELLS) ? ImageManager.ImageSize.CELL : ImageManager.ImageSize.ROW;
+
         this.im = ImageManager.getInstance(context);
         this.inflater = LayoutInflater.from(context);
     }
@@ -94,6 +100,24 @@ public class PubListAdapter extends RecyclerView.Adapter<PubListAdapter.PubViewH
         });
     }
 
+    // When an item scrolls off screen, cancel its image load (if it did not finish yet)
+    @Override
+    public void onViewRecycled(PubViewHolder holder) {
+        super.onViewRecycled(holder);
+
+        im.cancelImageLoad(holder.pubImage);
+    }
+
+    /**
+     * Gets the tag of the image loads of this adapter (see ImageManager.loadImage()),
+     * so that they can be paused or cancelled together.
+     *
+     * @return  the tag of the image loads.
+     */
+    public Object getImageLoadTag() {
+        return imageLoadTag;
+    }
+
     @Override
     public int getItemCount() {
         return pubs.size();
@@ -107,6 +131,14 @@ public class PubListAdapter extends RecyclerView.Adapter<PubListAdapter.PubViewH
         pubs.addElements(morePubs);
     }
 
+    public void replaceFirstItems(PubAggregate firstPubs) {
+
+        for (int i = 0; i < firstPubs.size() && i < pubs.size(); i++)
+            pubs.update(firstPubs.get(i), i);
+
+        pubs.setTotalResults( firstPubs.getTotalResults() );
+    }
+
 
     // Auxiliary class that represents the view holder for a Pub
     class PubViewHolder extends RecyclerView.ViewHolder {
@@ -140,7 +172,7 @@ public class PubListAdapter extends RecyclerView.Adapter<PubListAdapter.PubViewH
                 imgUrl = pub.getPhotos().get(0);
 
             if (imgUrl != null)
-                im.loadImage(imgUrl, pubImage, R.drawable.error_placeholder);
+                im.loadImage(imgUrl, pubImage, imageSize, R.drawable.error_placeholder, getImageLoadTag());
             else
                 im.loadImage(R.drawable.default_placeholder, pubImage);
 
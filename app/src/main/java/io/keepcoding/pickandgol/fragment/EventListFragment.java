@@ -16,8 +16,10 @@ import android.view.ViewGroup;
 
 import io.keepcoding.pickandgol.R;
 import io.keepcoding.pickandgol.adapter.EventListAdapter;
+import io.keepcoding.pickandgol.manager.image.ImageManager;
 import io.keepcoding.pickandgol.model.EventAggregate;
 import io.keepcoding.pickandgol.view.EndlessRecyclerViewScrollListener;
+import io.keepcoding.pickandgol.view.ImageLoadScrollListener;
 import io.keepcoding.pickandgol.view.EventListListener;
 import io.keepcoding.pickandgol.view.CustomRecyclerDecorator;
 import io.keepcoding.pickandgol.view.SpaceItemDecoration;
@@ -192,6 +194,29 @@ public class EventListFragment extends Fragment {
             adapter.setOnEventClickListener(listener);
             recyclerView.setAdapter(adapter);
         }
+
+        // Pause the image loads while the list is being flung
+        recyclerView.addOnScrollListener(
+                new ImageLoadScrollListener(ImageManager.getInstance(getActivity()), adapter.getImageLoadTag()) );
+    }
+
+    // When the fragment's View hierarchy is destroyed, cancel the image loads of the list
+    // (resume them first, in case the view is destroyed during a fling: Picasso keeps paused tags until resumed)
+    @Override
+    public void onDestroyView() {
+
+        if (adapter != null) {
+            ImageManager im = ImageManager.getInstance(getActivity());
+            im.resumeImageLoads( adapter.getImageLoadTag() );
+            im.cancelImageLoads( adapter.getImageLoadTag() );
+        }
+
+        super.onDestroyView();
+    }
+
+    // Gets the events shown so far
+    public EventAggregate getEvents() {
+        return events;
     }
 
     // Adds more events to the adapter data source, then refresh the list
@@ -200,4 +225,12 @@ public class EventListFragment extends Fragment {
         adapter.addMoreItems(moreEvents);
         adapter.notifyDataSetChanged();
     }
+
+    // Replaces the first events of the list (i.e. cached results with the fresh ones from the server),
+    // keeping the rest of them and the scroll position, then refresh the replaced items
+    public void replaceFirstEvents(EventAggregate firstEvents) {
+
+        adapter.replaceFirstItems(firstEvents);
+        adapter.notifyItemRangeChanged(0, firstEvents.size());
+    }
 }
@@ -17,9 +17,11 @@ import android.view.ViewGroup;
 
 import io.keepcoding.pickandgol.R;
 import io.keepcoding.pickandgol.adapter.PubListAdapter;
+import io.keepcoding.pickandgol.manager.image.ImageManager;
 import io.keepcoding.pickandgol.model.PubAggregate;
 import io.keepcoding.pickandgol.view.CustomRecyclerDecorator;
 import io.keepcoding.pickandgol.view.EndlessRecyclerViewScrollListener;
+import io.keepcoding.pickandgol.view.ImageLoadScrollListener;
 import io.keepcoding.pickandgol.view.PubListListener;
 import io.keepcoding.pickandgol.view.SpaceItemDecoration;
 
@@ -206,6 +208,25 @@ public class PubListFragment extends Fragment {
             adapter.setOnPubClickListener(listener);
             recyclerView.setAdapter(adapter);
         }
+
+        // Pause the image loads while the list is being flung
+        if (adapter != null)
+            recyclerView.addOnScrollListener(
+                    new ImageLoadScrollListener(ImageManager.getInstance(getActivity()), adapter.getImageLoadTag()) );
+    }
+
+    // When the fragment's View hierarchy is destroyed, cancel the image loads of the list
+    // (resume them first, in case the view is destroyed during a fling: Picasso keeps paused tags until resumed)
+    @Override
+    public void onDestroyView() {
+
+        if (adapter != null) {
+            ImageManager im = ImageManager.getInstance(getActivity());
+            im.resumeImageLoads( adapter.getImageLoadTag() );
+            im.cancelImageLoads( adapter.getImageLoadTag() );
+        }
+
+        super.onDestroyView();
     }
 
     // Gets the pubs shown so far
@@ -235,4 +256,12 @@ public class PubListFragment extends Fragment {
         adapter.addMoreItems(morePubs);
         adapter.notifyDataSetChanged();
     }
+
+    // Replaces the first pubs of the list (i.e. cached results with the fresh ones from the server),
+    // keeping the rest of them and the scroll position, then refresh the replaced items
+    public void replaceFirstPubs(PubAggregate firstPubs) {
+
+        adapter.replaceFirstItems(firstPubs);
+        adapter.notifyItemRangeChanged(0, firstPubs.size());
+    }
 }
@@ -0,0 +1,168 @@
+package io.keepcoding.pickandgol.interactor;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.keepcoding.pickandgol.PickAndGolApp;
+import io.keepcoding.pickandgol.interactor.SearchEventsInteractor.SearchEventsInteractorListener;
+import io.keepcoding.pickandgol.manager.db.DBManager;
+import io.keepcoding.pickandgol.manager.db.DBManagerBuilder;
+import io.keepcoding.pickandgol.manager.db.DBManagerBuilder.DatabaseType;
+import io.keepcoding.pickandgol.manager.db.DBManagerListener;
+import io.keepcoding.pickandgol.model.Event;
+import io.keepcoding.pickandgol.model.EventAggregate;
+import io.keepcoding.pickandgol.search.EventSearchParams;
+
+
+/**
+ * This class is an interactor in charge of:
+ *
+ * - First (in background): look for the results of the given event search in the local search cache,
+ *   and launch the same search against the server at the same time (see SearchEventsInteractor).
+ * - Second (in the main thread): pass the cached results to the listener (if there are any, and only
+ *   if the server did not succeed before), then the fresh results from the server (or the error). If
+ *   the server fails before the cache lookup is done, the error is passed after the cached results.
+ * - Third (in background): store the fresh results in the local search cache.
+ *
+ * Only the first page of each search is cached (if it was stored with a bigger page size than the
+ * current one, only the first page size results of it are passed).
+ */
+public class CachedSearchEventsInteractor {
+
+    private static final String LOG_TAG = "CachedSearchEventsInt";
+    private static final DatabaseType DB_TYPE = PickAndGolApp.DBTYPE;
+
+    // Cached searches older than this will not be used (and will be removed from the cache)
+    public static final long SEARCH_CACHE_TTL_MILLIS = 30 * 60 * 1000;
+
+
+    // This interface describes the behavior of a listener waiting for the the async operation
+    public interface CachedSearchEventsInteractorListener extends SearchEventsInteractorListener {
+        void onSearchEventsCachedResults(EventAggregate cachedEvents);
+    }
+
+    /**
+     * Looks for the cached results of the search and sends the request at the same time,
+     * then passes the results to the listener (cached results first, if any).
+     * In case of fail, passes the error exception to the listener.
+     *
+     * @param context       context for the operation.
+     * @param searchParams  the parameters of the search.
+     * @param listener      listener that will process the result of the operation.
+     */
+    public void execute(Context context,
+                        final @NonNull EventSearchParams searchParams,
+                        final @NonNull CachedSearchEventsInteractorListener listener) {
+
+        if (listener == null)
+            return;
+
+        final DBManager dbManager = new DBManagerBuilder().type(DB_TYPE).build();
+        final String searchKey = searchParams.getCacheKey();
+        final boolean isFirstPage = (searchParams.getOffset() == null || searchParams.getOffset() == 0);
+
+        final SearchState state = new SearchState();
+        state.cacheLookupDone = !isFirstPage;
+
+        new SearchEventsInteractor().execute(context, searchParams, new SearchEventsInteractorListener() {
+
+            @Override
+            public void onSearchEventsFail(Exception e) {
+
+                // Wait for the cache lookup, so the error is shown over the cached results (if any)
+                if (state.cacheLookupDone)
+                    listener.onSearchEventsFail(e);
+                else
+                    state.serverError = e;
+            }
+
+            @Override
+            public void onSearchEventsSuccess(EventAggregate events) {
+
+                state.serverSucceeded = true;
+                listener.onSearchEventsSuccess(events);
+
+                if (isFirstPage)
+                    dbManager.saveCachedEventSearch(searchKey, events, SEARCH_CACHE_TTL_MILLIS, new DBManagerListener() {
+
+                        @Override
+                        public void onError(Throwable e) {
+                            Log.e(LOG_TAG, "Failed to store the search results in the cache: ", e);
+                        }
+
+                        @Override
+                        public void onSuccess(@Nullable Object result) {
+                            Log.d(LOG_TAG, "Search results stored in the cache: "+ searchKey);
+                        }
+                    });
+            }
+        });
+
+        if ( !isFirstPage )
+            return;
+
+        dbManager.getCachedEventSearch(searchKey, SEARCH_CACHE_TTL_MILLIS, new DBManagerListener() {
+
+            @Override
+            public void onError(Throwable e) {
+                Log.e(LOG_TAG, "Failed to read the search results from the cache: ", e);
+                finishCacheLookup(null, searchParams, state, listener);
+            }
+
+            @Override
+            public void onSuccess(@Nullable Object result) {
+
+                if (result != null)
+                    Log.d(LOG_TAG, "Search results found in the cache: "+ searchKey);
+
+                finishCacheLookup((EventAggregate) result, searchParams, state, listener);
+            }
+        });
+    }
+
+
+    // Keeps the state of a search while the server and the cache are queried (always in the main thread)
+    private static class SearchState {
+
+        boolean serverSucceeded;        // the fresh results were passed (so the cached ones are obsolete)
+        boolean cacheLookupDone;        // the cache was already checked
+        Exception serverError;          // the server failed before the cache lookup was done
+    }
+
+
+    // Auxiliary methods:
+
+    // Ends the cache lookup: passes the cached results (if any, and if the server did not succeed before)
+    // and then the error of the server, in case it failed while the cache was being checked
+    private static void finishCacheLookup(@Nullable EventAggregate cachedEvents,
+                                          @NonNull EventSearchParams searchParams,
+                                          @NonNull SearchState state,
+                                          @NonNull CachedSearchEventsInteractorListener listener) {
+
+        state.cacheLookupDone = true;
+
+        if (cachedEvents != null && !state.serverSucceeded)
+            listener.onSearchEventsCachedResults( trimToPageSize(cachedEvents, searchParams.getLimit()) );
+
+        if (state.serverError != null) {
+            Exception serverError = state.serverError;
+            state.serverError = null;
+            listener.onSearchEventsFail(serverError);
+        }
+    }
+
+    // Keeps only the first page size results of a cached search (the page size depends on the connection)
+    private static EventAggregate trimToPageSize(@NonNull EventAggregate events, @Nullable Integer limit) {
+
+        if (limit == null || events.size() <= limit)
+            return events;
+
+        List<Event> firstPage = events.getAll().subList(0, limit);
+        return EventAggregate.buildFromList(new ArrayList<>(firstPage), events.getTotalResults());
+    }
+}
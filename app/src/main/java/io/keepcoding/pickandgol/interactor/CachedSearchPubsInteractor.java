@@ -0,0 +1,218 @@
+package io.keepcoding.pickandgol.interactor;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.keepcoding.pickandgol.PickAndGolApp;
+import io.keepcoding.pickandgol.interactor.SearchPubsInteractor.SearchPubsInteractorListener;
+import io.keepcoding.pickandgol.manager.db.DBManager;
+import io.keepcoding.pickandgol.manager.db.DBManagerBuilder;
+import io.keepcoding.pickandgol.manager.db.DBManagerBuilder.DatabaseType;
+import io.keepcoding.pickandgol.manager.db.DBManagerListener;
+import io.keepcoding.pickandgol.model.Pub;
+import io.keepcoding.pickandgol.model.PubAggregate;
+import io.keepcoding.pickandgol.search.PubSearchParams;
+
+
+/**
+ * This class is an interactor in charge of:
+ *
+ * - First (in background): look for the results of the given pub search in the local search cache,
+ *   and launch the same search against the server at the same time (see SearchPubsInteractor).
+ * - Second (in the main thread): pass the cached results to the listener (if there are any, and only
+ *   if the server did not succeed before), then the fresh results from the server (or the error). If
+ *   the server fails before the cache lookup is done, the error is passed after the cached results.
+ * - Third (in background): store the fresh results in the local search cache.
+ *
+ * Only the first page of each search is cached (if it was stored with a bigger page size than the
+ * current one, only the first page size results of it are passed). If a nearby search (only location
+ * and radius) is not in the cache, the pubs stored locally around that location are passed as cached
+ * results instead.
+ */
+public class CachedSearchPubsInteractor {
+
+    private static final String LOG_TAG = "CachedSearchPubsInt";
+    private static final DatabaseType DB_TYPE = PickAndGolApp.DBTYPE;
+
+    // Cached searches older than this will not be used (and will be removed from the cache)
+    public static final long SEARCH_CACHE_TTL_MILLIS = 30 * 60 * 1000;
+
+
+    // This interface describes the behavior of a listener waiting for the the async operation
+    public interface CachedSearchPubsInteractorListener extends SearchPubsInteractorListener {
+        void onSearchPubsCachedResults(PubAggregate cachedPubs);
+    }
+
+    /**
+     * Looks for the cached results of the search and sends the request at the same time,
+     * then passes the results to the listener (cached results first, if any).
+     * In case of fail, passes the error exception to the listener.
+     *
+     * @param context       context for the operation.
+     * @param searchParams  the parameters of the search.
+     * @param listener      listener that will process the result of the operation.
+     */
+    public void execute(Context context,
+                        final @NonNull PubSearchParams searchParams,
+                        final @NonNull CachedSearchPubsInteractorListener listener) {
+
+        if (listener == null)
+            return;
+
+        final DBManager dbManager = new DBManagerBuilder().type(DB_TYPE).build();
+        final String searchKey = searchParams.getCacheKey();
+        final boolean isFirstPage = (searchParams.getOffset() == null || searchParams.getOffset() == 0);
+
+        final SearchState state = new SearchState();
+        state.cacheLookupDone = !isFirstPage;
+
+        new SearchPubsInteractor().execute(context, searchParams, new SearchPubsInteractorListener() {
+
+            @Override
+            public void onSearchPubsFail(Exception e) {
+
+                // Wait for the cache lookup, so the error is shown over the cached results (if any)
+                if (state.cacheLookupDone)
+                    listener.onSearchPubsFail(e);
+                else
+                    state.serverError = e;
+            }
+
+            @Override
+            public void onSearchPubsSuccess(PubAggregate pubs) {
+
+                state.serverSucceeded = true;
+                listener.onSearchPubsSuccess(pubs);
+
+                if (isFirstPage)
+                    dbManager.saveCachedPubSearch(searchKey, pubs, SEARCH_CACHE_TTL_MILLIS, new DBManagerListener() {
+
+                        @Override
+                        public void onError(Throwable e) {
+                            Log.e(LOG_TAG, "Failed to store the search results in the cache: ", e);
+                        }
+
+                        @Override
+                        public void onSuccess(@Nullable Object result) {
+                            Log.d(LOG_TAG, "Search results stored in the cache: "+ searchKey);
+                        }
+                    });
+            }
+        });
+
+        if ( !isFirstPage )
+            return;
+
+        dbManager.getCachedPubSearch(searchKey, SEARCH_CACHE_TTL_MILLIS, new DBManagerListener() {
+
+            @Override
+            public void onError(Throwable e) {
+                Log.e(LOG_TAG, "Failed to read the search results from the cache: ", e);
+                finishCacheLookup(null, searchParams, state, listener);
+            }
+
+            @Override
+            public void onSuccess(@Nullable Object result) {
+
+                if (result != null) {
+                    Log.d(LOG_TAG, "Search results found in the cache: "+ searchKey);
+                    finishCacheLookup((PubAggregate) result, searchParams, state, listener);
+                }
+                else if (!state.serverSucceeded && isNearbySearch(searchParams)) {
+                    searchNearbyPubs(dbManager, searchParams, state, listener);
+                }
+                else {
+                    finishCacheLookup(null, searchParams, state, listener);
+                }
+            }
+        });
+    }
+
+
+    // Keeps the state of a search while the server and the cache are queried (always in the main thread)
+    private static class SearchState {
+
+        boolean serverSucceeded;        // the fresh results were passed (so the cached ones are obsolete)
+        boolean cacheLookupDone;        // the cache (and the local pubs, if needed) were already checked
+        Exception serverError;          // the server failed before the cache lookup was done
+    }
+
+
+    // Auxiliary methods:
+
+    // Tells if a search only filters by location (so the pubs stored locally can be used as a first result)
+    private static boolean isNearbySearch(@NonNull PubSearchParams searchParams) {
+
+        return searchParams.getLatitude() != null
+                && searchParams.getLongitude() != null
+                && searchParams.getRadiusKm() != null && searchParams.getRadiusKm() > 0
+                && (searchParams.getKeyWords() == null || searchParams.getKeyWords().trim().isEmpty())
+                && searchParams.getEventId() == null;
+    }
+
+    // Looks for the pubs stored locally around the search location, and passes the first page of them
+    // to the listener as cached results (only if there are any, and if the server did not succeed before)
+    private static void searchNearbyPubs(@NonNull DBManager dbManager,
+                                         final @NonNull PubSearchParams searchParams,
+                                         final @NonNull SearchState state,
+                                         final @NonNull CachedSearchPubsInteractorListener listener) {
+
+        dbManager.getPubsNearby(searchParams.getLatitude(), searchParams.getLongitude(), searchParams.getRadiusKm(),
+                new DBManagerListener() {
+
+            @Override
+            public void onError(Throwable e) {
+                Log.e(LOG_TAG, "Failed to search the local pubs: ", e);
+                finishCacheLookup(null, searchParams, state, listener);
+            }
+
+            @Override
+            public void onSuccess(@Nullable Object result) {
+
+                PubAggregate nearbyPubs = (PubAggregate) result;
+
+                if (nearbyPubs == null || nearbyPubs.size() == 0) {
+                    finishCacheLookup(null, searchParams, state, listener);
+                    return;
+                }
+
+                Log.d(LOG_TAG, nearbyPubs.size() +" local pubs found around the search location");
+                finishCacheLookup(nearbyPubs, searchParams, state, listener);
+            }
+        });
+    }
+
+    // Ends the cache lookup: passes the cached results (if any, and if the server did not succeed before)
+    // and then the error of the server, in case it failed while the cache was being checked
+    private static void finishCacheLookup(@Nullable PubAggregate cachedPubs,
+                                          @NonNull PubSearchParams searchParams,
+                                          @NonNull SearchState state,
+                                          @NonNull CachedSearchPubsInteractorListener listener) {
+
+        state.cacheLookupDone = true;
+
+        if (cachedPubs != null && !state.serverSucceeded)
+            listener.onSearchPubsCachedResults( trimToPageSize(cachedPubs, searchParams.getLimit()) );
+
+        if (state.serverError != null) {
+            Exception serverError = state.serverError;
+            state.serverError = null;
+            listener.onSearchPubsFail(serverError);
+        }
+    }
+
+    // Keeps only the first page size results of a cached search (the page size depends on the connection)
+    private static PubAggregate trimToPageSize(@NonNull PubAggregate pubs, @Nullable Integer limit) {
+
+        if (limit == null || pubs.size() <= limit)
+            return pubs;
+
+        List<Pub> firstPage = pubs.getAll().subList(0, limit);
+        return PubAggregate.buildFromList(new ArrayList<>(firstPage), pubs.getTotalResults());
+    }
+}
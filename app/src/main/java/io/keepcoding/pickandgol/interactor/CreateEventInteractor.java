@@ -93,7 +93,15 @@ public class CreateEventInteractor {
 
         String remoteUrl = getUrl();
 
-        networkMgr.launchPOSTStringRequest(remoteUrl, createEventParams, EVENT_DETAIL, new NetworkManager.NetworkRequestListener() {
+        NetworkManager.ParsedDataMapper<Event> mapper = new NetworkManager.ParsedDataMapper<Event>() {
+
+            @Override
+            public Event map(@NonNull ParsedData parsedData) {
+                return new EventDetailDataToEventMapper().map( (EventDetailData)parsedData );
+            }
+        };
+
+        networkMgr.launchPOSTRequest(remoteUrl, createEventParams, EVENT_DETAIL, mapper, new NetworkManager.NetworkModelListener<Event>() {
 
             @Override
             public void onNetworkRequestFail(Exception e) {
@@ -101,8 +109,7 @@ public class CreateEventInteractor {
             }
 
             @Override
-            public void onNetworkRequestSuccess(ParsedData parsedData) {
-                Event createdEvent = new EventDetailDataToEventMapper().map( (EventDetailData)parsedData );
+            public void onNetworkModelReady(Event createdEvent) {
                 listener.onCreateEventSuccess(createdEvent);
             }
         });
@@ -7,7 +7,8 @@ import android.support.annotation.Nullable;
 import java.util.List;
 
 import io.keepcoding.pickandgol.manager.net.NetworkManager;
-import io.keepcoding.pickandgol.manager.net.NetworkManager.NetworkRequestListener;
+import io.keepcoding.pickandgol.manager.net.NetworkManager.NetworkModelListener;
+import io.keepcoding.pickandgol.manager.net.NetworkManager.ParsedDataMapper;
 import io.keepcoding.pickandgol.manager.net.ParsedData;
 import io.keepcoding.pickandgol.manager.net.RequestParams;
 import io.keepcoding.pickandgol.manager.net.response.PubDetailResponse.PubDetailData;
@@ -98,7 +99,15 @@ public class CreatePubInteractor {
 
         String remoteUrl = getUrl();
 
-        networkMgr.launchPOSTStringRequest(remoteUrl, createPubParams, PUB_DETAIL, new NetworkRequestListener() {
+        ParsedDataMapper<Pub> mapper = new ParsedDataMapper<Pub>() {
+
+            @Override
+            public Pub map(@NonNull ParsedData parsedData) {
+                return new PubDetailDataToPubMapper().map( (PubDetailData)parsedData );
+            }
+        };
+
+        networkMgr.launchPOSTRequest(remoteUrl, createPubParams, PUB_DETAIL, mapper, new NetworkModelListener<Pub>() {
 
             @Override
             public void onNetworkRequestFail(Exception e) {
@@ -106,9 +115,7 @@ public class CreatePubInteractor {
             }
 
             @Override
-            public void onNetworkRequestSuccess(ParsedData parsedData) {
-
-                Pub createdPub = new PubDetailDataToPubMapper().map( (PubDetailData)parsedData );
+            public void onNetworkModelReady(Pub createdPub) {
                 listener.onCreatePubSuccess(createdPub);
             }
         });
@@ -4,7 +4,8 @@ import android.content.Context;
 import android.support.annotation.NonNull;
 
 import io.keepcoding.pickandgol.manager.net.NetworkManager;
-import io.keepcoding.pickandgol.manager.net.NetworkManager.NetworkRequestListener;
+import io.keepcoding.pickandgol.manager.net.NetworkManager.NetworkModelListener;
+import io.keepcoding.pickandgol.manager.net.NetworkManager.ParsedDataMapper;
 import io.keepcoding.pickandgol.manager.net.ParsedData;
 import io.keepcoding.pickandgol.manager.net.RequestParams;
 import io.keepcoding.pickandgol.manager.net.response.PubListResponse;
@@ -19,7 +20,7 @@ import static io.keepcoding.pickandgol.manager.net.NetworkManagerSettings.URL_US
  * This class is an interactor in charge of:
  *
  * - First (in background): sends an search user favorites request to the remote server and builds
- *   a new model object with the retrieved info.
+ *   a new model object with the retrieved info (the mapping is done in background too).
  * - Second (in the main thread): pass the model object to the given GetFavoritesInteractorListener.
  */
 public class GetFavoritesInteractor {
@@ -68,7 +69,15 @@ public class GetFavoritesInteractor {
 
         String remoteUrl = getUrl(userId);
 
-        networkMgr.launchGETStringRequest(remoteUrl, getFavoritesParams, PUB_LIST, new NetworkRequestListener() {
+        ParsedDataMapper<PubAggregate> mapper = new ParsedDataMapper<PubAggregate>() {
+
+            @Override
+            public PubAggregate map(@NonNull ParsedData parsedData) {
+                return new PubListDataToPubAggregateMapper().map( (PubListResponse.PubListData)parsedData );
+            }
+        };
+
+        networkMgr.launchGETRequest(remoteUrl, getFavoritesParams, PUB_LIST, mapper, new NetworkModelListener<PubAggregate>() {
 
             @Override
             public void onNetworkRequestFail(Exception e) {
@@ -76,9 +85,7 @@ public class GetFavoritesInteractor {
             }
 
             @Override
-            public void onNetworkRequestSuccess(ParsedData parsedData) {
-
-                PubAggregate pubs = new PubListDataToPubAggregateMapper().map( (PubListResponse.PubListData)parsedData );
+            public void onNetworkModelReady(PubAggregate pubs) {
                 listener.onGetFavoritesSuccess(pubs);
             }
         });
@@ -4,7 +4,8 @@ import android.content.Context;
 import android.support.annotation.NonNull;
 
 import io.keepcoding.pickandgol.manager.net.NetworkManager;
-import io.keepcoding.pickandgol.manager.net.NetworkManager.NetworkRequestListener;
+import io.keepcoding.pickandgol.manager.net.NetworkManager.NetworkModelListener;
+import io.keepcoding.pickandgol.manager.net.NetworkManager.ParsedDataMapper;
 import io.keepcoding.pickandgol.manager.net.ParsedData;
 import io.keepcoding.pickandgol.manager.net.RequestParams;
 import io.keepcoding.pickandgol.manager.net.response.UserResponse.UserData;
@@ -58,7 +59,15 @@ public class GetUserInfoInteractor {
 
         String remoteUrl = getUrl(id);
 
-        networkMgr.launchGETStringRequest(remoteUrl, userInfoParams, USER, new NetworkRequestListener() {
+        ParsedDataMapper<User> mapper = new ParsedDataMapper<User>() {
+
+            @Override
+            public User map(@NonNull ParsedData parsedData) {
+                return new UserDataToUserMapper().map( (UserData)parsedData );
+            }
+        };
+
+        networkMgr.launchGETRequest(remoteUrl, userInfoParams, USER, mapper, new NetworkModelListener<User>() {
 
             @Override
             public void onNetworkRequestFail(Exception e) {
@@ -66,9 +75,7 @@ public class GetUserInfoInteractor {
             }
 
             @Override
-            public void onNetworkRequestSuccess(ParsedData parsedData) {
-
-                User user = new UserDataToUserMapper().map( (UserData)parsedData );
+            public void onNetworkModelReady(User user) {
                 listener.onUserDetailSuccess(user);
             }
         });
@@ -4,7 +4,8 @@ import android.content.Context;
 import android.support.annotation.NonNull;
 
 import io.keepcoding.pickandgol.manager.net.NetworkManager;
-import io.keepcoding.pickandgol.manager.net.NetworkManager.NetworkRequestListener;
+import io.keepcoding.pickandgol.manager.net.NetworkManager.NetworkModelListener;
+import io.keepcoding.pickandgol.manager.net.NetworkManager.ParsedDataMapper;
 import io.keepcoding.pickandgol.manager.net.ParsedData;
 import io.keepcoding.pickandgol.manager.net.RequestParams;
 import io.keepcoding.pickandgol.manager.net.response.EventDetailResponse.EventDetailData;
@@ -69,22 +70,31 @@ public class LinkEventToPubInteractor {
 
         String remoteUrl = getUrl(eventId, pubId);
 
-        networkMgr.launchPUTStringRequest(remoteUrl, linkEventToPubParams, LINK_EVENT_PUB,
-                                          new NetworkRequestListener() {
-            @Override
-            public void onNetworkRequestFail(Exception e) {
-                listener.onLinkEventPubFail(e);
-            }
+        ParsedDataMapper<LinkedPubAndEvent> mapper = new ParsedDataMapper<LinkedPubAndEvent>() {
 
             @Override
-            public void onNetworkRequestSuccess(ParsedData parsedData) {
+            public LinkedPubAndEvent map(@NonNull ParsedData parsedData) {
                 PubDetailData parsedPub = ((LinkEventPubData)parsedData).getPub();
                 EventDetailData parsedEvent = ((LinkEventPubData)parsedData).getEvent();
 
-                Pub pub = new PubDetailDataToPubMapper().map(parsedPub);
-                Event event = new EventDetailDataToEventMapper().map(parsedEvent);
+                LinkedPubAndEvent result = new LinkedPubAndEvent();
+                result.pub = new PubDetailDataToPubMapper().map(parsedPub);
+                result.event = new EventDetailDataToEventMapper().map(parsedEvent);
+
+                return result;
+            }
+        };
+
+        networkMgr.launchPUTRequest(remoteUrl, linkEventToPubParams, LINK_EVENT_PUB, mapper,
+                                    new NetworkModelListener<LinkedPubAndEvent>() {
+            @Override
+            public void onNetworkRequestFail(Exception e) {
+                listener.onLinkEventPubFail(e);
+            }
 
-                listener.onLinkEventPubSuccess(pub, event);
+            @Override
+            public void onNetworkModelReady(LinkedPubAndEvent result) {
+                listener.onLinkEventPubSuccess(result.pub, result.event);
             }
         });
     }
@@ -95,4 +105,10 @@ public class LinkEventToPubInteractor {
 
         return URL_LINK_EVENT_PUB +"/"+ eventId +"/pubs/"+ pubId;
     }
+
+    // Holds the two model objects mapped from the response
+    private static class LinkedPubAndEvent {
+        Pub pub;
+        Event event;
+    }
 }
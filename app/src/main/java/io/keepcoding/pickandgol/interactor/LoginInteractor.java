@@ -60,7 +60,15 @@ public class LoginInteractor {
 
         String remoteUrl = getUrl();
 
-        networkMgr.launchPOSTStringRequest(remoteUrl, loginParams, LOGIN, new NetworkManager.NetworkRequestListener() {
+        NetworkManager.ParsedDataMapper<SessionInfo> mapper = new NetworkManager.ParsedDataMapper<SessionInfo>() {
+
+            @Override
+            public SessionInfo map(@NonNull ParsedData parsedData) {
+                return new LoginDataToSessionInfoMapper().map( (LoginData) parsedData );
+            }
+        };
+
+        networkMgr.launchPOSTRequest(remoteUrl, loginParams, LOGIN, mapper, new NetworkManager.NetworkModelListener<SessionInfo>() {
 
             @Override
             public void onNetworkRequestFail(Exception e) {
@@ -68,8 +76,7 @@ public class LoginInteractor {
             }
 
             @Override
-            public void onNetworkRequestSuccess(ParsedData parsedData) {
-                SessionInfo sessionInfo = new LoginDataToSessionInfoMapper().map( (LoginData) parsedData );
+            public void onNetworkModelReady(SessionInfo sessionInfo) {
 
                 boolean sessionStored = SessionManager.getInstance(context).storeSession(sessionInfo);
 
@@ -19,7 +19,8 @@ import static io.keepcoding.pickandgol.manager.net.NetworkManagerSettings.URL_SE
  * This class is an interactor in charge of:
  *
  * - First (in background): Download a list of events, according to the given filters.
- * - Second (in the main thread): Map the received data to a model object and call the listener.
+ * - Second (in background): Map the received data to a model object.
+ * - Third (in the main thread): Call the listener with the model object.
  */
 public class SearchEventsInteractor {
 
@@ -88,11 +89,18 @@ public class SearchEventsInteractor {
 
         String remoteUrl = getUrl();
 
-        networkMgr.launchGETStringRequest(remoteUrl, searchEventsParams, EVENT_LIST, new NetworkManager.NetworkRequestListener() {
+        NetworkManager.ParsedDataMapper<EventAggregate> mapper = new NetworkManager.ParsedDataMapper<EventAggregate>() {
 
             @Override
-            public void onNetworkRequestSuccess(ParsedData parsedData) {
-                EventAggregate events = new EventListDataToEventAggregateMapper().map( (EventListResponse.EventListData)parsedData );
+            public EventAggregate map(@NonNull ParsedData parsedData) {
+                return new EventListDataToEventAggregateMapper().map( (EventListResponse.EventListData)parsedData );
+            }
+        };
+
+        networkMgr.launchGETRequest(remoteUrl, searchEventsParams, EVENT_LIST, mapper, new NetworkManager.NetworkModelListener<EventAggregate>() {
+
+            @Override
+            public void onNetworkModelReady(EventAggregate events) {
                 listener.onSearchEventsSuccess(events);
             }
 
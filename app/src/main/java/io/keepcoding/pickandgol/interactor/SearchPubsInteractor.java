@@ -19,7 +19,8 @@ import static io.keepcoding.pickandgol.manager.net.NetworkManagerSettings.URL_SE
  * This class is an interactor in charge of:
  *
  * - First (in background): Download a list of pubs, according to the given filters.
- * - Second (in the main thread): Map the received data to a model object and call the listener.
+ * - Second (in background): Map the received data to a model object.
+ * - Third (in the main thread): Call the listener with the model object.
  */
 public class SearchPubsInteractor {
 
@@ -88,18 +89,25 @@ public class SearchPubsInteractor {
 
         String remoteUrl = getUrl();
 
-        networkMgr.launchGETStringRequest(remoteUrl, searchPubsParams, PUB_LIST, new NetworkManager.NetworkRequestListener() {
+        NetworkManager.ParsedDataMapper<PubAggregate> mapper = new NetworkManager.ParsedDataMapper<PubAggregate>() {
 
             @Override
-            public void onNetworkRequestFail(Exception e) {
-                listener.onSearchPubsFail(e);
+            public PubAggregate map(@NonNull ParsedData parsedData) {
+                return new PubListDataToPubAggregateMapper().map( (PubListResponse.PubListData)parsedData );
             }
+        };
+
+        networkMgr.launchGETRequest(remoteUrl, searchPubsParams, PUB_LIST, mapper, new NetworkManager.NetworkModelListener<PubAggregate>() {
 
             @Override
-            public void onNetworkRequestSuccess(ParsedData parsedData) {
-                PubAggregate pubs = new PubListDataToPubAggregateMapper().map( (PubListResponse.PubListData)parsedData );
+            public void onNetworkModelReady(PubAggregate pubs) {
                 listener.onSearchPubsSuccess(pubs);
             }
+
+            @Override
+            public void onNetworkRequestFail(Exception e) {
+                listener.onSearchPubsFail(e);
+            }
         });
     }
 
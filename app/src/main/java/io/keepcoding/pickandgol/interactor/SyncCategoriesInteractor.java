@@ -0,0 +1,159 @@
+package io.keepcoding.pickandgol.interactor;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import io.keepcoding.pickandgol.PickAndGolApp;
+import io.keepcoding.pickandgol.manager.db.DBManager;
+import io.keepcoding.pickandgol.manager.db.DBManagerBuilder;
+import io.keepcoding.pickandgol.manager.db.DBManagerBuilder.DatabaseType;
+import io.keepcoding.pickandgol.manager.db.DBManagerListener;
+import io.keepcoding.pickandgol.manager.net.NetworkManager;
+import io.keepcoding.pickandgol.manager.net.NetworkManager.NetworkModelListener;
+import io.keepcoding.pickandgol.manager.net.NetworkManager.ParsedDataMapper;
+import io.keepcoding.pickandgol.manager.net.ParsedData;
+import io.keepcoding.pickandgol.manager.net.RequestParams;
+import io.keepcoding.pickandgol.manager.net.response.CategoryListResponse.CategoryListData;
+import io.keepcoding.pickandgol.model.CategoryAggregate;
+import io.keepcoding.pickandgol.model.mapper.CategoryListDataToCategoryAggregateMapper;
+
+import static io.keepcoding.pickandgol.manager.net.NetworkManagerSettings.JsonResponseType.CATEGORY_LIST;
+import static io.keepcoding.pickandgol.manager.net.NetworkManagerSettings.URL_CATEGORIES;
+
+
+/**
+ * This class is an interactor in charge of:
+ *
+ * - First (in background): check when the local categories were last synchronized. If it was less
+ *   than the given TTL ago, nothing else is done.
+ * - Second (in background): send a remote request to retrieve the existing categories, and apply
+ *   only the differences with the local ones (new, changed and removed categories) in a single
+ *   transaction, recording the time of the sync in that same transaction.
+ * - Third (in the main thread): return control to the received SyncCategoriesInteractorListener.
+ *
+ * The request goes through the shared response cache, so if the category list did not change
+ * since the last sync, the server just answers 304 (Not Modified) and the list is not downloaded again.
+ */
+public class SyncCategoriesInteractor {
+
+    private static final String LOG_TAG = "SyncCategoriesInt";
+    private static final DatabaseType DB_TYPE = PickAndGolApp.DBTYPE;
+
+    // Local categories synchronized less than this ago are considered up to date
+    public static final long CATEGORY_SYNC_TTL_MILLIS = 24 * 60 * 60 * 1000;
+
+
+    // This interface describes the behavior of a listener waiting for the the async operation
+    public interface SyncCategoriesInteractorListener {
+        void onSyncCategoriesSkipped(long lastSyncTime);
+        void onSyncCategoriesSuccess(int changes);
+        void onSyncCategoriesFail(Throwable e);
+    }
+
+
+    /**
+     * Synchronizes the local categories with the server, using the default TTL.
+     *
+     * @param context   context for the operation.
+     * @param listener  listener that will process the result of the operation.
+     */
+    public void execute(Context context, final @NonNull SyncCategoriesInteractorListener listener) {
+
+        execute(context, CATEGORY_SYNC_TTL_MILLIS, listener);
+    }
+
+    /**
+     * Checks when the local categories were last synchronized and, if they are older than the TTL,
+     * synchronizes them with the server. Then passes the result to the listener.
+     * In case of fail, the local categories are not modified and the error is passed to the listener.
+     *
+     * @param context   context for the operation.
+     * @param ttlMillis local categories synchronized less than this ago will not be synchronized again
+     *                  (use 0 to force the sync).
+     * @param listener  listener that will process the result of the operation.
+     */
+    public void execute(final Context context, final long ttlMillis,
+                        final @NonNull SyncCategoriesInteractorListener listener) {
+
+        if (listener == null)
+            return;
+
+        final DBManager dbManager = new DBManagerBuilder().type(DB_TYPE).build();
+
+        dbManager.getCategoriesSyncTime(new DBManagerListener() {
+
+            @Override
+            public void onError(Throwable e) {
+                Log.e(LOG_TAG, "Unable to read the last category sync time, syncing anyway: ", e);
+                syncWithServer(context, dbManager, listener);
+            }
+
+            @Override
+            public void onSuccess(@Nullable Object result) {
+
+                long lastSyncTime = (result != null) ? (Long) result : 0;
+                long age = System.currentTimeMillis() - lastSyncTime;
+
+                // A sync time in the future means the device clock changed, do not trust it
+                if (lastSyncTime > 0 && age >= 0 && age < ttlMillis) {
+                    Log.d(LOG_TAG, "Categories synchronized "+ (age / 1000) +"s ago, skipping sync");
+                    listener.onSyncCategoriesSkipped(lastSyncTime);
+                    return;
+                }
+
+                syncWithServer(context, dbManager, listener);
+            }
+        });
+    }
+
+
+    // Auxiliary methods:
+
+    // Gets the categories from the server and applies the differences to the local database
+    private void syncWithServer(Context context, final DBManager dbManager,
+                                final SyncCategoriesInteractorListener listener) {
+
+        NetworkManager networkManager = new NetworkManager(context);
+
+        ParsedDataMapper<CategoryAggregate> mapper = new ParsedDataMapper<CategoryAggregate>() {
+
+            @Override
+            public CategoryAggregate map(@NonNull ParsedData parsedData) {
+                return new CategoryListDataToCategoryAggregateMapper().map( (CategoryListData)parsedData );
+            }
+        };
+
+        networkManager.launchGETRequest(getUrl(), new RequestParams(), CATEGORY_LIST, mapper,
+                new NetworkModelListener<CategoryAggregate>() {
+
+                    @Override
+                    public void onNetworkRequestFail(Exception e) {
+                        listener.onSyncCategoriesFail(e);
+                    }
+
+                    @Override
+                    public void onNetworkModelReady(CategoryAggregate categories) {
+
+                        dbManager.syncCategories(categories, new DBManagerListener() {
+
+                            @Override
+                            public void onError(Throwable e) {
+                                listener.onSyncCategoriesFail(e);
+                            }
+
+                            @Override
+                            public void onSuccess(@Nullable Object result) {
+                                listener.onSyncCategoriesSuccess( (result != null) ? (Integer) result : 0 );
+                            }
+                        });
+                    }
+                });
+    }
+
+    // Gets the remote url for the operation
+    private String getUrl() {
+        return URL_CATEGORIES;
+    }
+}
@@ -4,7 +4,8 @@ import android.content.Context;
 import android.support.annotation.NonNull;
 
 import io.keepcoding.pickandgol.manager.net.NetworkManager;
-import io.keepcoding.pickandgol.manager.net.NetworkManager.NetworkRequestListener;
+import io.keepcoding.pickandgol.manager.net.NetworkManager.NetworkModelListener;
+import io.keepcoding.pickandgol.manager.net.NetworkManager.ParsedDataMapper;
 import io.keepcoding.pickandgol.manager.net.ParsedData;
 import io.keepcoding.pickandgol.manager.net.RequestParams;
 import io.keepcoding.pickandgol.manager.net.response.UserResponse;
@@ -78,7 +79,15 @@ public class ToggleFavoriteInteractor {
         String remoteUrl = getUrl(userId, pubId);
 
         // Listener for the network operation (to use both in case of adding and removing favorite)
-        NetworkRequestListener networkListener = new NetworkRequestListener() {
+        ParsedDataMapper<User> mapper = new ParsedDataMapper<User>() {
+
+            @Override
+            public User map(@NonNull ParsedData parsedData) {
+                return new UserDataToUserMapper().map( (UserResponse.UserData)parsedData );
+            }
+        };
+
+        NetworkModelListener<User> networkListener = new NetworkModelListener<User>() {
 
             @Override
             public void onNetworkRequestFail(Exception e) {
@@ -86,22 +95,20 @@ public class ToggleFavoriteInteractor {
             }
 
             @Override
-            public void onNetworkRequestSuccess(ParsedData parsedData) {
-
-                User user = new UserDataToUserMapper().map( (UserResponse.UserData)parsedData );
+            public void onNetworkModelReady(User user) {
                 listener.onToggleFavoriteSuccess(user);
             }
         };
 
         // If we are adding the pub to favorites, send a POST request
         if (addToFavorites) {
-            networkMgr.launchPOSTStringRequest(remoteUrl, toggleFavoriteParams, USER, networkListener);
+            networkMgr.launchPOSTRequest(remoteUrl, toggleFavoriteParams, USER, mapper, networkListener);
         }
 
         // If we are removing the pub from favorites, send a DELETE request
         else {
             // TODO: implement DELETE requests (in both the network manager and the backend)
-            //networkMgr.launchDELETEStringRequest(remoteUrl, toggleFavoriteParams, USER, networkListener);
+            //networkMgr.launchDELETERequest(remoteUrl, toggleFavoriteParams, USER, mapper, networkListener);
 
             listener.onToggleFavoriteFail(new Exception("Removing a pub from favorites is not (yet) supported."));
         }
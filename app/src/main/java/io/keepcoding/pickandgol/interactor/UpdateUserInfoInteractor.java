@@ -83,11 +83,18 @@ public class UpdateUserInfoInteractor {
 
         String remoteUrl = getUrl(user.getId());
 
-        networkMgr.launchPUTStringRequest(remoteUrl, userUpdateParams, USER, new NetworkManager.NetworkRequestListener() {
+        NetworkManager.ParsedDataMapper<User> mapper = new NetworkManager.ParsedDataMapper<User>() {
 
             @Override
-            public void onNetworkRequestSuccess(ParsedData parsedData) {
-                User user = new UserDataToUserMapper().map( (UserResponse.UserData)parsedData );
+            public User map(@NonNull ParsedData parsedData) {
+                return new UserDataToUserMapper().map( (UserResponse.UserData)parsedData );
+            }
+        };
+
+        networkMgr.launchPUTRequest(remoteUrl, userUpdateParams, USER, mapper, new NetworkManager.NetworkModelListener<User>() {
+
+            @Override
+            public void onNetworkModelReady(User user) {
                 listener.onUpdateUserSuccess(user);
             }
 
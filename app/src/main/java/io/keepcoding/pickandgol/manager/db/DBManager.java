@@ -5,7 +5,9 @@ import android.support.annotation.NonNull;
 import io.keepcoding.pickandgol.model.Category;
 import io.keepcoding.pickandgol.model.CategoryAggregate;
 import io.keepcoding.pickandgol.model.Event;
+import io.keepcoding.pickandgol.model.EventAggregate;
 import io.keepcoding.pickandgol.model.Pub;
+import io.keepcoding.pickandgol.model.PubAggregate;
 import io.keepcoding.pickandgol.model.User;
 
 
@@ -28,12 +30,24 @@ public interface DBManager {
     void getPubsFromEvent(@NonNull final String eventId, final DBManagerListener listener);
     void getFavoritesFromUser(@NonNull final String userId, final DBManagerListener listener);
 
+    // Nearby search methods (on all the pubs stored locally, using a spatial index)
+    // (getPubsNearby returns to the listener the pubs within radiusKm of the location, closest first,
+    // getPubsInArea the pubs inside the area, where an east lower than west means that it crosses the antimeridian)
+    void getPubsNearby(final double latitude, final double longitude, final double radiusKm, final DBManagerListener listener);
+    void getPubsInArea(final double south, final double west, final double north, final double east, final DBManagerListener listener);
+
     // Database save methods
     void saveEvent(@NonNull final Event event, final DBManagerListener listener);
     void savePub(@NonNull final Pub pub, final DBManagerListener listener);
     void saveUser(@NonNull final User user, final DBManagerListener listener);
     void saveCategory(@NonNull final Category category, final DBManagerListener listener);
+
+    // Database bulk save methods
+    // (each one runs in a single transaction: either all the elements are saved, or none of them)
+    void savePubs(@NonNull final PubAggregate pubs, final DBManagerListener listener);
+    void saveEvents(@NonNull final EventAggregate events, final DBManagerListener listener);
     void saveCategories(@NonNull final CategoryAggregate categories, final DBManagerListener listener);
+    void replaceAllCategories(@NonNull final CategoryAggregate categories, final DBManagerListener listener);
 
     // Database remove methods
     void removeUser(@NonNull final String userId, final DBManagerListener listener);
@@ -41,4 +55,24 @@ public interface DBManager {
     void removeEvent(@NonNull final String eventId, final DBManagerListener listener);
     void removeCategory(@NonNull final String categoryId, final DBManagerListener listener);
     void removeAllCategories(final DBManagerListener listener);
+
+    // Category sync methods
+    // (getCategoriesSyncTime returns to the listener when the categories were last synchronized, or 0 if never,
+    // syncCategories applies the differences with the server list in a single transaction, and returns the number of changes)
+    void getCategoriesSyncTime(final DBManagerListener listener);
+    void syncCategories(@NonNull final CategoryAggregate serverCategories, final DBManagerListener listener);
+
+    // Search cache methods
+    // (the get methods return null to the listener if there is no cached result newer than maxAgeMillis,
+    // the save methods also remove the cached results older than maxAgeMillis)
+    void getCachedPubSearch(@NonNull final String searchKey, final long maxAgeMillis, final DBManagerListener listener);
+    void getCachedEventSearch(@NonNull final String searchKey, final long maxAgeMillis, final DBManagerListener listener);
+    void saveCachedPubSearch(@NonNull final String searchKey, @NonNull final PubAggregate pubs, final long maxAgeMillis, final DBManagerListener listener);
+    void saveCachedEventSearch(@NonNull final String searchKey, @NonNull final EventAggregate events, final long maxAgeMillis, final DBManagerListener listener);
+
+    // Address cache methods
+    // (getCachedAddress returns to the listener the stored address String, or null if there is none newer than maxAgeMillis,
+    // saveCachedAddress also removes the stored addresses older than maxAgeMillis)
+    void getCachedAddress(@NonNull final String key, final long maxAgeMillis, final DBManagerListener listener);
+    void saveCachedAddress(@NonNull final String key, @NonNull final String address, final long maxAgeMillis, final DBManagerListener listener);
 }
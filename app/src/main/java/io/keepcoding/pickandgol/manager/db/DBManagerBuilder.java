@@ -5,6 +5,7 @@ import android.support.annotation.Nullable;
 
 import io.keepcoding.pickandgol.manager.db.realm.RealmDBManager;
 import io.realm.Realm;
+import io.realm.RealmConfiguration;
 
 import static io.keepcoding.pickandgol.manager.db.DBManagerBuilder.DatabaseType.*;
 
@@ -31,6 +32,12 @@ public class DBManagerBuilder {
     }
 
 
+    // Version of the Realm schema (increase it every time a Realm model class changes).
+    // The local database only keeps copies of the server data, so if the schema changes
+    // it is just deleted and created again instead of being migrated.
+    private static final long REALM_SCHEMA_VERSION = 4;
+
+
     // Indicates the type of DBManager implementation we use
     private DatabaseType type;
 
@@ -58,6 +65,13 @@ public class DBManagerBuilder {
                 if (param != null && param instanceof Context) {
                     Context ctx = (Context) param;
                     Realm.init(ctx);
+
+                    RealmConfiguration config = new RealmConfiguration.Builder()
+                            .schemaVersion(REALM_SCHEMA_VERSION)
+                            .deleteRealmIfMigrationNeeded()
+                            .build();
+
+                    Realm.setDefaultConfiguration(config);
                 }
         }
 
@@ -0,0 +1,146 @@
+package io.keepcoding.pickandgol.manager.db;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * This class keeps the latency statistics of the database operations (count, average and max time
+ * for each kind of operation, from the moment it is requested until its result is ready).
+ *
+ * It lets us check that reads and writes do not block each other: if reads had to wait for the
+ * write lock, their latency would grow every time a big write (like a category refresh) is running.
+ * This class is abstract, and all its methods are static.
+ */
+public abstract class DBOperationMetrics {
+
+    private final static String LOG_TAG = "DBOperationMetrics";
+
+    // Statistics for each operation, by operation name
+    private static final Map<String, OperationStats> statsByOperation = new HashMap<>();
+
+
+    /**
+     * This class represents the statistics of one kind of database operation.
+     */
+    public static class OperationStats {
+
+        private final String operation;
+        private int count;
+        private int failures;
+        private long totalMillis;
+        private long maxMillis;
+
+        private OperationStats(String operation) {
+            this.operation = operation;
+        }
+
+        // Copy constructor, used to take snapshots
+        private OperationStats(OperationStats other) {
+
+            this.operation = other.operation;
+            this.count = other.count;
+            this.failures = other.failures;
+            this.totalMillis = other.totalMillis;
+            this.maxMillis = other.maxMillis;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        public long getMaxMillis() {
+            return maxMillis;
+        }
+
+        public long getAverageMillis() {
+            return (count == 0) ? 0 : totalMillis / count;
+        }
+
+        @Override
+        public String toString() {
+            return operation +": "+ count +" ops ("+ failures +" failed), avg "
+                    + getAverageMillis() +" ms, max "+ maxMillis +" ms";
+        }
+    }
+
+
+    /**
+     * Records the result of one database operation.
+     *
+     * @param operation     the operation name (usually the DBManager method name).
+     * @param startNanos    the value of System.nanoTime() when the operation was requested.
+     * @param success       true if the operation finished successfully, false otherwise.
+     */
+    public static void record(@NonNull String operation, long startNanos, boolean success) {
+
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1000000;
+
+        synchronized (statsByOperation) {
+
+            OperationStats stats = statsByOperation.get(operation);
+            if (stats == null) {
+                stats = new OperationStats(operation);
+                statsByOperation.put(operation, stats);
+            }
+
+            stats.count++;
+            stats.totalMillis += elapsedMillis;
+
+            if (elapsedMillis > stats.maxMillis)
+                stats.maxMillis = elapsedMillis;
+
+            if (!success)
+                stats.failures++;
+        }
+    }
+
+    /**
+     * Gets a copy of the current statistics of all the recorded operations.
+     *
+     * @return a list with the statistics of each operation (empty if nothing was recorded yet).
+     */
+    public static @NonNull List<OperationStats> getSnapshot() {
+
+        List<OperationStats> snapshot = new ArrayList<>();
+
+        synchronized (statsByOperation) {
+            for (OperationStats stats : statsByOperation.values())
+                snapshot.add( new OperationStats(stats) );
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Discards all the statistics recorded so far.
+     */
+    public static void reset() {
+
+        synchronized (statsByOperation) {
+            statsByOperation.clear();
+        }
+    }
+
+    /**
+     * Writes the current statistics of all the recorded operations to the log.
+     */
+    public static void logSummary() {
+
+        for (OperationStats stats : getSnapshot())
+            Log.d(LOG_TAG, stats.toString());
+    }
+}
@@ -4,15 +4,23 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import io.keepcoding.pickandgol.manager.db.DBManager;
 import io.keepcoding.pickandgol.manager.db.DBManagerListener;
+import io.keepcoding.pickandgol.manager.db.DBOperationMetrics;
+import io.keepcoding.pickandgol.manager.db.realm.model.RealmAddress;
 import io.keepcoding.pickandgol.manager.db.realm.model.RealmCategory;
 import io.keepcoding.pickandgol.manager.db.realm.model.RealmEvent;
 import io.keepcoding.pickandgol.manager.db.realm.model.RealmEventId;
 import io.keepcoding.pickandgol.manager.db.realm.model.RealmPub;
 import io.keepcoding.pickandgol.manager.db.realm.model.RealmPubId;
+import io.keepcoding.pickandgol.manager.db.realm.model.RealmSearchResult;
+import io.keepcoding.pickandgol.manager.db.realm.model.RealmSyncState;
 import io.keepcoding.pickandgol.manager.db.realm.model.RealmUser;
 import io.keepcoding.pickandgol.model.Category;
 import io.keepcoding.pickandgol.model.CategoryAggregate;
@@ -21,22 +29,31 @@ import io.keepcoding.pickandgol.model.EventAggregate;
 import io.keepcoding.pickandgol.model.Pub;
 import io.keepcoding.pickandgol.model.PubAggregate;
 import io.keepcoding.pickandgol.model.User;
+import io.keepcoding.pickandgol.util.GeoHash;
 import io.realm.Realm;
-import io.realm.RealmQuery;
+import io.realm.RealmList;
 import io.realm.RealmResults;
 
 
 /**
  * This class is a DBManager implementation using Realm.
+ *
+ * Writes run in async transactions, while reads run in a RealmReadExecutor (outside any
+ * transaction), so reads never have to wait for Realm's write lock.
  */
 public class RealmDBManager implements DBManager {
 
+    // Areas that need more geohash cells than this are not looked up by their cells (see findPubsInArea)
+    private static final int MAX_GEOHASH_QUERY_CELLS = 64;
+
     private static RealmDBManager instance;     // The DBManager is a singleton
-    private Realm realm;
+    private Realm realm;                        // Used for writes (async transactions)
+    private RealmReadExecutor readExecutor;     // Used for reads (no transactions)
 
     // Constructor is private, use getDBManager() instead
     private RealmDBManager() {
         realm = Realm.getDefaultInstance();
+        readExecutor = new RealmReadExecutor();
     }
 
     // Gets a reference to the singleton
@@ -51,172 +68,95 @@ public class RealmDBManager implements DBManager {
     // DBManager interface methods:
 
     // Gets the event from the database for a given event id
+    // (returns null to the listener if there is no such event)
     @Override
     public void getEvent(@NonNull final String eventId, final DBManagerListener listener) {
 
-        // Use a list to store the item instead of an Event (must be declared final)
-        final ArrayList<Event> eventList = new ArrayList<>();
-
-        realm.executeTransactionAsync(
-                new Realm.Transaction() {
+        readExecutor.execute("getEvent",
+                new RealmReadExecutor.ReadOperation() {
                     @Override
-                    public void execute(Realm realm) {
+                    public @Nullable Object read(Realm realm) {
 
                         RealmEvent realmEvent = realm.where(RealmEvent.class)
                                                      .equalTo("id", eventId)
                                                      .findFirst();
 
-                        if (realmEvent != null)
-                            eventList.add( realmEvent.mapToModel() );
-                    }
-                },
-                new Realm.Transaction.OnSuccess() {
-                    @Override
-                    public void onSuccess() {
-                        if (listener != null) {
-                            if (eventList.size() == 0)  listener.onSuccess(null);
-                            else                        listener.onSuccess(eventList.get(0));
-                        }
+                        return (realmEvent != null) ? realmEvent.mapToModel() : null;
                     }
                 },
-                new Realm.Transaction.OnError() {
-                    @Override
-                    public void onError(Throwable error) {
-                        if (listener != null) {
-                            listener.onError(error);
-                        }
-                    }
-                }
-        );
+                listener);
     }
 
     // Gets the pub from the database for a given pub id
+    // (returns null to the listener if there is no such pub)
     @Override
     public void getPub(@NonNull final String pubId, final DBManagerListener listener) {
 
-        final ArrayList<Pub> pubList = new ArrayList<>();
-
-        realm.executeTransactionAsync(
-                new Realm.Transaction() {
+        readExecutor.execute("getPub",
+                new RealmReadExecutor.ReadOperation() {
                     @Override
-                    public void execute(Realm realm) {
+                    public @Nullable Object read(Realm realm) {
 
                         RealmPub realmPub = realm.where(RealmPub.class)
                                                  .equalTo("id", pubId)
                                                  .findFirst();
 
-                        if (realmPub != null)
-                            pubList.add( realmPub.mapToModel() );
-                    }
-                },
-                new Realm.Transaction.OnSuccess() {
-                    @Override
-                    public void onSuccess() {
-                        if (listener != null) {
-                            if (pubList.size() == 0)    listener.onSuccess(null);
-                            else                        listener.onSuccess(pubList.get(0));
-                        }
+                        return (realmPub != null) ? realmPub.mapToModel() : null;
                     }
                 },
-                new Realm.Transaction.OnError() {
-                    @Override
-                    public void onError(Throwable error) {
-                        if (listener != null) {
-                            listener.onError(error);
-                        }
-                    }
-                }
-        );
+                listener);
     }
 
     // Gets the user from the database for a given user id
+    // (returns null to the listener if there is no such user)
     @Override
     public void getUser(@NonNull final String userId, final DBManagerListener listener) {
 
-        final ArrayList<User> userList = new ArrayList<>();
-
-        realm.executeTransactionAsync(
-                new Realm.Transaction() {
+        readExecutor.execute("getUser",
+                new RealmReadExecutor.ReadOperation() {
                     @Override
-                    public void execute(Realm realm) {
+                    public @Nullable Object read(Realm realm) {
 
                         RealmUser realmUser = realm.where(RealmUser.class)
                                                    .equalTo("id", userId)
                                                    .findFirst();
 
-                        if (realmUser != null)
-                            userList.add( realmUser.mapToModel() );
-                    }
-                },
-                new Realm.Transaction.OnSuccess() {
-                    @Override
-                    public void onSuccess() {
-                        if (listener != null) {
-                            if (userList.size() == 0)   listener.onSuccess(null);
-                            else                        listener.onSuccess(userList.get(0));
-                        }
+                        return (realmUser != null) ? realmUser.mapToModel() : null;
                     }
                 },
-                new Realm.Transaction.OnError() {
-                    @Override
-                    public void onError(Throwable error) {
-                        if (listener != null) {
-                            listener.onError(error);
-                        }
-                    }
-                }
-        );
+                listener);
     }
 
     // Gets the category from the database for a given category id
+    // (returns null to the listener if there is no such category)
     @Override
     public void getCategory(@NonNull final String categoryId, final DBManagerListener listener) {
 
-        final ArrayList<Category> categoryList = new ArrayList<>();
-
-        realm.executeTransactionAsync(
-                new Realm.Transaction() {
+        readExecutor.execute("getCategory",
+                new RealmReadExecutor.ReadOperation() {
                     @Override
-                    public void execute(Realm realm) {
+                    public @Nullable Object read(Realm realm) {
 
                         RealmCategory realmCategory = realm.where(RealmCategory.class)
                                                            .equalTo("id", categoryId)
                                                            .findFirst();
 
-                        if (realmCategory != null)
-                            categoryList.add( realmCategory.mapToModel() );
+                        return (realmCategory != null) ? realmCategory.mapToModel() : null;
                     }
                 },
-                new Realm.Transaction.OnSuccess() {
-                    @Override
-                    public void onSuccess() {
-                        if (listener != null) {
-                            if (categoryList.size() == 0)   listener.onSuccess(null);
-                            else                            listener.onSuccess(categoryList.get(0));
-                        }
-                    }
-                },
-                new Realm.Transaction.OnError() {
-                    @Override
-                    public void onError(Throwable error) {
-                        if (listener != null) {
-                            listener.onError(error);
-                        }
-                    }
-                }
-        );
+                listener);
     }
 
     // Gets all existing categories in the database, alphabetically
     @Override
     public void getAllCategories(final DBManagerListener listener) {
 
-        final CategoryAggregate categories = CategoryAggregate.buildEmpty();
-
-        realm.executeTransactionAsync(
-                new Realm.Transaction() {
+        readExecutor.execute("getAllCategories",
+                new RealmReadExecutor.ReadOperation() {
                     @Override
-                    public void execute(Realm realm) {
+                    public @Nullable Object read(Realm realm) {
+
+                        CategoryAggregate categories = CategoryAggregate.buildEmpty();
                         RealmResults<RealmCategory> res = realm.where(RealmCategory.class).findAllSorted("name");
 
                         if (res != null) {
@@ -227,25 +167,11 @@ public class RealmDBManager implements DBManager {
 
                             categories.setAll(categoryList);
                         }
+
+                        return categories;
                     }
                 },
-                new Realm.Transaction.OnSuccess() {
-                    @Override
-                    public void onSuccess() {
-                        if (listener != null) {
-                            listener.onSuccess(categories);
-                        }
-                    }
-                },
-                new Realm.Transaction.OnError() {
-                    @Override
-                    public void onError(Throwable error) {
-                        if (listener != null) {
-                            listener.onError(error);
-                        }
-                    }
-                }
-        );
+                listener);
     }
 
 
@@ -253,12 +179,12 @@ public class RealmDBManager implements DBManager {
     @Override
     public void getEventsFromPub(@NonNull final String pubId, final DBManagerListener listener) {
 
-        final EventAggregate events = EventAggregate.buildEmpty();
-
-        realm.executeTransactionAsync(
-                new Realm.Transaction() {
+        readExecutor.execute("getEventsFromPub",
+                new RealmReadExecutor.ReadOperation() {
                     @Override
-                    public void execute(Realm realm) {
+                    public @Nullable Object read(Realm realm) {
+
+                        EventAggregate events = EventAggregate.buildEmpty();
 
                         // First, get the Pub we are looking for
                         RealmPub realmPub = realm.where(RealmPub.class)
@@ -268,14 +194,14 @@ public class RealmDBManager implements DBManager {
                         if (realmPub != null) {
 
                             // Next, query for all events in the pub's event list
-                            // (events whose id="" OR id=id1 OR id=id2 OR ...)
-                            RealmQuery<RealmEvent> query = realm.where(RealmEvent.class).equalTo("id", "");
-                            for (RealmEventId eventId : realmPub.getEvents())
-                                query = query.or().equalTo("id", eventId.getId() );
+                            // (events whose id is IN the list, using the primary key index)
+                            String[] eventIds = getEventIds( realmPub.getEvents() );
 
-                            RealmResults<RealmEvent> realmEvents = query.findAll();
+                            if (eventIds.length > 0) {
 
-                            if (realmEvents.size() > 0) {
+                                RealmResults<RealmEvent> realmEvents = realm.where(RealmEvent.class)
+                                                                            .in("id", eventIds)
+                                                                            .findAll();
 
                                 // Last, store all the matches (if any) in the EventAggregate object
                                 List<Event> eventList = new ArrayList<>();
@@ -285,37 +211,23 @@ public class RealmDBManager implements DBManager {
                                 events.setAll(eventList);
                             }
                         }
+
+                        return events;
                     }
                 },
-                new Realm.Transaction.OnSuccess() {
-                    @Override
-                    public void onSuccess() {
-                        if (listener != null) {
-                            listener.onSuccess(events);
-                        }
-                    }
-                },
-                new Realm.Transaction.OnError() {
-                    @Override
-                    public void onError(Throwable error) {
-                        if (listener != null) {
-                            listener.onError(error);
-                        }
-                    }
-                }
-        );
+                listener);
     }
 
     // Gets all pubs for the event with the given id
     @Override
     public void getPubsFromEvent(@NonNull final String eventId, final DBManagerListener listener) {
 
-        final PubAggregate pubs = PubAggregate.buildEmpty();
-
-        realm.executeTransactionAsync(
-                new Realm.Transaction() {
+        readExecutor.execute("getPubsFromEvent",
+                new RealmReadExecutor.ReadOperation() {
                     @Override
-                    public void execute(Realm realm) {
+                    public @Nullable Object read(Realm realm) {
+
+                        PubAggregate pubs = PubAggregate.buildEmpty();
 
                         // First, get the Event we are looking for
                         RealmEvent realmEvent = realm.where(RealmEvent.class)
@@ -325,14 +237,14 @@ public class RealmDBManager implements DBManager {
                         if (realmEvent != null) {
 
                             // Next, query for all pubs in the event's pub list
-                            // (pubs whose id="" OR id=id1 OR id=id2 OR ...)
-                            RealmQuery<RealmPub> query = realm.where(RealmPub.class).equalTo("id", "");
-                            for (RealmPubId pubId : realmEvent.getPubs())
-                                query = query.or().equalTo("id", pubId.getId() );
+                            // (pubs whose id is IN the list, using the primary key index)
+                            String[] pubIds = getPubIds( realmEvent.getPubs() );
 
-                            RealmResults<RealmPub> realmPubs = query.findAll();
+                            if (pubIds.length > 0) {
 
-                            if (realmPubs.size() > 0) {
+                                RealmResults<RealmPub> realmPubs = realm.where(RealmPub.class)
+                                                                        .in("id", pubIds)
+                                                                        .findAll();
 
                                 // Last, store all the matches (if any) in the PubAggregate object
                                 List<Pub> pubList = new ArrayList<>();
@@ -342,37 +254,23 @@ public class RealmDBManager implements DBManager {
                                 pubs.setAll(pubList);
                             }
                         }
+
+                        return pubs;
                     }
                 },
-                new Realm.Transaction.OnSuccess() {
-                    @Override
-                    public void onSuccess() {
-                        if (listener != null) {
-                            listener.onSuccess(pubs);
-                        }
-                    }
-                },
-                new Realm.Transaction.OnError() {
-                    @Override
-                    public void onError(Throwable error) {
-                        if (listener != null) {
-                            listener.onError(error);
-                        }
-                    }
-                }
-        );
+                listener);
     }
 
     // Gets all favorite pubs for the user with the given id
     @Override
     public void getFavoritesFromUser(@NonNull final String userId, final DBManagerListener listener) {
 
-        final PubAggregate favorites = PubAggregate.buildEmpty();
-
-        realm.executeTransactionAsync(
-                new Realm.Transaction() {
+        readExecutor.execute("getFavoritesFromUser",
+                new RealmReadExecutor.ReadOperation() {
                     @Override
-                    public void execute(Realm realm) {
+                    public @Nullable Object read(Realm realm) {
+
+                        PubAggregate favorites = PubAggregate.buildEmpty();
 
                         // First, get the User we are looking for
                         RealmUser realmUser = realm.where(RealmUser.class)
@@ -382,14 +280,14 @@ public class RealmDBManager implements DBManager {
                         if (realmUser != null) {
 
                             // Next, query for all pubs in the user's favorites
-                            // (pubs whose id="" OR id=id1 OR id=id2 OR ...)
-                            RealmQuery<RealmPub> query = realm.where(RealmPub.class).equalTo("id", "");
-                            for (RealmPubId pubId : realmUser.getFavorites())
-                                query = query.or().equalTo("id", pubId.getId() );
+                            // (pubs whose id is IN the list, using the primary key index)
+                            String[] pubIds = getPubIds( realmUser.getFavorites() );
 
-                            RealmResults<RealmPub> realmPubs = query.findAll();
+                            if (pubIds.length > 0) {
 
-                            if (realmPubs.size() > 0) {
+                                RealmResults<RealmPub> realmPubs = realm.where(RealmPub.class)
+                                                                        .in("id", pubIds)
+                                                                        .findAll();
 
                                 // Last, store all the matches (if any) in the PubAggregate object
                                 List<Pub> pubList = new ArrayList<>();
@@ -399,25 +297,67 @@ public class RealmDBManager implements DBManager {
                                 favorites.setAll(pubList);
                             }
                         }
+
+                        return favorites;
                     }
                 },
-                new Realm.Transaction.OnSuccess() {
+                listener);
+    }
+
+    // Gets all the stored pubs within the given distance of a location, closest first
+    @Override
+    public void getPubsNearby(final double latitude, final double longitude, final double radiusKm,
+                              final DBManagerListener listener) {
+
+        readExecutor.execute("getPubsNearby",
+                new RealmReadExecutor.ReadOperation() {
                     @Override
-                    public void onSuccess() {
-                        if (listener != null) {
-                            listener.onSuccess(favorites);
+                    public @Nullable Object read(Realm realm) {
+
+                        // First, get the pubs in the area that contains the circle (using the geohash index)
+                        double[] area = GeoHash.getAreaAround(latitude, longitude, radiusKm);
+                        List<Pub> candidates = findPubsInArea(realm, area[0], area[1], area[2], area[3]);
+
+                        // Next, keep only the ones inside the circle, and sort them by distance
+                        final Map<Pub, Double> distances = new HashMap<>();
+                        List<Pub> pubList = new ArrayList<>();
+
+                        for (Pub pub : candidates) {
+                            double distance = GeoHash.getDistanceKm(latitude, longitude, pub.getLatitude(), pub.getLongitude());
+                            if (distance <= radiusKm) {
+                                distances.put(pub, distance);
+                                pubList.add(pub);
+                            }
                         }
+
+                        Collections.sort(pubList, new Comparator<Pub>() {
+                            @Override
+                            public int compare(Pub pub1, Pub pub2) {
+                                return Double.compare(distances.get(pub1), distances.get(pub2));
+                            }
+                        });
+
+                        return PubAggregate.buildFromList(pubList, pubList.size());
                     }
                 },
-                new Realm.Transaction.OnError() {
+                listener);
+    }
+
+    // Gets all the stored pubs inside the given area
+    @Override
+    public void getPubsInArea(final double south, final double west, final double north, final double east,
+                              final DBManagerListener listener) {
+
+        readExecutor.execute("getPubsInArea",
+                new RealmReadExecutor.ReadOperation() {
                     @Override
-                    public void onError(Throwable error) {
-                        if (listener != null) {
-                            listener.onError(error);
-                        }
+                    public @Nullable Object read(Realm realm) {
+
+                        List<Pub> pubList = findPubsInArea(realm, south, west, north, east);
+                        return PubAggregate.buildFromList(pubList, pubList.size());
                     }
-                }
-        );
+                },
+                listener);
     }
 
 
@@ -425,8 +365,7 @@ public class RealmDBManager implements DBManager {
     @Override
     public void saveEvent(@NonNull final Event event, final DBManagerListener listener) {
 
-        realm.executeTransactionAsync(
-
+        executeWrite("saveEvent",
                 new Realm.Transaction() {
                     @Override
                     public void execute(Realm backgroundRealm) {
@@ -434,63 +373,28 @@ public class RealmDBManager implements DBManager {
                         backgroundRealm.copyToRealmOrUpdate(realmEvent);
                     }
                 },
-
-                new Realm.Transaction.OnSuccess() {
-                    @Override
-                    public void onSuccess() {
-                        if (listener != null)
-                            listener.onSuccess(null);
-                    }
-                },
-
-                new Realm.Transaction.OnError() {
-                    @Override
-                    public void onError(Throwable error) {
-                        if (listener != null)
-                            listener.onError(error);
-                    }
-                }
-        );
+                listener);
     }
 
     // Saves the given pub to the database, then calls the passed listener
     @Override
     public void savePub(@NonNull final Pub pub, final DBManagerListener listener) {
 
-        realm.executeTransactionAsync(
-
+        executeWrite("savePub",
                 new Realm.Transaction() {
                     @Override
                     public void execute(Realm backgroundRealm) {
-                        RealmPub realmPub = RealmPub.mapFromModel(pub);
-                        backgroundRealm.copyToRealmOrUpdate(realmPub);
-                    }
-                },
-
-                new Realm.Transaction.OnSuccess() {
-                    @Override
-                    public void onSuccess() {
-                        if (listener != null)
-                            listener.onSuccess(null);
+                        copyPubToRealm(backgroundRealm, pub);
                     }
                 },
-
-                new Realm.Transaction.OnError() {
-                    @Override
-                    public void onError(Throwable error) {
-                        if (listener != null)
-                            listener.onError(error);
-                    }
-                }
-        );
+                listener);
     }
 
     // Saves the given user to the database, then calls the passed listener
     @Override
     public void saveUser(@NonNull final User user, final DBManagerListener listener) {
 
-        realm.executeTransactionAsync(
-
+        executeWrite("saveUser",
                 new Realm.Transaction() {
                     @Override
                     public void execute(Realm backgroundRealm) {
@@ -498,31 +402,14 @@ public class RealmDBManager implements DBManager {
                         backgroundRealm.copyToRealmOrUpdate(realmUser);
                     }
                 },
-
-                new Realm.Transaction.OnSuccess() {
-                    @Override
-                    public void onSuccess() {
-                        if (listener != null)
-                            listener.onSuccess(null);
-                    }
-                },
-
-                new Realm.Transaction.OnError() {
-                    @Override
-                    public void onError(Throwable error) {
-                        if (listener != null)
-                            listener.onError(error);
-                    }
-                }
-        );
+                listener);
     }
 
     // Saves the given category to the database, then calls the passed listener
     @Override
     public void saveCategory(@NonNull final Category category, final DBManagerListener listener) {
 
-        realm.executeTransactionAsync(
-
+        executeWrite("saveCategory",
                 new Realm.Transaction() {
                     @Override
                     public void execute(Realm backgroundRealm) {
@@ -530,61 +417,82 @@ public class RealmDBManager implements DBManager {
                         backgroundRealm.copyToRealmOrUpdate(realmCategory);
                     }
                 },
+                listener);
+    }
 
-                new Realm.Transaction.OnSuccess() {
+    // Stores all the pubs contained in the aggregate into the database (in a single transaction),
+    // then calls the listener
+    @Override
+    public void savePubs(@NonNull final PubAggregate pubs, final DBManagerListener listener) {
+
+        executeWrite("savePubs",
+                new Realm.Transaction() {
                     @Override
-                    public void onSuccess() {
-                        if (listener != null)
-                            listener.onSuccess(null);
+                    public void execute(Realm backgroundRealm) {
+                        copyPubsToRealm(backgroundRealm, pubs.getAll());
                     }
                 },
+                listener);
+    }
 
-                new Realm.Transaction.OnError() {
+    // Stores all the events contained in the aggregate into the database (in a single transaction),
+    // then calls the listener
+    @Override
+    public void saveEvents(@NonNull final EventAggregate events, final DBManagerListener listener) {
+
+        executeWrite("saveEvents",
+                new Realm.Transaction() {
                     @Override
-                    public void onError(Throwable error) {
-                        if (listener != null)
-                            listener.onError(error);
+                    public void execute(Realm backgroundRealm) {
+
+                        List<RealmEvent> realmEvents = new ArrayList<>();
+                        for (Event event : events.getAll())
+                            realmEvents.add( RealmEvent.mapFromModel(event) );
+
+                        backgroundRealm.copyToRealmOrUpdate(realmEvents);
                     }
-                }
-        );
+                },
+                listener);
     }
 
-    // Stores all the categories contained in the aggregate into the database, then calls the listener.
-    // (if one fails, the operation is interrupted and the remaining categories will not be saved)
+    // Stores all the categories contained in the aggregate into the database (in a single transaction),
+    // then calls the listener. If one fails, none of the categories will be saved.
     @Override
     public void saveCategories(@NonNull final CategoryAggregate categories, final DBManagerListener listener) {
 
-        // Counter for remaining categories (use an array instead an int because it must be final)
-        final int[] remaining = new int[1];
-        remaining[0] = categories.size();
-
-        for (Category category : categories.getAll()) {
-
-            saveCategory(category, new DBManagerListener() {
-
-                @Override
-                public void onError(Throwable e) {
-                    listener.onError(e);
-                    return;
-                }
+        executeWrite("saveCategories",
+                new Realm.Transaction() {
+                    @Override
+                    public void execute(Realm backgroundRealm) {
+                        copyCategoriesToRealm(backgroundRealm, categories.getAll());
+                    }
+                },
+                listener);
+    }
 
-                @Override
-                public void onSuccess(@Nullable Object result) {
-                    remaining[0] -= 1;
+    // Replaces all the categories in the database with the ones contained in the aggregate
+    // (in a single transaction, so if it fails the database keeps the previous categories),
+    // then calls the listener
+    @Override
+    public void replaceAllCategories(@NonNull final CategoryAggregate categories, final DBManagerListener listener) {
 
-                    // Only return control to the listener when no more categories left to save
-                    if (remaining[0] == 0)
-                        listener.onSuccess(null);
-                }
-            });
-        }
+        executeWrite("replaceAllCategories",
+                new Realm.Transaction() {
+                    @Override
+                    public void execute(Realm backgroundRealm) {
+                        backgroundRealm.delete(RealmCategory.class);
+                        copyCategoriesToRealm(backgroundRealm, categories.getAll());
+                        setCategoriesSyncTime(backgroundRealm, System.currentTimeMillis());
+                    }
+                },
+                listener);
     }
 
 
     // Removes the user for the given id from the database, then calls the passed listener
     @Override
     public void removeUser(@NonNull final String userId, final DBManagerListener listener) {
-        realm.executeTransactionAsync(
+        executeWrite("removeUser",
                 new Realm.Transaction() {
                     @Override
                     public void execute(Realm realm) {
@@ -592,149 +500,513 @@ public class RealmDBManager implements DBManager {
                         results.deleteAllFromRealm();
                     }
                 },
+                listener);
 
-                new Realm.Transaction.OnSuccess() {
+    }
+
+    // Removes the pub for the given id from the database, then calls the passed listener
+    @Override
+    public void removePub(@NonNull final String pubId, final DBManagerListener listener) {
+        executeWrite("removePub",
+                new Realm.Transaction() {
                     @Override
-                    public void onSuccess() {
-                        if (listener != null) {
-                            listener.onSuccess(null);
-                        }
+                    public void execute(Realm realm) {
+                        RealmResults<RealmPub> results = realm.where(RealmPub.class).equalTo("id", pubId).findAll();
+                        results.deleteAllFromRealm();
                     }
                 },
+                listener);
+    }
 
-                new Realm.Transaction.OnError() {
+    // Removes the event for the given id from the database, then calls the passed listener
+    @Override
+    public void removeEvent(@NonNull final String eventId, final DBManagerListener listener) {
+        executeWrite("removeEvent",
+                new Realm.Transaction() {
                     @Override
-                    public void onError(Throwable error) {
-                        if (listener != null) {
-                            listener.onError(error);
-                        }
+                    public void execute(Realm realm) {
+                        RealmResults<RealmEvent> results = realm.where(RealmEvent.class).equalTo("id", eventId).findAll();
+                        results.deleteAllFromRealm();
                     }
-                }
-        );
-
+                },
+                listener);
     }
 
-    // Removes the pub for the given id from the database, then calls the passed listener
+    // Removes the category for the given id from the database, then calls the passed listener
     @Override
-    public void removePub(@NonNull final String pubId, final DBManagerListener listener) {
-        realm.executeTransactionAsync(
+    public void removeCategory(@NonNull final String categoryId, final DBManagerListener listener) {
+
+        executeWrite("removeCategory",
                 new Realm.Transaction() {
                     @Override
                     public void execute(Realm realm) {
-                        RealmResults<RealmPub> results = realm.where(RealmPub.class).equalTo("id", pubId).findAll();
+                        RealmResults<RealmCategory> results = realm.where(RealmCategory.class).equalTo("id", categoryId).findAll();
                         results.deleteAllFromRealm();
                     }
                 },
+                listener);
+    }
 
-                new Realm.Transaction.OnSuccess() {
+    // Removes all categories from the local database
+    // (and forgets when they were synchronized, so that the next sync is not skipped)
+    @Override
+    public void removeAllCategories(final DBManagerListener listener) {
+
+        executeWrite("removeAllCategories",
+                new Realm.Transaction() {
                     @Override
-                    public void onSuccess() {
-                        if (listener != null) {
-                            listener.onSuccess(null);
-                        }
+                    public void execute(Realm realm) {
+                        realm.delete(RealmCategory.class);
+                        realm.where(RealmSyncState.class)
+                             .equalTo("key", RealmSyncState.CATEGORIES_KEY)
+                             .findAll()
+                             .deleteAllFromRealm();
                     }
                 },
+                listener);
+    }
 
-                new Realm.Transaction.OnError() {
+
+    // Gets when the categories were last synchronized with the server, in millis
+    // (returns 0 to the listener if they were never synchronized)
+    @Override
+    public void getCategoriesSyncTime(final DBManagerListener listener) {
+
+        readExecutor.execute("getCategoriesSyncTime",
+                new RealmReadExecutor.ReadOperation() {
                     @Override
-                    public void onError(Throwable error) {
-                        if (listener != null) {
-                            listener.onError(error);
-                        }
+                    public @Nullable Object read(Realm realm) {
+
+                        RealmSyncState state = realm.where(RealmSyncState.class)
+                                                    .equalTo("key", RealmSyncState.CATEGORIES_KEY)
+                                                    .findFirst();
+
+                        return (state != null) ? state.getTimestamp() : 0L;
                     }
-                }
-        );
+                },
+                listener);
     }
 
-    // Removes the event for the given id from the database, then calls the passed listener
+    // Applies the differences between the local categories and the given server list, in a single
+    // transaction: inserts the new ones, updates the changed ones and removes the ones not in the list
+    // (the unchanged ones are not written again). Then passes the number of changes to the listener.
     @Override
-    public void removeEvent(@NonNull final String eventId, final DBManagerListener listener) {
-        realm.executeTransactionAsync(
+    public void syncCategories(@NonNull final CategoryAggregate serverCategories, final DBManagerListener listener) {
+
+        // Number of changes applied (use an array because it must be final)
+        final int[] changes = new int[1];
+
+        executeWrite("syncCategories",
                 new Realm.Transaction() {
                     @Override
-                    public void execute(Realm realm) {
-                        RealmResults<RealmEvent> results = realm.where(RealmEvent.class).equalTo("id", eventId).findAll();
-                        results.deleteAllFromRealm();
+                    public void execute(Realm backgroundRealm) {
+
+                        Map<String, Category> pending = new HashMap<>();
+                        for (Category category : serverCategories.getAll())
+                            pending.put(category.getId(), category);
+
+                        List<String> deletedIds = new ArrayList<>();
+
+                        for (RealmCategory local : backgroundRealm.where(RealmCategory.class).findAll()) {
+
+                            Category remote = pending.get( local.getId() );
+
+                            if (remote == null)
+                                deletedIds.add( local.getId() );
+
+                            else if ( equalsOrBothNull(remote.getName(), local.getName()) )
+                                pending.remove( local.getId() );
+                        }
+
+                        if ( !deletedIds.isEmpty() )
+                            backgroundRealm.where(RealmCategory.class)
+                                           .in("id", deletedIds.toArray(new String[deletedIds.size()]))
+                                           .findAll()
+                                           .deleteAllFromRealm();
+
+                        copyCategoriesToRealm(backgroundRealm, new ArrayList<>( pending.values() ));
+                        setCategoriesSyncTime(backgroundRealm, System.currentTimeMillis());
+
+                        changes[0] = deletedIds.size() + pending.size();
                     }
                 },
-                new Realm.Transaction.OnSuccess() {
+                new DBManagerListener() {
                     @Override
-                    public void onSuccess() {
-                        if (listener != null) {
-                            listener.onSuccess(null);
+                    public void onError(Throwable e) {
+                        if (listener != null)
+                            listener.onError(e);
+                    }
+
+                    @Override
+                    public void onSuccess(@Nullable Object result) {
+                        if (listener != null)
+                            listener.onSuccess(changes[0]);
+                    }
+                });
+    }
+
+
+    // Gets the cached first page of results for the pub search with the given key
+    // (returns null to the listener if there is no such search cached, or if it is too old)
+    @Override
+    public void getCachedPubSearch(@NonNull final String searchKey, final long maxAgeMillis,
+                                   final DBManagerListener listener) {
+
+        readExecutor.execute("getCachedPubSearch",
+                new RealmReadExecutor.ReadOperation() {
+                    @Override
+                    public @Nullable Object read(Realm realm) {
+
+                        RealmSearchResult result = findCachedSearch(realm, searchKey, maxAgeMillis);
+                        if (result == null || result.getPubs() == null)
+                            return null;
+
+                        // Get all the pubs with a single IN query, then keep them in the same order
+                        // the server returned them
+                        String[] pubIds = getPubIds( result.getPubs() );
+                        List<Pub> pubList = new ArrayList<>();
+
+                        if (pubIds.length > 0) {
+
+                            Map<String, RealmPub> realmPubs = new HashMap<>();
+                            for (RealmPub realmPub : realm.where(RealmPub.class).in("id", pubIds).findAll())
+                                realmPubs.put(realmPub.getId(), realmPub);
+
+                            for (String pubId : pubIds) {
+                                RealmPub realmPub = realmPubs.get(pubId);
+                                if (realmPub != null)
+                                    pubList.add( realmPub.mapToModel() );
+                            }
                         }
+
+                        PubAggregate pubs = PubAggregate.buildEmpty();
+                        pubs.setAll(pubList);
+                        pubs.setTotalResults( result.getTotalResults() );
+
+                        return pubs;
                     }
                 },
-                new Realm.Transaction.OnError() {
+                listener);
+    }
+
+    // Gets the cached first page of results for the event search with the given key
+    // (returns null to the listener if there is no such search cached, or if it is too old)
+    @Override
+    public void getCachedEventSearch(@NonNull final String searchKey, final long maxAgeMillis,
+                                     final DBManagerListener listener) {
+
+        readExecutor.execute("getCachedEventSearch",
+                new RealmReadExecutor.ReadOperation() {
                     @Override
-                    public void onError(Throwable error) {
-                        if (listener != null) {
-                            listener.onError(error);
+                    public @Nullable Object read(Realm realm) {
+
+                        RealmSearchResult result = findCachedSearch(realm, searchKey, maxAgeMillis);
+                        if (result == null || result.getEvents() == null)
+                            return null;
+
+                        // Get all the events with a single IN query, then keep them in the same order
+                        // the server returned them
+                        String[] eventIds = getEventIds( result.getEvents() );
+                        List<Event> eventList = new ArrayList<>();
+
+                        if (eventIds.length > 0) {
+
+                            Map<String, RealmEvent> realmEvents = new HashMap<>();
+                            for (RealmEvent realmEvent : realm.where(RealmEvent.class).in("id", eventIds).findAll())
+                                realmEvents.put(realmEvent.getId(), realmEvent);
+
+                            for (String eventId : eventIds) {
+                                RealmEvent realmEvent = realmEvents.get(eventId);
+                                if (realmEvent != null)
+                                    eventList.add( realmEvent.mapToModel() );
+                            }
                         }
+
+                        EventAggregate events = EventAggregate.buildEmpty();
+                        events.setAll(eventList);
+                        events.setTotalResults( result.getTotalResults() );
+
+                        return events;
                     }
-                }
-        );
+                },
+                listener);
     }
 
-    // Removes the category for the given id from the database, then calls the passed listener
+    // Stores the given pubs (and the search they belong to) in the search cache, in a single transaction
     @Override
-    public void removeCategory(@NonNull final String categoryId, final DBManagerListener listener) {
+    public void saveCachedPubSearch(@NonNull final String searchKey, @NonNull final PubAggregate pubs,
+                                    final long maxAgeMillis, final DBManagerListener listener) {
 
-        realm.executeTransactionAsync(
+        executeWrite("saveCachedPubSearch",
                 new Realm.Transaction() {
                     @Override
-                    public void execute(Realm realm) {
-                        RealmResults<RealmCategory> results = realm.where(RealmCategory.class).equalTo("id", categoryId).findAll();
-                        results.deleteAllFromRealm();
+                    public void execute(Realm backgroundRealm) {
+
+                        long now = System.currentTimeMillis();
+
+                        copyPubsToRealm(backgroundRealm, pubs.getAll());
+
+                        RealmList<RealmPubId> pubIds = new RealmList<>();
+                        for (Pub pub : pubs.getAll())
+                            pubIds.add( new RealmPubId(pub.getId()) );
+
+                        RealmSearchResult result = new RealmSearchResult()
+                                .setKey(searchKey)
+                                .setTimestamp(now)
+                                .setTotalResults( pubs.getTotalResults() )
+                                .setPubs(pubIds)
+                                .setEvents( new RealmList<RealmEventId>() );
+
+                        backgroundRealm.copyToRealmOrUpdate(result);
+                        removeExpiredSearches(backgroundRealm, now - maxAgeMillis);
                     }
                 },
-                new Realm.Transaction.OnSuccess() {
+                listener);
+    }
+
+    // Stores the given events (and the search they belong to) in the search cache, in a single transaction
+    @Override
+    public void saveCachedEventSearch(@NonNull final String searchKey, @NonNull final EventAggregate events,
+                                      final long maxAgeMillis, final DBManagerListener listener) {
+
+        executeWrite("saveCachedEventSearch",
+                new Realm.Transaction() {
                     @Override
-                    public void onSuccess() {
-                        if (listener != null) {
-                            listener.onSuccess(null);
+                    public void execute(Realm backgroundRealm) {
+
+                        long now = System.currentTimeMillis();
+
+                        RealmList<RealmEventId> eventIds = new RealmList<>();
+                        for (Event event : events.getAll()) {
+                            backgroundRealm.copyToRealmOrUpdate( RealmEvent.mapFromModel(event) );
+                            eventIds.add( new RealmEventId(event.getId()) );
                         }
+
+                        RealmSearchResult result = new RealmSearchResult()
+                                .setKey(searchKey)
+                                .setTimestamp(now)
+                                .setTotalResults( events.getTotalResults() )
+                                .setPubs( new RealmList<RealmPubId>() )
+                                .setEvents(eventIds);
+
+                        backgroundRealm.copyToRealmOrUpdate(result);
+                        removeExpiredSearches(backgroundRealm, now - maxAgeMillis);
                     }
                 },
-                new Realm.Transaction.OnError() {
+                listener);
+    }
+
+
+    // Gets the stored address with the given key, only if it is not older than maxAgeMillis
+    @Override
+    public void getCachedAddress(@NonNull final String key, final long maxAgeMillis, final DBManagerListener listener) {
+
+        readExecutor.execute("getCachedAddress",
+                new RealmReadExecutor.ReadOperation() {
                     @Override
-                    public void onError(Throwable error) {
-                        if (listener != null) {
-                            listener.onError(error);
-                        }
+                    public @Nullable Object read(Realm realm) {
+
+                        RealmAddress address = realm.where(RealmAddress.class)
+                                                    .equalTo("key", key)
+                                                    .greaterThanOrEqualTo("timestamp", System.currentTimeMillis() - maxAgeMillis)
+                                                    .findFirst();
+
+                        return (address != null) ? address.getAddress() : null;
                     }
-                }
-        );
+                },
+                listener);
     }
 
-    // Removes all categories from the local database
+    // Stores an address, and removes the ones older than maxAgeMillis, in a single transaction
     @Override
-    public void removeAllCategories(final DBManagerListener listener) {
+    public void saveCachedAddress(@NonNull final String key, @NonNull final String address,
+                                  final long maxAgeMillis, final DBManagerListener listener) {
 
-        realm.executeTransactionAsync(
+        executeWrite("saveCachedAddress",
                 new Realm.Transaction() {
                     @Override
-                    public void execute(Realm realm) {
-                        realm.delete(RealmCategory.class);
+                    public void execute(Realm backgroundRealm) {
+
+                        long now = System.currentTimeMillis();
+
+                        backgroundRealm.copyToRealmOrUpdate( new RealmAddress(key, address, now) );
+
+                        backgroundRealm.where(RealmAddress.class)
+                                       .lessThan("timestamp", now - maxAgeMillis)
+                                       .findAll()
+                                       .deleteAllFromRealm();
                     }
                 },
+                listener);
+    }
+
+
+    // Auxiliary methods:
+
+    // Runs a write transaction in background, then calls the listener (in the calling thread)
+    // and records the operation latency in the DB metrics
+    private void executeWrite(@NonNull final String operationName,
+                              @NonNull final Realm.Transaction transaction,
+                              final DBManagerListener listener) {
+
+        final long startNanos = System.nanoTime();
+
+        realm.executeTransactionAsync(
+
+                transaction,
+
                 new Realm.Transaction.OnSuccess() {
                     @Override
                     public void onSuccess() {
-                        if (listener != null) {
+                        DBOperationMetrics.record(operationName, startNanos, true);
+                        if (listener != null)
                             listener.onSuccess(null);
-                        }
                     }
                 },
+
                 new Realm.Transaction.OnError() {
                     @Override
                     public void onError(Throwable error) {
-                        if (listener != null) {
+                        DBOperationMetrics.record(operationName, startNanos, false);
+                        if (listener != null)
                             listener.onError(error);
-                        }
                     }
                 }
         );
     }
 
+
+    // Auxiliary methods (must be called inside a transaction):
+
+    // Gets the ids in a list of event references, to use them in an IN query
+    // (Realm does not accept an IN query with no values, so check the length before using it)
+    private static @NonNull String[] getEventIds(@Nullable List<RealmEventId> eventIds) {
+
+        if (eventIds == null)
+            return new String[0];
+
+        String[] ids = new String[ eventIds.size() ];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = eventIds.get(i).getId();
+
+        return ids;
+    }
+
+    // Gets the ids in a list of pub references, to use them in an IN query
+    // (Realm does not accept an IN query with no values, so check the length before using it)
+    private static @NonNull String[] getPubIds(@Nullable List<RealmPubId> pubIds) {
+
+        if (pubIds == null)
+            return new String[0];
+
+        String[] ids = new String[ pubIds.size() ];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = pubIds.get(i).getId();
+
+        return ids;
+    }
+
+    // Gets the stored pubs inside an area (east lower than west means that it crosses the antimeridian).
+    // Small areas are looked up by the geohash cells that cover them (an IN query on an indexed column),
+    // areas that need too many cells fall back to a query on the coordinates.
+    private static @NonNull List<Pub> findPubsInArea(Realm realm, double south, double west, double north, double east) {
+
+        List<String> cells = GeoHash.getCellsInArea(south, west, north, east,
+                                                    RealmPub.GEOHASH_PRECISION, MAX_GEOHASH_QUERY_CELLS);
+
+        RealmResults<RealmPub> realmPubs;
+
+        if (cells != null) {
+            realmPubs = realm.where(RealmPub.class)
+                             .in("geohash", cells.toArray(new String[cells.size()]))
+                             .findAll();
+        }
+        else {
+            realmPubs = realm.where(RealmPub.class)
+                             .equalTo("hasLocation", true)
+                             .between("latitude", south, north)
+                             .findAll();
+        }
+
+        // The cells cover a bit more than the area, keep only the pubs really inside it
+        List<Pub> pubList = new ArrayList<>();
+        for (RealmPub pub : realmPubs)
+            if ( GeoHash.isInArea(pub.getLatitude(), pub.getLongitude(), south, west, north, east) )
+                pubList.add( pub.mapToModel() );
+
+        return pubList;
+    }
+
+    // Gets the cached search with the given key, only if it is not older than maxAgeMillis
+    private static @Nullable RealmSearchResult findCachedSearch(Realm realm, String searchKey, long maxAgeMillis) {
+
+        return realm.where(RealmSearchResult.class)
+                    .equalTo("key", searchKey)
+                    .greaterThanOrEqualTo("timestamp", System.currentTimeMillis() - maxAgeMillis)
+                    .findFirst();
+    }
+
+    // Stores when the categories were last synchronized with the server
+    private static void setCategoriesSyncTime(Realm realm, long timestamp) {
+
+        realm.copyToRealmOrUpdate( new RealmSyncState(RealmSyncState.CATEGORIES_KEY, timestamp) );
+    }
+
+    // Compares two strings, any of which may be null
+    private static boolean equalsOrBothNull(@Nullable String a, @Nullable String b) {
+
+        return (a == null) ? (b == null) : a.equals(b);
+    }
+
+    // Removes all the cached searches retrieved before the given time
+    // (the pubs/events are kept, they can still be referenced from other places)
+    private static void removeExpiredSearches(Realm realm, long oldestTimestamp) {
+
+        realm.where(RealmSearchResult.class)
+             .lessThan("timestamp", oldestTimestamp)
+             .findAll()
+             .deleteAllFromRealm();
+    }
+
+    // Inserts or updates a pub, removing first the photos of the previous version (if any)
+    // (photos have no primary key, so they would be duplicated every time the pub is updated)
+    private static void copyPubToRealm(Realm realm, Pub pub) {
+
+        RealmPub previous = realm.where(RealmPub.class).equalTo("id", pub.getId()).findFirst();
+        if (previous != null && previous.getPhotos() != null)
+            previous.getPhotos().deleteAllFromRealm();
+
+        realm.copyToRealmOrUpdate( RealmPub.mapFromModel(pub) );
+    }
+
+    // Inserts or updates several pubs at once, removing first the photos of their previous versions
+    private static void copyPubsToRealm(Realm realm, List<Pub> pubs) {
+
+        if (pubs.isEmpty())
+            return;
+
+        String[] ids = new String[ pubs.size() ];
+        List<RealmPub> realmPubs = new ArrayList<>();
+
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = pubs.get(i).getId();
+            realmPubs.add( RealmPub.mapFromModel(pubs.get(i)) );
+        }
+
+        for (RealmPub previous : realm.where(RealmPub.class).in("id", ids).findAll())
+            if (previous.getPhotos() != null)
+                previous.getPhotos().deleteAllFromRealm();
+
+        realm.copyToRealmOrUpdate(realmPubs);
+    }
+
+    // Inserts or updates several categories at once
+    private static void copyCategoriesToRealm(Realm realm, List<Category> categories) {
+
+        List<RealmCategory> realmCategories = new ArrayList<>();
+        for (Category category : categories)
+            realmCategories.add( RealmCategory.mapFromModel(category) );
+
+        realm.copyToRealmOrUpdate(realmCategories);
+    }
 }
@@ -0,0 +1,115 @@
+package io.keepcoding.pickandgol.manager.db.realm;
+
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.keepcoding.pickandgol.manager.db.DBManagerListener;
+import io.keepcoding.pickandgol.manager.db.DBOperationMetrics;
+import io.keepcoding.pickandgol.util.MainThread;
+import io.realm.Realm;
+
+
+/**
+ * This class runs read-only Realm queries on a small pool of background threads.
+ *
+ * Each query opens its own Realm instance (closed as soon as the query ends) and runs outside
+ * any transaction, so reads never take Realm's write lock and never wait for a write to finish.
+ * The result is always delivered to the listener in the main thread.
+ */
+class RealmReadExecutor {
+
+    private static final int READ_THREADS = 2;
+
+    // This interface describes a read-only query
+    // (it must return model objects, because Realm objects can not leave the thread that read them)
+    interface ReadOperation {
+        @Nullable Object read(Realm realm);
+    }
+
+    private final ExecutorService executor;
+
+
+    RealmReadExecutor() {
+
+        final AtomicInteger threadCount = new AtomicInteger(0);
+
+        executor = Executors.newFixedThreadPool(READ_THREADS, new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull final Runnable runnable) {
+
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, "RealmRead-"+ threadCount.incrementAndGet());
+            }
+        });
+    }
+
+
+    /**
+     * Runs a read-only query in background, then passes its result to the listener (in the main thread).
+     *
+     * @param operationName     the operation name, used for the latency metrics.
+     * @param operation         the query to run.
+     * @param listener          the listener that will receive the result, or the error (if any).
+     */
+    void execute(@NonNull final String operationName,
+                 @NonNull final ReadOperation operation,
+                 final DBManagerListener listener) {
+
+        final long startNanos = System.nanoTime();
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+
+                Object result = null;
+                Throwable error = null;
+                Realm realm = null;
+
+                try {
+                    realm = Realm.getDefaultInstance();
+                    result = operation.read(realm);
+                }
+                catch (Throwable t) {
+                    error = t;
+                }
+                finally {
+                    if (realm != null)
+                        realm.close();
+                }
+
+                DBOperationMetrics.record(operationName, startNanos, error == null);
+                deliver(result, error, listener);
+            }
+        });
+    }
+
+
+    // Auxiliary methods:
+
+    // Passes the result (or the error) to the listener, in the main thread
+    private void deliver(@Nullable final Object result, @Nullable final Throwable error,
+                         final DBManagerListener listener) {
+
+        if (listener == null)
+            return;
+
+        MainThread.run(new Runnable() {
+            @Override
+            public void run() {
+                if (error != null)  listener.onError(error);
+                else                listener.onSuccess(result);
+            }
+        });
+    }
+}
@@ -0,0 +1,65 @@
+package io.keepcoding.pickandgol.manager.db.realm.model;
+
+import io.realm.RealmObject;
+import io.realm.annotations.PrimaryKey;
+
+
+/**
+ * This class stores the address of a location, as resolved by the reverse geocoder, managed by Realm.
+ *
+ * The key identifies the location and the language of the address (see GeoManager.requestAddress).
+ */
+public class RealmAddress extends RealmObject {
+
+    @PrimaryKey
+    private String key;
+    private String address;
+    private long timestamp;     // when the address was resolved (in millis)
+
+    // An empty public constructor is mandatory for Realm when using customized constructors
+    public RealmAddress() {
+    }
+
+    public RealmAddress(String key, String address, long timestamp) {
+
+        this.key = key;
+        this.address = address;
+        this.timestamp = timestamp;
+    }
+
+
+    // Getters:
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+
+    // Setters:
+
+    public RealmAddress setKey(String key) {
+
+        this.key = key;
+        return this;
+    }
+
+    public RealmAddress setAddress(String address) {
+
+        this.address = address;
+        return this;
+    }
+
+    public RealmAddress setTimestamp(long timestamp) {
+
+        this.timestamp = timestamp;
+        return this;
+    }
+}
@@ -6,22 +6,32 @@ import java.util.ArrayList;
 import java.util.List;
 
 import io.keepcoding.pickandgol.model.Pub;
+import io.keepcoding.pickandgol.util.GeoHash;
 import io.realm.RealmList;
 import io.realm.RealmObject;
+import io.realm.annotations.Index;
 import io.realm.annotations.PrimaryKey;
 
 
 /**
  * This class is the equivalent to the Pub class, managed by Realm
+ *
+ * Pubs with a location also store the geohash of their cell (see GeoHash) in an indexed column,
+ * to find the pubs in an area without checking all of them.
  */
 public class RealmPub extends RealmObject {
 
+    // Precision of the stored geohash (each cell is ~4.9km x 4.9km at the equator)
+    public static final int GEOHASH_PRECISION = 5;
+
     @PrimaryKey
     private String id;
     private String name;
     private boolean hasLocation;
     private double latitude;
     private double longitude;
+    @Index
+    private String geohash;         // null if the pub has no location
     private String url;
     private RealmUserId owner;
     private RealmList<RealmEventId> events;
@@ -42,6 +52,7 @@ public class RealmPub extends RealmObject {
         this.hasLocation = hasLocation;
         this.latitude = latitude;
         this.longitude = longitude;
+        this.geohash = hasLocation ? GeoHash.encode(latitude, longitude, GEOHASH_PRECISION) : null;
         this.url = url;
         this.owner = owner;
         this.events = events;
@@ -85,6 +96,10 @@ public class RealmPub extends RealmObject {
         return longitude;
     }
 
+    public String getGeohash() {
+        return geohash;
+    }
+
     public String getUrl() {
         return url;
     }
@@ -129,6 +144,11 @@ public class RealmPub extends RealmObject {
         return this;
     }
 
+    public RealmPub setGeohash(String geohash) {
+        this.geohash = geohash;
+        return this;
+    }
+
     public RealmPub setUrl(String url) {
         this.url = url;
         return this;
@@ -173,6 +193,7 @@ public class RealmPub extends RealmObject {
                 .setHasLocation( pub.hasLocation() )
                 .setLatitude( pub.getLatitude() )
                 .setLongitude( pub.getLongitude() )
+                .setGeohash( pub.hasLocation() ? GeoHash.encode(pub.getLatitude(), pub.getLongitude(), GEOHASH_PRECISION) : null )
                 .setUrl( pub.getUrl() )
                 .setOwner(owner)
                 .setEvents(events)
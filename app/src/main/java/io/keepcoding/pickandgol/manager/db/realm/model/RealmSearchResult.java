@@ -0,0 +1,83 @@
+package io.keepcoding.pickandgol.manager.db.realm.model;
+
+import io.realm.RealmList;
+import io.realm.RealmObject;
+import io.realm.annotations.PrimaryKey;
+
+
+/**
+ * This class represents the first page of results of a pub/event search, managed by Realm.
+ *
+ * It is identified by the normalized key of the search parameters and only stores the ids
+ * of the results (in the same order the server returned them), the pubs/events themselves
+ * are stored as RealmPub/RealmEvent objects.
+ */
+public class RealmSearchResult extends RealmObject {
+
+    @PrimaryKey
+    private String key;
+    private long timestamp;     // when the results were retrieved from the server (in millis)
+    private int totalResults;
+    private RealmList<RealmPubId> pubs;
+    private RealmList<RealmEventId> events;
+
+    // An empty public constructor is mandatory for Realm when using customized constructors
+    public RealmSearchResult() {
+    }
+
+
+    // Getters:
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getTotalResults() {
+        return totalResults;
+    }
+
+    public RealmList<RealmPubId> getPubs() {
+        return pubs;
+    }
+
+    public RealmList<RealmEventId> getEvents() {
+        return events;
+    }
+
+
+    // Setters:
+
+    public RealmSearchResult setKey(String key) {
+
+        this.key = key;
+        return this;
+    }
+
+    public RealmSearchResult setTimestamp(long timestamp) {
+
+        this.timestamp = timestamp;
+        return this;
+    }
+
+    public RealmSearchResult setTotalResults(int totalResults) {
+
+        this.totalResults = totalResults;
+        return this;
+    }
+
+    public RealmSearchResult setPubs(RealmList<RealmPubId> pubs) {
+
+        this.pubs = pubs;
+        return this;
+    }
+
+    public RealmSearchResult setEvents(RealmList<RealmEventId> events) {
+
+        this.events = events;
+        return this;
+    }
+}
@@ -0,0 +1,58 @@
+package io.keepcoding.pickandgol.manager.db.realm.model;
+
+import io.realm.RealmObject;
+import io.realm.annotations.PrimaryKey;
+
+
+/**
+ * This class stores when a collection of the local database was last synchronized with the server,
+ * managed by Realm.
+ *
+ * It lives in the same database as the data it describes, so it is written in the same transaction
+ * as the data, and it is lost whenever the data is lost (i.e. when the schema changes).
+ */
+public class RealmSyncState extends RealmObject {
+
+    // Keys of the synchronized collections
+    public static final String CATEGORIES_KEY = "categories";
+
+    @PrimaryKey
+    private String key;
+    private long timestamp;     // when the collection was last synchronized with the server (in millis)
+
+    // An empty public constructor is mandatory for Realm when using customized constructors
+    public RealmSyncState() {
+    }
+
+    public RealmSyncState(String key, long timestamp) {
+
+        this.key = key;
+        this.timestamp = timestamp;
+    }
+
+
+    // Getters:
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+
+    // Setters:
+
+    public RealmSyncState setKey(String key) {
+
+        this.key = key;
+        return this;
+    }
+
+    public RealmSyncState setTimestamp(long timestamp) {
+
+        this.timestamp = timestamp;
+        return this;
+    }
+}
@@ -0,0 +1,270 @@
+package io.keepcoding.pickandgol.manager.geo;
+
+import android.content.Context;
+import android.location.Address;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import io.keepcoding.pickandgol.PickAndGolApp;
+import io.keepcoding.pickandgol.manager.db.DBManager;
+import io.keepcoding.pickandgol.manager.db.DBManagerBuilder;
+import io.keepcoding.pickandgol.manager.db.DBManagerListener;
+import io.keepcoding.pickandgol.util.Utils;
+
+
+/**
+ * This class keeps the addresses already resolved by the reverse geocoder, so that the address of
+ * a location is only requested once: first it looks in memory (an LRU cache), then in the local
+ * database, and only then it asks the geocoder (and stores the result in both levels).
+ *
+ * Addresses are stored by location (rounded to COORDINATE_DECIMALS, ~11 meters) and language,
+ * and several requests for the same address at the same time share a single geocoder call.
+ *
+ * Addresses resolved in advance (prefetches) wait in their own queue and are sent to the geocoder
+ * one at a time, in a different thread than the addresses someone is waiting for. A queued prefetch
+ * is moved ahead as soon as someone asks for its address, and the whole queue can be cancelled.
+ *
+ * It is an auxiliary class of GeoManager, and has package-private visibility.
+ * All its methods must be called from the main thread.
+ */
+class AddressCache {
+
+    private static final String LOG_TAG = "AddressCache";
+
+    // Number of addresses kept in memory
+    static final int MEMORY_CACHE_SIZE = 256;
+
+    // Stored addresses older than this will not be used (and will be removed from the database)
+    static final long DISK_CACHE_TTL_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
+    // Decimals of the coordinates used in the address keys
+    static final int COORDINATE_DECIMALS = 4;
+
+
+    private static final LruCache<String, String> memoryCache = new LruCache<>(MEMORY_CACHE_SIZE);
+    private static final Map<String, List<GeoManager.GeoAddressListener>> pending = new HashMap<>();
+
+    private static final Set<String> prefetchKeys = new HashSet<>();                   // prefetches not cancelled
+    private static final Map<String, double[]> prefetchQueue = new LinkedHashMap<>();   // waiting for the geocoder
+    private static boolean prefetchRunning = false;                                     // a prefetch is in the geocoder
+
+
+    // Gets the address of a location from the cache (memory, then database) or the geocoder, and passes it
+    // to the listener. If the address is in memory, the listener is called right away (before returning).
+    static void resolve(@NonNull Context context, double latitude, double longitude,
+                        @NonNull GeoManager.GeoAddressListener listener) {
+
+        String key = getKey(latitude, longitude);
+
+        String address = memoryCache.get(key);
+        if (address != null) {
+            listener.onAddressSuccess(address);
+            return;
+        }
+
+        // If the same address is already being resolved, just wait for it
+        // (if it is a prefetch still in the queue, send it to the geocoder right now)
+        List<GeoManager.GeoAddressListener> listeners = pending.get(key);
+        if (listeners != null) {
+            listeners.add(listener);
+
+            double[] location = prefetchQueue.remove(key);
+            if (location != null)
+                resolveWithGeocoder(context, key, location[0], location[1], false);
+
+            return;
+        }
+
+        listeners = new ArrayList<>();
+        listeners.add(listener);
+        pending.put(key, listeners);
+
+        resolveWithDatabase(context, key, latitude, longitude);
+    }
+
+    // Resolves the address of a location in advance, so it is in memory when someone asks for it
+    // (nothing is done if it is already in memory)
+    static void prefetch(@NonNull Context context, double latitude, double longitude) {
+
+        String key = getKey(latitude, longitude);
+
+        if (memoryCache.get(key) != null)
+            return;
+
+        // If it is already being resolved, just make sure it is not dropped as a cancelled prefetch
+        prefetchKeys.add(key);
+
+        if ( pending.containsKey(key) )
+            return;
+
+        pending.put(key, new ArrayList<GeoManager.GeoAddressListener>());
+
+        resolveWithDatabase(context, key, latitude, longitude);
+    }
+
+    // Cancels the prefetches that did not reach the geocoder yet
+    static void cancelPrefetches() {
+
+        // Nobody is waiting for the queued addresses (they would have been moved ahead otherwise)
+        for (String key : prefetchQueue.keySet())
+            pending.remove(key);
+
+        if (prefetchQueue.size() > 0)
+            Log.d(LOG_TAG, "Cancelled "+ prefetchQueue.size() +" queued address prefetches");
+
+        prefetchQueue.clear();
+        prefetchKeys.clear();
+    }
+
+    // Tells if the address of a location is already in memory
+    static boolean isInMemory(double latitude, double longitude) {
+        return memoryCache.get( getKey(latitude, longitude) ) != null;
+    }
+
+
+    // Auxiliary methods:
+
+    // Looks for the address of a location in the database, and asks the geocoder if it is not there
+    // (right away if someone is waiting for it, or through the prefetch queue otherwise)
+    private static void resolveWithDatabase(@NonNull final Context context, @NonNull final String key,
+                                            final double latitude, final double longitude) {
+
+        DBManager dbManager = new DBManagerBuilder().type(PickAndGolApp.DBTYPE).build();
+
+        dbManager.getCachedAddress(key, DISK_CACHE_TTL_MILLIS, new DBManagerListener() {
+
+            @Override
+            public void onError(Throwable e) {
+                Log.e(LOG_TAG, "Failed to read the address from the database: ", e);
+                onNotInDatabase(context, key, latitude, longitude);
+            }
+
+            @Override
+            public void onSuccess(@Nullable Object result) {
+
+                if (result == null) {
+                    onNotInDatabase(context, key, latitude, longitude);
+                    return;
+                }
+
+                memoryCache.put(key, (String) result);
+                complete(key, (String) result, null);
+            }
+        });
+    }
+
+    // Decides how to ask the geocoder for an address that is not in the database
+    private static void onNotInDatabase(@NonNull Context context, @NonNull String key,
+                                        double latitude, double longitude) {
+
+        List<GeoManager.GeoAddressListener> listeners = pending.get(key);
+
+        if (listeners != null && listeners.size() > 0) {
+            resolveWithGeocoder(context, key, latitude, longitude, false);
+        }
+        else if ( prefetchKeys.contains(key) ) {
+            prefetchQueue.put(key, new double[] {latitude, longitude});
+            startNextPrefetch(context);
+        }
+        else {
+            pending.remove(key);    // a cancelled prefetch
+        }
+    }
+
+    // Sends the next queued prefetch to the geocoder, unless there is one there already
+    private static void startNextPrefetch(@NonNull Context context) {
+
+        if (prefetchRunning || prefetchQueue.isEmpty())
+            return;
+
+        Iterator<Map.Entry<String, double[]>> iterator = prefetchQueue.entrySet().iterator();
+        Map.Entry<String, double[]> next = iterator.next();
+        iterator.remove();
+
+        prefetchRunning = true;
+        resolveWithGeocoder(context, next.getKey(), next.getValue()[0], next.getValue()[1], true);
+    }
+
+    // Asks the geocoder for the address of a location, then stores it in both levels of the cache
+    private static void resolveWithGeocoder(@NonNull final Context context, @NonNull final String key,
+                                            double latitude, double longitude, final boolean isPrefetch) {
+
+        new ReverseGeoCoder(context, latitude, longitude, 1, new GeoManager.GeoReverseLocationListener() {
+
+            @Override
+            public void onReverseLocationError(Throwable error) {
+
+                complete(key, null, error);
+                onGeocoderFinished(context, isPrefetch);
+            }
+
+            @Override
+            public void onReverseLocationSuccess(@NonNull List<Address> addresses) {
+
+                String address = Utils.getAddressString( addresses.get(0) );
+
+                memoryCache.put(key, address);
+                complete(key, address, null);
+                onGeocoderFinished(context, isPrefetch);
+
+                DBManager dbManager = new DBManagerBuilder().type(PickAndGolApp.DBTYPE).build();
+                dbManager.saveCachedAddress(key, address, DISK_CACHE_TTL_MILLIS, new DBManagerListener() {
+
+                    @Override
+                    public void onError(Throwable e) {
+                        Log.e(LOG_TAG, "Failed to store the address in the database: ", e);
+                    }
+
+                    @Override
+                    public void onSuccess(@Nullable Object result) {
+                    }
+                });
+            }
+        })
+        .executeOnExecutor(isPrefetch ? ReverseGeoCoder.PREFETCH_EXECUTOR : ReverseGeoCoder.GEOCODER_EXECUTOR);
+    }
+
+    // Once a prefetch leaves the geocoder, sends the next one
+    private static void onGeocoderFinished(@NonNull Context context, boolean isPrefetch) {
+
+        if ( !isPrefetch )
+            return;
+
+        prefetchRunning = false;
+        startNextPrefetch(context);
+    }
+
+    // Passes the result to all the listeners waiting for an address
+    private static void complete(@NonNull String key, @Nullable String address, @Nullable Throwable error) {
+
+        prefetchKeys.remove(key);
+
+        List<GeoManager.GeoAddressListener> listeners = pending.remove(key);
+        if (listeners == null)
+            return;
+
+        for (GeoManager.GeoAddressListener listener : listeners) {
+            if (address != null)    listener.onAddressSuccess(address);
+            else                    listener.onAddressError(error);
+        }
+    }
+
+    // Builds the key of a location (rounded coordinates, and the language the geocoder will use)
+    private static @NonNull String getKey(double latitude, double longitude) {
+
+        String format = "%."+ COORDINATE_DECIMALS +"f,%."+ COORDINATE_DECIMALS +"f|%s";
+        return String.format(Locale.US, format, latitude, longitude, Locale.getDefault().toString());
+    }
+}
@@ -3,22 +3,15 @@ package io.keepcoding.pickandgol.manager.geo;
 import android.content.Context;
 import android.content.pm.PackageManager;
 import android.location.Address;
-import android.location.Location;
 import android.location.LocationManager;
-import android.os.Bundle;
 import android.support.annotation.NonNull;
-import android.support.annotation.Nullable;
 import android.support.v4.content.ContextCompat;
-import android.util.Log;
-
-import com.google.android.gms.common.ConnectionResult;
-import com.google.android.gms.common.api.GoogleApiClient;
-import com.google.android.gms.common.api.GoogleApiClient.ConnectionCallbacks;
-import com.google.android.gms.common.api.GoogleApiClient.OnConnectionFailedListener;
-import com.google.android.gms.location.LocationServices;
 
 import java.util.List;
 
+import io.keepcoding.pickandgol.manager.net.BandwidthPolicy;
+import io.keepcoding.pickandgol.model.Pub;
+
 import static android.Manifest.permission.ACCESS_FINE_LOCATION;
 import static android.content.Context.LOCATION_SERVICE;
 import static android.support.v4.content.PermissionChecker.PERMISSION_GRANTED;
@@ -46,95 +39,24 @@ public class GeoManager {
         void onReverseLocationSuccess(@NonNull List<Address> addresses);
     }
 
+    // Use this interface to listen to (cached) address requests
+    public interface GeoAddressListener {
 
-    private Context context;
-    private GoogleApiClient googleClient;
-    private GeoDirectLocationListener listener;
-
-
-    public GeoManager(Context context) {
-
-        this.context = context.getApplicationContext();
-
-        // Create the necessary callbacks to connect to the Location Services API:
-
-        OnConnectionFailedListener failureListener = new OnConnectionFailedListener() {
-            @Override
-            public void onConnectionFailed(@NonNull ConnectionResult connectionResult) {
-
-                if (listener == null)
-                    return;
-
-                Error e = new Error("Unable to connect to Google Location Service");
-                Log.e(LOG_TAG, "Error: "+ e);
-
-                googleClient.disconnect();
-                listener.onLocationError(e);
-            }
-        };
-
-        ConnectionCallbacks connectionCallback = new ConnectionCallbacks() {
-            @Override
-            public void onConnectionSuspended(int i) {
-
-                if (listener == null)
-                    return;
-
-                Error e = new Error("Google Location Service failed");
-                Log.e(LOG_TAG, "Error: "+ e);
-
-                googleClient.disconnect();
-                listener.onLocationError(e);
-            }
-
-            @Override
-            public void onConnected(@Nullable Bundle bundle) {
-
-                if (listener == null)
-                    return;
-
-                Location lastLocation;
-
-                // Calling getLastLocation() without checking location permissions
-                // (that should be checked outside the GeoManager)
-                try {
-                    lastLocation = LocationServices.FusedLocationApi.getLastLocation(googleClient);
-                }
-                catch (SecurityException e) {
-                    Log.e(LOG_TAG, "Error: "+ e);
-
-                    googleClient.disconnect();
-                    listener.onLocationError(e);
-                    return;
-                }
-
-                googleClient.disconnect();
+        void onAddressError(Throwable error);
+        void onAddressSuccess(@NonNull String address);
+    }
 
-                if (lastLocation == null) {
-                    Error e = new Error("Device location is unavailable");
-                    Log.e(LOG_TAG, "Error: "+ e);
 
-                    listener.onLocationError(e);
-                    return;
-                }
+    // Locations older than this are not sent with the searches (see requestLastLocation)
+    public static final long SEARCH_LOCATION_MAX_AGE_MILLIS = 60 * 1000;
 
-                Double lat = lastLocation.getLatitude();
-                Double lon = lastLocation.getLongitude();
 
-                Log.w(LOG_TAG, "Device location: "+ lat +", "+ lon);
-                listener.onLocationSuccess(lat, lon);
-            }
-        };
+    private Context context;
 
 
-        // Create an instance of GoogleAPIClient to connect to the Location Services API,
-        // using the previously defined callbacks:
+    public GeoManager(Context context) {
 
-        googleClient = new GoogleApiClient.Builder(context.getApplicationContext())
-                                          .addConnectionCallbacks(connectionCallback)
-                                          .addOnConnectionFailedListener(failureListener)
-                                          .addApi(LocationServices.API)
-                                          .build();
+        this.context = context.getApplicationContext();
     }
 
 
@@ -145,8 +67,25 @@ public class GeoManager {
      */
     public void requestLastLocation(GeoDirectLocationListener listener) {
 
-        this.listener = listener;
-        googleClient.connect();
+        requestLastLocation(0, listener);
+    }
+
+    /**
+     * Starts an async request to get the last known location of the device, unless the location
+     * obtained by a previous request is recent enough (in that case, the listener is called before
+     * this method returns). If the last known location is older than maxAgeMillis, a fresh one is requested.
+     *
+     * The connection to the Location Services is shared by the whole app, and kept open between requests.
+     *
+     * @param maxAgeMillis  maximum age of the location (0 to always read the last known one again, whatever its age).
+     * @param listener      a listener to manage the results of the async operation.
+     */
+    public void requestLastLocation(long maxAgeMillis, GeoDirectLocationListener listener) {
+
+        if (listener == null)
+            return;
+
+        LocationService.getInstance(context).requestLocation(maxAgeMillis, listener);
     }
 
 
@@ -165,7 +104,7 @@ public class GeoManager {
             return;
 
         new ReverseGeoCoder(context, latitude, longitude, maxResults, listener)
-            .execute();
+            .executeOnExecutor(ReverseGeoCoder.GEOCODER_EXECUTOR);
     }
 
 
@@ -184,6 +123,54 @@ public class GeoManager {
     }
 
 
+    /**
+     * Gets the address of a location, as a single line of text.
+     *
+     * Addresses are cached in memory and in the local database, so the geocoder is only asked once
+     * for each location (if the address is in memory, the listener is called before this method returns).
+     *
+     * @param latitude      latitude of the location.
+     * @param longitude     longitude of the location.
+     * @param listener      a listener to manage the results of the async operation.
+     */
+    public void requestAddress(double latitude, double longitude, @NonNull GeoAddressListener listener) {
+
+        if (listener == null)
+            return;
+
+        AddressCache.resolve(context, latitude, longitude, listener);
+    }
+
+
+    /**
+     * Resolves in advance the addresses of a page of pubs (i.e. right after showing it), so they
+     * are already available when any of the pubs is shown. Only done on unmetered connections
+     * (see BandwidthPolicy), as most of these addresses might never be shown.
+     *
+     * These addresses are resolved one at a time, and never delay the ones requested with requestAddress().
+     *
+     * @param pubs  the pubs whose addresses will be resolved.
+     */
+    public void preResolveAddresses(@NonNull List<Pub> pubs) {
+
+        if ( !BandwidthPolicy.allowsPrefetch() )
+            return;
+
+        for (Pub pub : pubs)
+            if ( pub.hasLocation() )
+                AddressCache.prefetch(context, pub.getLatitude(), pub.getLongitude());
+    }
+
+    /**
+     * Cancels the addresses being resolved in advance that did not reach the geocoder yet
+     * (i.e. when the pubs they belong to are no longer shown).
+     */
+    public void cancelAddressPreResolves() {
+
+        AddressCache.cancelPrefetches();
+    }
+
+
     /**
      * Determines if the application has permissions to access the device location (static method).
      *
@@ -0,0 +1,299 @@
+package io.keepcoding.pickandgol.manager.geo;
+
+import android.content.Context;
+import android.location.Location;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import com.google.android.gms.common.ConnectionResult;
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.common.api.GoogleApiClient.ConnectionCallbacks;
+import com.google.android.gms.common.api.GoogleApiClient.OnConnectionFailedListener;
+import com.google.android.gms.location.LocationListener;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationServices;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * This class keeps a single connection to the Google Location Services for the whole process,
+ * so that getting the device location does not need to connect (and disconnect) every time.
+ *
+ * It also remembers the last location obtained and when the device got it (the age of a location is
+ * taken from the location itself, not from the moment it was read), so that callers that can use a
+ * slightly old location (i.e. to send it with a search) get it right away. If the last known location
+ * of the device is older than that, a single fresh location is requested.
+ *
+ * It is an auxiliary class of GeoManager, and has package-private visibility.
+ * All its methods must be called from the main thread.
+ */
+class LocationService {
+
+    private final static String LOG_TAG = "LocationService";
+
+    // Maximum time to wait for a fresh location (after that, the last known one is used anyway)
+    private final static long FRESH_FIX_TIMEOUT_MILLIS = 10 * 1000;
+
+    private static LocationService instance;     // The LocationService is a singleton
+
+    private final GoogleApiClient googleClient;
+    private final Handler handler;
+    private final List<PendingRequest> pendingRequests;                             // waiting for the connection
+    private final List<GeoManager.GeoDirectLocationListener> freshFixListeners;     // waiting for a fresh location
+
+    private double lastLatitude, lastLongitude;
+    private long lastFixElapsedMillis;          // when the device got the last location (-1 if never)
+    private Location staleLocation;             // last known location while waiting for a fresh one
+
+    // A request waiting for the connection
+    private static class PendingRequest {
+
+        final long maxAgeMillis;
+        final GeoManager.GeoDirectLocationListener listener;
+
+        PendingRequest(long maxAgeMillis, GeoManager.GeoDirectLocationListener listener) {
+            this.maxAgeMillis = maxAgeMillis;
+            this.listener = listener;
+        }
+    }
+
+
+    // Constructor is private, use getInstance() instead
+    private LocationService(@NonNull Context context) {
+
+        handler = new Handler( Looper.getMainLooper() );
+        pendingRequests = new ArrayList<>();
+        freshFixListeners = new ArrayList<>();
+        lastFixElapsedMillis = -1;
+
+        // Create the necessary callbacks to connect to the Location Services API:
+
+        OnConnectionFailedListener failureListener = new OnConnectionFailedListener() {
+            @Override
+            public void onConnectionFailed(@NonNull ConnectionResult connectionResult) {
+
+                Error e = new Error("Unable to connect to Google Location Service");
+                Log.e(LOG_TAG, "Error: "+ e);
+
+                notifyPendingError(e);
+            }
+        };
+
+        ConnectionCallbacks connectionCallback = new ConnectionCallbacks() {
+            @Override
+            public void onConnectionSuspended(int i) {
+
+                // The client will reconnect by itself, but the listeners waiting now must not wait forever
+                Error e = new Error("Google Location Service failed");
+                Log.e(LOG_TAG, "Error: "+ e);
+
+                notifyPendingError(e);
+            }
+
+            @Override
+            public void onConnected(@Nullable Bundle bundle) {
+
+                Log.d(LOG_TAG, "Connected to Google Location Service");
+
+                List<PendingRequest> requests = new ArrayList<>(pendingRequests);
+                pendingRequests.clear();
+
+                for (PendingRequest request : requests)
+                    readLastLocation(request.maxAgeMillis, request.listener);
+            }
+        };
+
+
+        // Create an instance of GoogleAPIClient to connect to the Location Services API,
+        // using the previously defined callbacks:
+
+        googleClient = new GoogleApiClient.Builder(context.getApplicationContext())
+                                          .addConnectionCallbacks(connectionCallback)
+                                          .addOnConnectionFailedListener(failureListener)
+                                          .addApi(LocationServices.API)
+                                          .build();
+    }
+
+    // Gets the only instance of the location service
+    static synchronized LocationService getInstance(@NonNull Context context) {
+
+        if (instance == null)
+            instance = new LocationService(context);
+
+        return instance;
+    }
+
+
+    // Passes the device location to the listener. If the last location obtained is not older than
+    // maxAgeMillis, the listener gets it right away (before returning), otherwise the location is
+    // read again from the Location Services (connecting first, only if not connected yet).
+    // With maxAgeMillis 0, the last known location of the device is always read again, whatever its age.
+    void requestLocation(long maxAgeMillis, @NonNull GeoManager.GeoDirectLocationListener listener) {
+
+        long lastFixAgeMillis = SystemClock.elapsedRealtime() - lastFixElapsedMillis;
+
+        if (maxAgeMillis > 0 && lastFixElapsedMillis >= 0 && lastFixAgeMillis <= maxAgeMillis) {
+            Log.d(LOG_TAG, "Using the cached device location ("+ lastFixAgeMillis +"ms old)");
+
+            listener.onLocationSuccess(lastLatitude, lastLongitude);
+            return;
+        }
+
+        if ( googleClient.isConnected() ) {
+            readLastLocation(maxAgeMillis, listener);
+            return;
+        }
+
+        pendingRequests.add( new PendingRequest(maxAgeMillis, listener) );
+
+        if ( !googleClient.isConnecting() )
+            googleClient.connect();
+    }
+
+
+    // Auxiliary methods:
+
+    // Reads the last known location from the Location Services (the client must be connected).
+    // If it is older than maxAgeMillis (unless it is 0), asks for a fresh location instead.
+    private void readLastLocation(long maxAgeMillis, @NonNull GeoManager.GeoDirectLocationListener listener) {
+
+        Location lastLocation;
+
+        // Calling getLastLocation() without checking location permissions
+        // (that should be checked outside the GeoManager)
+        try {
+            lastLocation = LocationServices.FusedLocationApi.getLastLocation(googleClient);
+        }
+        catch (SecurityException e) {
+            Log.e(LOG_TAG, "Error: "+ e);
+            listener.onLocationError(e);
+            return;
+        }
+
+        if (lastLocation == null) {
+            Error e = new Error("Device location is unavailable");
+            Log.e(LOG_TAG, "Error: "+ e);
+
+            listener.onLocationError(e);
+            return;
+        }
+
+        if (maxAgeMillis > 0) {
+
+            long ageMillis = SystemClock.elapsedRealtime() - getFixElapsedMillis(lastLocation);
+
+            if (ageMillis > maxAgeMillis) {
+                Log.d(LOG_TAG, "Last known device location is too old ("+ ageMillis +"ms), requesting a new one");
+                requestFreshLocation(lastLocation, listener);
+                return;
+            }
+        }
+
+        onLocationObtained(lastLocation);
+        listener.onLocationSuccess(lastLatitude, lastLongitude);
+    }
+
+    // Asks the Location Services for a single fresh location (the client must be connected).
+    // If it does not arrive in time, the listeners get the stale location instead.
+    private void requestFreshLocation(@NonNull Location stale, @NonNull GeoManager.GeoDirectLocationListener listener) {
+
+        freshFixListeners.add(listener);
+        staleLocation = stale;
+
+        // There is already a request on its way
+        if (freshFixListeners.size() > 1)
+            return;
+
+        final LocationListener updateListener = new LocationListener() {
+            @Override
+            public void onLocationChanged(Location location) {
+                onFreshLocation(this, location);
+            }
+        };
+
+        LocationRequest request = LocationRequest.create()
+                .setPriority(LocationRequest.PRIORITY_BALANCED_POWER_ACCURACY)
+                .setNumUpdates(1)
+                .setInterval(0)
+                .setExpirationDuration(FRESH_FIX_TIMEOUT_MILLIS);
+
+        try {
+            LocationServices.FusedLocationApi.requestLocationUpdates(googleClient, request, updateListener, Looper.getMainLooper());
+        }
+        catch (SecurityException e) {
+            Log.e(LOG_TAG, "Error: "+ e);
+            onFreshLocation(updateListener, null);
+            return;
+        }
+
+        handler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                onFreshLocation(updateListener, null);
+            }
+        }, FRESH_FIX_TIMEOUT_MILLIS);
+    }
+
+    // Passes the fresh location (or the stale one, if there is no fresh one) to all the listeners waiting for it
+    private void onFreshLocation(@NonNull LocationListener updateListener, @Nullable Location freshLocation) {
+
+        if ( freshFixListeners.isEmpty() )
+            return;     // already delivered (i.e. the timeout after the location arrived)
+
+        handler.removeCallbacksAndMessages(null);
+
+        if ( googleClient.isConnected() )
+            LocationServices.FusedLocationApi.removeLocationUpdates(googleClient, updateListener);
+
+        if (freshLocation == null)
+            Log.w(LOG_TAG, "Unable to get a fresh device location, using the last known one");
+
+        onLocationObtained(freshLocation != null ? freshLocation : staleLocation);
+        staleLocation = null;
+
+        List<GeoManager.GeoDirectLocationListener> listeners = new ArrayList<>(freshFixListeners);
+        freshFixListeners.clear();
+
+        for (GeoManager.GeoDirectLocationListener listener : listeners)
+            listener.onLocationSuccess(lastLatitude, lastLongitude);
+    }
+
+    // Keeps a location as the last one obtained, along with the moment the device got it
+    private void onLocationObtained(@NonNull Location location) {
+
+        lastLatitude = location.getLatitude();
+        lastLongitude = location.getLongitude();
+        lastFixElapsedMillis = getFixElapsedMillis(location);
+
+        Log.w(LOG_TAG, "Device location: "+ lastLatitude +", "+ lastLongitude);
+    }
+
+    // Gets the moment when the device got a location, in the elapsedRealtime() time base
+    // (before API 17, locations only have their wall clock time, which may be off if the clock was changed)
+    private static long getFixElapsedMillis(@NonNull Location location) {
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1)
+            return location.getElapsedRealtimeNanos() / 1000000;
+
+        long ageMillis = Math.max(0, System.currentTimeMillis() - location.getTime());
+        return SystemClock.elapsedRealtime() - ageMillis;
+    }
+
+    // Passes an error to all the requests waiting for the connection
+    private void notifyPendingError(@NonNull Throwable error) {
+
+        List<PendingRequest> requests = new ArrayList<>(pendingRequests);
+        pendingRequests.clear();
+
+        for (PendingRequest request : requests)
+            request.listener.onLocationError(error);
+    }
+}
@@ -8,16 +8,28 @@ import android.util.Log;
 
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 
 /**
  * This class is in charge of the reverse geocoding operations in background.
  * It is an auxiliary class of GeoManager, and has package-private visibility.
+ *
+ * The geocoder makes a blocking network call, so these tasks must run on GEOCODER_EXECUTOR
+ * (instead of the AsyncTask executor shared by the rest of the app), or on PREFETCH_EXECUTOR if
+ * nobody is waiting for the result (so they never delay the addresses the user is waiting for).
  */
 class ReverseGeoCoder extends AsyncTask<Void, Void, Void> {
 
     private static final String LOG_TAG = "ReverseGeoCoder";
 
+    // Runs the geocoding tasks one after another, in their own thread
+    static final Executor GEOCODER_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    // Runs the geocoding tasks that resolve addresses in advance, in another thread
+    static final Executor PREFETCH_EXECUTOR = Executors.newSingleThreadExecutor();
+
     private Geocoder geocoder;
     private double latitude, longitude;
     private int maxResults;
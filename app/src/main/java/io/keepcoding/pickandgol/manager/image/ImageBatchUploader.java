@@ -0,0 +1,254 @@
+package io.keepcoding.pickandgol.manager.image;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.amazonaws.mobileconnectors.s3.transferutility.TransferListener;
+import com.amazonaws.mobileconnectors.s3.transferutility.TransferObserver;
+import com.amazonaws.mobileconnectors.s3.transferutility.TransferState;
+import com.amazonaws.mobileconnectors.s3.transferutility.TransferUtility;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.S3_BUCKET;
+
+
+/**
+ * This class processes (optionally) and uploads a batch of local image files to the S3 bucket,
+ * working on several images at the same time (but never more than the given parallelism).
+ * It is an auxiliary class of ImageManager, and has package-private visibility.
+ *
+ * Each image goes through its own process -> upload chain, so the whole batch takes about
+ * as long as its slowest image. All the listener calls happen in the main thread.
+ */
+class ImageBatchUploader {
+
+    private final static String LOG_TAG = "ImageBatchUploader";
+
+    private final ImageManager imageManager;
+    private final TransferUtility transferUtility;
+    private final List<File> imageFiles;
+    private final List<String> remoteFilenames;
+    private final boolean processFirst;
+    private final int parallelism;
+    private final ImageManager.ImageBatchUploadListener listener;
+
+    private ExecutorService processingExecutor;     // only used if images must be processed first
+    private final float[] progress;                 // upload progress of each image (0 .. 1)
+    private final List<Integer> activeTransferIds;
+    private int nextImage;
+    private int uploadedImages;
+    private boolean finished;
+
+
+    ImageBatchUploader(@NonNull ImageManager imageManager,
+                       @NonNull TransferUtility transferUtility,
+                       @NonNull List<File> imageFiles,
+                       @NonNull List<String> remoteFilenames,
+                       boolean processFirst,
+                       int parallelism,
+                       @NonNull ImageManager.ImageBatchUploadListener listener) {
+
+        this.imageManager = imageManager;
+        this.transferUtility = transferUtility;
+        this.imageFiles = imageFiles;
+        this.remoteFilenames = remoteFilenames;
+        this.processFirst = processFirst;
+        this.parallelism = Math.max(1, parallelism);
+        this.listener = listener;
+
+        progress = new float[ imageFiles.size() ];
+        activeTransferIds = new ArrayList<>();
+        nextImage = 0;
+        uploadedImages = 0;
+        finished = false;
+    }
+
+
+    // Starts the batch (must be called from the main thread)
+    void start() {
+
+        if (imageFiles.size() != remoteFilenames.size()) {
+            finishWithError( new IllegalArgumentException("Each image file needs a remote file name") );
+            return;
+        }
+
+        if (imageFiles.isEmpty()) {
+            finishWithSuccess();
+            return;
+        }
+
+        Log.d(LOG_TAG, "Uploading "+ imageFiles.size() +" image(s), "+ parallelism +" at a time...");
+
+        if (processFirst)
+            processingExecutor = Executors.newFixedThreadPool( Math.min(parallelism, imageFiles.size()) );
+
+        // Start the first images, the next ones will start as these finish
+        for (int i = 0; i < parallelism && nextImage < imageFiles.size(); i++)
+            startNextImage();
+    }
+
+
+    // Auxiliary methods:
+
+    // Starts the process -> upload chain of the next image in the batch
+    private void startNextImage() {
+
+        final int index = nextImage++;
+        File imageFile = imageFiles.get(index);
+
+        if (!processFirst) {
+            uploadImage(index, imageFile);
+            return;
+        }
+
+        new ImageProcessor(imageFile, UUID.randomUUID().toString(), new ImageManager.ImageProcessingListener() {
+
+            @Override
+            public void onProcessError(Exception error) {
+                finishWithError(error);
+            }
+
+            @Override
+            public void onProcessSuccess(File resizedFile) {
+                uploadImage(index, resizedFile);
+            }
+
+        }).executeOnExecutor(processingExecutor);
+    }
+
+    // Starts the upload of one image in the batch
+    private void uploadImage(final int index, final File imageFile) {
+
+        if (finished)
+            return;
+
+        if ( !imageFile.isFile() ) {
+            finishWithError( new Exception("'"+ imageFile.getAbsolutePath() +"' does not exist or is not a file") );
+            return;
+        }
+
+        TransferObserver observer = transferUtility.upload(S3_BUCKET, remoteFilenames.get(index), imageFile);
+        activeTransferIds.add( observer.getId() );
+
+        Log.d(LOG_TAG, "Transferring (id "+ observer.getId() +") image "+ (index+1) +"/"+ imageFiles.size()
+                + " to '"+ remoteFilenames.get(index) +"'...");
+
+        observer.setTransferListener(new TransferListener() {
+
+            @Override
+            public void onProgressChanged(int id, long bytesCurrent, long bytesTotal) {
+
+                if (finished || bytesTotal <= 0)
+                    return;
+
+                progress[index] = (float) bytesCurrent / bytesTotal;
+                notifyProgress();
+            }
+
+            @Override
+            public void onError(int id, Exception ex) {
+                Log.d(LOG_TAG, "Error transferring image (id "+ id +"): "+ ex.toString());
+                finishWithError(ex);
+            }
+
+            @Override
+            public void onStateChanged(int id, TransferState state) {
+
+                switch (state) {
+
+                    case FAILED:
+                        // will be treated at onError (see above)
+                        break;
+
+                    case CANCELED:
+                        finishWithError( new Exception("Transfer cancelled") );
+                        break;
+
+                    case COMPLETED:
+                        onImageUploaded(id, index);
+                        break;
+
+                    default:
+                        break;
+                }
+            }
+        });
+    }
+
+    // Updates the batch after one of its images has been uploaded
+    private void onImageUploaded(int transferId, int index) {
+
+        if (finished)
+            return;
+
+        Log.d(LOG_TAG, "Image transfer completed (id "+ transferId +")");
+
+        activeTransferIds.remove( Integer.valueOf(transferId) );
+        progress[index] = 1;
+        uploadedImages++;
+        notifyProgress();
+
+        if (uploadedImages == imageFiles.size())
+            finishWithSuccess();
+
+        else if (nextImage < imageFiles.size())
+            startNextImage();
+    }
+
+    // Passes the aggregate progress of the batch to the listener (every image has the same weight)
+    private void notifyProgress() {
+
+        float total = 0;
+        for (float imageProgress : progress)
+            total += imageProgress;
+
+        int percent = (int) (100 * total / imageFiles.size());
+        listener.onBatchProgressChanged(uploadedImages, imageFiles.size(), percent);
+    }
+
+    // Ends the batch, passing the remote urls of all the images to the listener (in the same order)
+    private void finishWithSuccess() {
+
+        finished = true;
+        shutdownProcessing();
+
+        List<String> remoteUrls = new ArrayList<>();
+        for (String remoteFilename : remoteFilenames)
+            remoteUrls.add( imageManager.getRemoteImageUrl(remoteFilename) );
+
+        Log.d(LOG_TAG, "All images uploaded successfully: "+ Arrays.toString(remoteUrls.toArray()));
+        listener.onBatchUploadCompletion(remoteUrls);
+    }
+
+    // Ends the batch, cancelling the transfers still in progress (the listener is called only once)
+    private void finishWithError(Exception error) {
+
+        if (finished)
+            return;
+
+        finished = true;
+        shutdownProcessing();
+
+        for (int transferId : activeTransferIds)
+            transferUtility.cancel(transferId);
+
+        activeTransferIds.clear();
+
+        Log.e(LOG_TAG, "Image batch upload failed: "+ error.toString());
+        listener.onBatchUploadError(error);
+    }
+
+    // Releases the processing threads (if any)
+    private void shutdownProcessing() {
+
+        if (processingExecutor != null)
+            processingExecutor.shutdown();
+    }
+}
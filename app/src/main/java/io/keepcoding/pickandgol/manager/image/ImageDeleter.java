@@ -17,13 +17,13 @@ class ImageDeleter extends AsyncTask<Void, Void, Void> {
 
     private final static String LOG_TAG = "ImageDeleter";
 
-    private AmazonS3 s3Client;
+    private S3Storage s3Storage;
     private String remoteFilename;
     private ImageManager.ImageDeletionListener listener;
     private Exception error;
 
-    ImageDeleter(String remoteFilename, @NonNull AmazonS3 s3Client, ImageManager.ImageDeletionListener listener) {
-        this.s3Client = s3Client;
+    ImageDeleter(String remoteFilename, @NonNull S3Storage s3Storage, ImageManager.ImageDeletionListener listener) {
+        this.s3Storage = s3Storage;
         this.remoteFilename = remoteFilename;
         this.listener = listener;
         error = null;
@@ -39,6 +39,7 @@ class ImageDeleter extends AsyncTask<Void, Void, Void> {
         Log.d(LOG_TAG, "Deleting remote image '"+ remoteFilename +"'...");
 
         try {
+            AmazonS3 s3Client = s3Storage.getClient();
             boolean objectExists = s3Client.doesObjectExist(S3_BUCKET, remoteFilename);
 
             if (objectExists)
@@ -4,18 +4,17 @@ import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
 import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.util.DisplayMetrics;
 import android.util.Log;
 import android.widget.ImageView;
 
-import com.amazonaws.auth.CognitoCachingCredentialsProvider;
 import com.amazonaws.mobileconnectors.s3.transferutility.TransferListener;
 import com.amazonaws.mobileconnectors.s3.transferutility.TransferObserver;
 import com.amazonaws.mobileconnectors.s3.transferutility.TransferState;
-import com.amazonaws.mobileconnectors.s3.transferutility.TransferUtility;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3Client;
 import com.jakewharton.picasso.OkHttp3Downloader;
 import com.squareup.picasso.Callback;
 import com.squareup.picasso.Downloader;
@@ -24,18 +23,27 @@ import com.squareup.picasso.MemoryPolicy;
 import com.squareup.picasso.NetworkPolicy;
 import com.squareup.picasso.Picasso;
 import com.squareup.picasso.RequestCreator;
+import com.squareup.picasso.StatsSnapshot;
 
 import java.io.File;
 import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Locale;
 
+import io.keepcoding.pickandgol.manager.net.BandwidthPolicy;
+import io.keepcoding.pickandgol.manager.net.NetworkManager;
+
+import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.BATCH_UPLOAD_PARALLELISM;
 import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.CACHE_DIR;
 import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.CACHE_SIZE_MB;
 import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.DEBUG_INDICATORS;
+import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.DETAIL_BITMAP_CONFIG;
 import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.ENABLE_LOGGING;
-import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.PROCESSOR_TEMP_DIR;
+import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.METERED_THUMBNAIL_SCALE;
+import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.ROW_IMAGE_SIZE_DP;
 import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.S3_BUCKET;
-import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.S3_POOL_ID;
-import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.S3_POOL_REGION;
+import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.THUMBNAIL_BITMAP_CONFIG;
+import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.getProcessorTempDir;
 
 
 /**
@@ -49,6 +57,14 @@ public class ImageManager {
 
     /** Interfaces used by the Image Manager **/
 
+    // Target sizes for remote images, depending on where they are shown
+    // (the images are decoded at that size, so the memory cache can hold many more of them)
+    public enum ImageSize {
+        ROW,        // square thumbnail in a list row
+        CELL,       // full width image in a grid/cell list
+        DETAIL      // full width image in a detail page
+    }
+
     // Listener interface for image catching operations
     public interface ImageCachingListener {
         void onImageCachingError();
@@ -62,6 +78,13 @@ public class ImageManager {
         void onImageUploadCompletion(int transferId);
     }
 
+    // Listener interface for batch image upload operations
+    public interface ImageBatchUploadListener {
+        void onBatchProgressChanged(int uploadedImages, int totalImages, int percent);
+        void onBatchUploadError(Exception e);
+        void onBatchUploadCompletion(List<String> remoteUrls);
+    }
+
     // Listener interface for image load operations
     public interface ImageLoadListener {
         void onImageLoadError();
@@ -96,8 +119,12 @@ public class ImageManager {
 
     private WeakReference<Context> context;
     private LruCache picassoCache;
-    private AmazonS3 s3Client;
-    private TransferUtility s3TransferUtility;
+    private S3Storage s3Storage;                   // AWS clients, only created when needed
+    private ImagePrefetcher prefetcher;
+
+    // Instrumentation counters for the sized loads (by ImageSize ordinal)
+    private final int[] loadedBitmapCount = new int[ ImageSize.values().length ];
+    private final long[] loadedBitmapBytes = new long[ ImageSize.values().length ];
 
 
     // The constructor is private, call getInstance() to get a reference to the singleton
@@ -127,17 +154,21 @@ public class ImageManager {
 
 
         // Amazon S3 setup:
-        // - Initialize Amazon Cognito credentials provider.
-        // - Initialize the S3 client & the S3 Transfer Utility.
+        // - The Cognito credentials provider, the S3 client & the S3 Transfer Utility are not
+        //   created until the first upload/delete operation (see S3Storage).
 
-        CognitoCachingCredentialsProvider credsProvider = new CognitoCachingCredentialsProvider(
-                context,
-                S3_POOL_ID,
-                S3_POOL_REGION
-        );
+        s3Storage = new S3Storage(context);
 
-        s3Client = new AmazonS3Client(credsProvider);
-        s3TransferUtility = new TransferUtility(s3Client,context);
+        prefetcher = new ImagePrefetcher(context, this);
+
+        // Stop prefetching as soon as the device leaves the WiFi connection
+        BandwidthPolicy.addListener(new BandwidthPolicy.BandwidthPolicyListener() {
+            @Override
+            public void onConnectionTypeChanged(NetworkManager.ConnectionType connectionType) {
+                if ( !BandwidthPolicy.allowsPrefetch() )
+                    prefetcher.cancel();
+            }
+        });
     }
 
     /**
@@ -212,6 +243,32 @@ public class ImageManager {
     }
 
 
+    /**
+     * Downloads in advance a batch of remote images that will probably be shown soon, so they are
+     * already in the local caches when needed (unlike cacheImage(), it does not bypass the caches,
+     * and does nothing if the images are already there).
+     * Prefetches have a low priority, are limited in number and only run on WiFi connections.
+     * Must be called from the main thread.
+     *
+     * @param imageUrls     urls of the remote images.
+     * @param size          the size the images will be shown at.
+     * @param intoMemory    true to also keep the images in the memory cache (use it only for images
+     *                      that will be shown very soon), false to just keep them in the disk cache.
+     */
+    public void prefetchImages(@NonNull List<String> imageUrls, @NonNull ImageSize size, boolean intoMemory) {
+
+        prefetcher.prefetch(imageUrls, size, intoMemory);
+    }
+
+    /**
+     * Cancels all the prefetches in progress or pending (see prefetchImages()).
+     */
+    public void cancelPrefetches() {
+
+        prefetcher.cancel();
+    }
+
+
     /** Different ways to load an image into an ImageView **/
 
     /**
@@ -230,43 +287,108 @@ public class ImageManager {
                           final @Nullable Integer placeholderId,
                           final @Nullable ImageLoadListener listener) {
 
-        if (target == null || imageUrl == null ) {
-            Log.e(LOG_TAG, "Failed to load remote image: either the source or the target is null");
+        loadRemoteImage(imageUrl, target, null, brokenImageId, placeholderId, null, listener);
+    }
 
-            if (listener != null)
-                listener.onImageLoadError();
+    /**
+     * Asynchronously loads a remote image into an ImageView, decoding it at the size it will be shown,
+     * then calls a listener.
+     * (first it will look for the image in the local caches, before looking for it on the internet)
+     *
+     * @param imageUrl      the url of the image to load.
+     * @param target        the ImageView to load the image on.
+     * @param size          the size the image will be shown at.
+     * @param brokenImageId resource id of the image to show in case the operation fails.
+     * @param placeholderId resource id of the image used as placeholder during the operation.
+     * @param listener      listener for the operation.
+     */
+    public void loadImage(final @NonNull String imageUrl,
+                          final @NonNull ImageView target,
+                          final @NonNull ImageSize size,
+                          final @Nullable Integer brokenImageId,
+                          final @Nullable Integer placeholderId,
+                          final @Nullable ImageLoadListener listener) {
 
-            return;
-        }
+        loadRemoteImage(imageUrl, target, size, brokenImageId, placeholderId, null, listener);
+    }
 
-        Log.d(LOG_TAG, "Loading remote image: "+ imageUrl);
+    /**
+     * Asynchronously loads a remote image into an ImageView, decoding it at the size it will be shown,
+     * without using any listener nor placeholder.
+     * (first it will look for the image in the local caches, before looking for it on the internet)
+     *
+     * @param imageUrl      the url of the image to load.
+     * @param target        the ImageView to load the image on.
+     * @param size          the size the image will be shown at.
+     * @param brokenImageId resource id of the image to show in case the operation fails.
+     */
+    public void loadImage(final @NonNull String imageUrl,
+                          final @NonNull ImageView target,
+                          final @NonNull ImageSize size,
+                          final @Nullable Integer brokenImageId) {
 
-        RequestCreator loadRequest = Picasso.with(context.get()).load(imageUrl);
+        loadRemoteImage(imageUrl, target, size, brokenImageId, null, null, null);
+    }
 
-        if (brokenImageId != null)
-            loadRequest.error(brokenImageId);
+    /**
+     * Asynchronously loads the remote image of a list item into an ImageView, decoding it at the
+     * size it will be shown, without using any listener nor placeholder.
+     * The load is tagged (so it can be paused, resumed or cancelled together with the rest of the
+     * list) and has a high priority, since the item is about to be shown.
+     *
+     * @param imageUrl      the url of the image to load.
+     * @param target        the ImageView to load the image on.
+     * @param size          the size the image will be shown at.
+     * @param brokenImageId resource id of the image to show in case the operation fails.
+     * @param listTag       the tag shared by all the image loads of the list.
+     */
+    public void loadImage(final @NonNull String imageUrl,
+                          final @NonNull ImageView target,
+                          final @NonNull ImageSize size,
+                          final @Nullable Integer brokenImageId,
+                          final @NonNull Object listTag) {
 
-        if (placeholderId != null)
-            loadRequest.placeholder(placeholderId);
+        loadRemoteImage(imageUrl, target, size, brokenImageId, null, listTag, null);
+    }
 
-        loadRequest.into(target, new Callback() {
+    /**
+     * Pauses all the image loads with the given tag (new loads with that tag will wait too).
+     *
+     * @param tag   the tag of the loads to pause.
+     */
+    public void pauseImageLoads(@NonNull Object tag) {
 
-            @Override
-            public void onError() {
-                Log.e(LOG_TAG, "Failed to load remote image: "+ imageUrl);
+        Picasso.with(context.get()).pauseTag(tag);
+    }
 
-                if (listener != null)
-                    listener.onImageLoadError();
-            }
+    /**
+     * Resumes all the image loads with the given tag.
+     *
+     * @param tag   the tag of the loads to resume.
+     */
+    public void resumeImageLoads(@NonNull Object tag) {
 
-            @Override
-            public void onSuccess() {
-                Log.d(LOG_TAG, "Successfully loaded remote image: "+ imageUrl);
+        Picasso.with(context.get()).resumeTag(tag);
+    }
 
-                if (listener != null)
-                    listener.onImageLoadCompletion();
-            }
-        });
+    /**
+     * Cancels all the image loads with the given tag.
+     *
+     * @param tag   the tag of the loads to cancel.
+     */
+    public void cancelImageLoads(@NonNull Object tag) {
+
+        Picasso.with(context.get()).cancelTag(tag);
+    }
+
+    /**
+     * Cancels the image load for an ImageView, if there is any (i.e. when its list item scrolls off screen).
+     *
+     * @param target    the ImageView whose image load will be cancelled.
+     */
+    public void cancelImageLoad(@NonNull ImageView target) {
+
+        Picasso.with(context.get()).cancelRequest(target);
     }
 
     /**
@@ -438,7 +560,40 @@ public class ImageManager {
     }
 
 
-    /** Operations with remote images on the S3 Bucket **/
+    /**
+     * Writes the memory cache statistics to the log: hit rate, cache usage and the average bytes
+     * of the bitmaps loaded for each image size (that is, the memory taken by each visible item).
+     */
+    public void logCacheStats() {
+
+        StatsSnapshot snapshot = Picasso.with(context.get()).getSnapshot();
+
+        long requests = snapshot.cacheHits + snapshot.cacheMisses;
+        float hitRate = (requests > 0) ? (100f * snapshot.cacheHits / requests) : 0;
+
+        StringBuilder stats = new StringBuilder()
+                .append("Image cache: ").append(snapshot.cacheHits).append(" hits, ")
+                .append(snapshot.cacheMisses).append(" misses (hit rate ")
+                .append(String.format(Locale.US, "%.1f", hitRate)).append("%), ")
+                .append(snapshot.size / 1024).append("/").append(snapshot.maxSize / 1024).append(" KB used");
+
+        synchronized (loadedBitmapCount) {
+
+            for (ImageSize size : ImageSize.values()) {
+
+                int count = loadedBitmapCount[ size.ordinal() ];
+                long average = (count > 0) ? loadedBitmapBytes[ size.ordinal() ] / count : 0;
+
+                stats.append("\n  ").append(size).append(": ").append(count).append(" images loaded, ")
+                     .append(average / 1024).append(" KB per item");
+            }
+        }
+
+        Log.d(LOG_TAG, stats.toString());
+    }
+
+
+        /** Operations with remote images on the S3 Bucket **/
 
     /**
      * Attempts to upload the contents of a given file to the S3 bucket
@@ -456,12 +611,50 @@ public class ImageManager {
         try                 {   filePath = imageFile.getCanonicalPath();    }
         catch (Exception e) {   listener.onImageUploadError(-1, e);       }
 
-        TransferObserver observer = s3TransferUtility.upload(S3_BUCKET, remoteFilename, imageFile);
+        TransferObserver observer = s3Storage.getTransferUtility().upload(S3_BUCKET, remoteFilename, imageFile);
         setUploadListener(observer, listener);
 
         Log.d(LOG_TAG, "Transferring (id "+ observer.getId() +") local image '"+ filePath +"' to '"+ remoteFilename +"'...");
     }
 
+    /**
+     * Attempts to upload several local image files to the S3 bucket at the same time
+     * (using the default parallelism, see ImageManagerSettings.BATCH_UPLOAD_PARALLELISM).
+     * If one of the uploads fails, the rest are cancelled.
+     *
+     * @param imageFiles        the files to upload.
+     * @param remoteFilenames   the remote file name for each file (in the same order).
+     * @param listener          listener for the batch, gets the remote urls of all the files.
+     */
+    public void uploadImages(@NonNull List<File> imageFiles,
+                             @NonNull List<String> remoteFilenames,
+                             @NonNull ImageBatchUploadListener listener) {
+
+        uploadImages(imageFiles, remoteFilenames, false, BATCH_UPLOAD_PARALLELISM, listener);
+    }
+
+    /**
+     * Attempts to upload several local image files to the S3 bucket at the same time,
+     * processing them first if necessary (see processImage()).
+     * Each file is uploaded as soon as it is processed, without waiting for the others.
+     * If one of the files fails, the rest are cancelled.
+     *
+     * @param imageFiles        the files to upload.
+     * @param remoteFilenames   the remote file name for each file (in the same order).
+     * @param processFirst      true if the files must be processed before uploading them.
+     * @param parallelism       max number of files that will be processed/uploaded at the same time.
+     * @param listener          listener for the batch, gets the remote urls of all the files.
+     */
+    public void uploadImages(@NonNull List<File> imageFiles,
+                             @NonNull List<String> remoteFilenames,
+                             boolean processFirst,
+                             int parallelism,
+                             @NonNull ImageBatchUploadListener listener) {
+
+        new ImageBatchUploader(this, s3Storage.getTransferUtility(), imageFiles, remoteFilenames,
+                               processFirst, parallelism, listener).start();
+    }
+
     /**
      * Attempts to delete a remote file from the S3 bucket
      * (permissions required: s3:ListBucket permission on the bucket,
@@ -472,7 +665,17 @@ public class ImageManager {
      */
     public void deleteRemoteImage(String remoteFilename, ImageDeletionListener listener) {
 
-        new ImageDeleter(remoteFilename, s3Client, listener).execute();
+        new ImageDeleter(remoteFilename, s3Storage, listener).execute();
+    }
+
+    /**
+     * Creates the clients used to upload/delete remote images in background, if they were not created yet.
+     * Call it when opening a screen that may upload images, so that they are ready when needed
+     * (if not, they will be created on the first upload/delete operation).
+     */
+    public void prewarmRemoteStorage() {
+
+        s3Storage.prewarm();
     }
 
     /**
@@ -557,9 +760,9 @@ public class ImageManager {
      */
     public boolean cleanProcessorTempFolder() {
 
-        File tempFolder = PROCESSOR_TEMP_DIR;
+        File tempFolder = getProcessorTempDir();
 
-        if ( ! tempFolder.isDirectory() )
+        if ( tempFolder == null || ! tempFolder.isDirectory() )
             return false;
 
         String[] folderChildren = tempFolder.list();
@@ -586,9 +789,9 @@ public class ImageManager {
      */
     public boolean emptyProcessorTempFolder() {
 
-        File tempFolder = PROCESSOR_TEMP_DIR;
+        File tempFolder = getProcessorTempDir();
 
-        if ( ! tempFolder.isDirectory() )
+        if ( tempFolder == null || ! tempFolder.isDirectory() )
             return false;
 
         String[] folderChildren = tempFolder.list();
@@ -666,6 +869,113 @@ public class ImageManager {
         });
     }
 
+    // Auxiliary method: loads a remote image into an ImageView, decoding it at the given size
+    // (or at its original size, if no size is given), then calls the listener.
+    // Tagged loads belong to the items of a list, and have a high priority.
+    private void loadRemoteImage(final @NonNull String imageUrl,
+                                 final @NonNull ImageView target,
+                                 final @Nullable ImageSize size,
+                                 final @Nullable Integer brokenImageId,
+                                 final @Nullable Integer placeholderId,
+                                 final @Nullable Object tag,
+                                 final @Nullable ImageLoadListener listener) {
+
+        if (target == null || imageUrl == null ) {
+            Log.e(LOG_TAG, "Failed to load remote image: either the source or the target is null");
+
+            if (listener != null)
+                listener.onImageLoadError();
+
+            return;
+        }
+
+        Log.d(LOG_TAG, "Loading remote image: "+ imageUrl);
+
+        RequestCreator loadRequest = Picasso.with(context.get()).load(imageUrl);
+
+        if (size != null)
+            applySize(loadRequest, size);
+
+        if (tag != null)
+            loadRequest.tag(tag).priority(Picasso.Priority.HIGH);
+
+        if (brokenImageId != null)
+            loadRequest.error(brokenImageId);
+
+        if (placeholderId != null)
+            loadRequest.placeholder(placeholderId);
+
+        loadRequest.into(target, new Callback() {
+
+            @Override
+            public void onError() {
+                Log.e(LOG_TAG, "Failed to load remote image: "+ imageUrl);
+
+                if (listener != null)
+                    listener.onImageLoadError();
+            }
+
+            @Override
+            public void onSuccess() {
+                Log.d(LOG_TAG, "Successfully loaded remote image: "+ imageUrl);
+
+                if (size != null)
+                    recordLoadedBitmap(size, target);
+
+                if (listener != null)
+                    listener.onImageLoadCompletion();
+            }
+        });
+    }
+
+    // Auxiliary method: sets the decoding size and bitmap format of a load request
+    // (images are only scaled down, never up, and rows are cropped to fill their square).
+    // Package-private, so that ImagePrefetcher requests the images at the same size.
+    void applySize(RequestCreator loadRequest, ImageSize size) {
+
+        DisplayMetrics metrics = context.get().getResources().getDisplayMetrics();
+
+        // Lower resolution thumbnails on metered connections (see BandwidthPolicy)
+        float thumbnailScale = BandwidthPolicy.isUnmetered() ? 1 : METERED_THUMBNAIL_SCALE;
+
+        switch (size) {
+
+            case ROW:
+                int rowSize = (int) (ROW_IMAGE_SIZE_DP * metrics.density * thumbnailScale);
+                loadRequest.resize(rowSize, rowSize)
+                           .centerCrop()
+                           .onlyScaleDown()
+                           .config(THUMBNAIL_BITMAP_CONFIG);
+                break;
+
+            case CELL:
+                loadRequest.resize((int) (metrics.widthPixels * thumbnailScale), 0)
+                           .onlyScaleDown()
+                           .config(THUMBNAIL_BITMAP_CONFIG);
+                break;
+
+            case DETAIL:
+            default:
+                loadRequest.resize(metrics.widthPixels, 0)
+                           .onlyScaleDown()
+                           .config(DETAIL_BITMAP_CONFIG);
+                break;
+        }
+    }
+
+    // Auxiliary method: adds the size of the bitmap just loaded into an ImageView to the counters
+    private void recordLoadedBitmap(ImageSize size, ImageView target) {
+
+        Drawable drawable = target.getDrawable();
+        if ( !(drawable instanceof BitmapDrawable) || ((BitmapDrawable) drawable).getBitmap() == null )
+            return;
+
+        synchronized (loadedBitmapCount) {
+            loadedBitmapCount[ size.ordinal() ]++;
+            loadedBitmapBytes[ size.ordinal() ] += ((BitmapDrawable) drawable).getBitmap().getByteCount();
+        }
+    }
+
     // Deletes the given File (or all its contents if it is a directory)
     private static boolean deleteFileOrDir(File dir) {
 
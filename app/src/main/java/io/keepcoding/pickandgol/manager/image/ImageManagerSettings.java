@@ -9,10 +9,15 @@ import io.keepcoding.pickandgol.R;
 
 import static android.graphics.Bitmap.CompressFormat;
 import static android.graphics.Bitmap.CompressFormat.JPEG;
+import static android.graphics.Bitmap.Config;
+import static android.graphics.Bitmap.Config.ARGB_8888;
+import static android.graphics.Bitmap.Config.RGB_565;
 import static com.amazonaws.regions.Regions.EU_WEST_1;
 
 /**
  * This class contains static settings to be used by the ImageManager class.
+ * (the settings that need a context are methods, so they are only evaluated when used,
+ * instead of when the class is loaded)
  */
 public class ImageManagerSettings {
 
@@ -22,14 +27,22 @@ public class ImageManagerSettings {
     public static final boolean ENABLE_LOGGING = false;
     public static final boolean DEBUG_INDICATORS = false;
 
+    // Settings for sized loading (see ImageManager.ImageSize):
+    public static final int ROW_IMAGE_SIZE_DP = 90;                     // square thumbnails in list rows
+    public static final Config THUMBNAIL_BITMAP_CONFIG = RGB_565;       // photos have no alpha channel
+    public static final Config DETAIL_BITMAP_CONFIG = ARGB_8888;        // full quality for detail pages
+    public static final float METERED_THUMBNAIL_SCALE = 0.5f;           // smaller thumbnails on mobile data
+
+    // Settings for image prefetching (see ImageManager.prefetchImages):
+    public static final int PREFETCH_MAX_CONCURRENT = 2;    // max images prefetched at the same time
+
     // Settings for AWS SDK:
     public static final String S3_BUCKET = "pickandgol";
-    public static final String S3_POOL_ID = PickAndGolApp.getContext().getString(R.string.aws_identity_pool_id);
     public static final Regions S3_POOL_REGION = EU_WEST_1;
+    public static final int BATCH_UPLOAD_PARALLELISM = 4;    // max images uploaded at the same time
 
     // Settings for the image picker:
     public final static int IMAGE_PICKER_REQUEST_CODE = 36248;
-    static final File CUSTOM_CAMERA_DIR = PickAndGolApp.getContext().getExternalCacheDir();
     static final String CUSTOM_CAMERA_FILENAME = "camera_tmp.jpg";
 
     // Settings for the image processor:
@@ -37,7 +50,25 @@ public class ImageManagerSettings {
     public static final int RESIZE_MAX_HEIGHT = 600;
     public static final CompressFormat COMPRESS_FORMAT = JPEG;
     public static final int COMPRESS_QUALITY = 90;
-    public static final File PROCESSOR_TEMP_DIR = PickAndGolApp.getContext().getExternalCacheDir();
+    public static final int COMPRESS_QUALITY_METERED = 75;              // used when uploading on mobile data
     public static final String PROCESSOR_TEMP_FILENAME = "processed_tmp";
     public static final String PROCESSOR_TEMP_EXTENSION = "jpg";
+
+
+    // Settings that need a context:
+
+    // Id of the Cognito identity pool used to access the S3 bucket
+    public static String getS3PoolId() {
+        return PickAndGolApp.getContext().getString(R.string.aws_identity_pool_id);
+    }
+
+    // Folder to store the images taken with the camera (null if the external storage is not available)
+    static File getCustomCameraDir() {
+        return PickAndGolApp.getContext().getExternalCacheDir();
+    }
+
+    // Folder to store the images created by the image processor (null if the external storage is not available)
+    public static File getProcessorTempDir() {
+        return PickAndGolApp.getContext().getExternalCacheDir();
+    }
 }
@@ -25,9 +25,9 @@ import static android.Manifest.permission.READ_EXTERNAL_STORAGE;
 import static android.content.Intent.ACTION_GET_CONTENT;
 import static android.provider.MediaStore.ACTION_IMAGE_CAPTURE;
 import static android.support.v4.content.PermissionChecker.PERMISSION_GRANTED;
-import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.CUSTOM_CAMERA_DIR;
 import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.CUSTOM_CAMERA_FILENAME;
 import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.IMAGE_PICKER_REQUEST_CODE;
+import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.getCustomCameraDir;
 
 
 /**
@@ -115,8 +115,9 @@ abstract class ImagePicker {
             // (if it is null, images will be stored in the camera folder like any other camera photo)
             Uri cameraOutputUri = null;
 
-            if (CUSTOM_CAMERA_DIR != null)
-                cameraOutputUri = Uri.fromFile(new File(CUSTOM_CAMERA_DIR.getPath(), CUSTOM_CAMERA_FILENAME));
+            File cameraDir = getCustomCameraDir();
+            if (cameraDir != null)
+                cameraOutputUri = Uri.fromFile(new File(cameraDir.getPath(), CUSTOM_CAMERA_FILENAME));
 
             // Collect all camera intents
             Intent cameraIntent = new Intent(ACTION_IMAGE_CAPTURE);
@@ -191,7 +192,7 @@ abstract class ImagePicker {
         if (useContentUri)
             uri = data.getData();
         else
-            uri = Uri.fromFile(new File(CUSTOM_CAMERA_DIR.getPath(), CUSTOM_CAMERA_FILENAME));
+            uri = Uri.fromFile(new File(getCustomCameraDir().getPath(), CUSTOM_CAMERA_FILENAME));
 
         return uri;
     }
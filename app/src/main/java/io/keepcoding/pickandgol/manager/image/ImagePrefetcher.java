@@ -0,0 +1,145 @@
+package io.keepcoding.pickandgol.manager.image;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.squareup.picasso.Callback;
+import com.squareup.picasso.MemoryPolicy;
+import com.squareup.picasso.Picasso;
+import com.squareup.picasso.RequestCreator;
+
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import io.keepcoding.pickandgol.manager.net.BandwidthPolicy;
+
+import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.PREFETCH_MAX_CONCURRENT;
+
+
+/**
+ * This class downloads in advance the remote images that will probably be shown soon (i.e. the
+ * images of the next page of a list), so that they are already in the local caches when needed.
+ * It is an auxiliary class of ImageManager, and has package-private visibility.
+ *
+ * Prefetches have a low priority, never run more than PREFETCH_MAX_CONCURRENT at a time and are only
+ * done when the BandwidthPolicy allows it, so they do not compete with the visible images nor waste
+ * metered data.
+ * All its methods must be called from the main thread.
+ */
+class ImagePrefetcher {
+
+    private final static String LOG_TAG = "ImagePrefetcher";
+
+    // Tag of all the prefetch loads, so that they can be cancelled together
+    private static final Object PREFETCH_TAG = new Object();
+
+    // One image waiting to be prefetched
+    private static class PrefetchRequest {
+
+        final String url;
+        final ImageManager.ImageSize size;
+        final boolean intoMemory;
+
+        PrefetchRequest(String url, ImageManager.ImageSize size, boolean intoMemory) {
+            this.url = url;
+            this.size = size;
+            this.intoMemory = intoMemory;
+        }
+    }
+
+    private final Context context;
+    private final ImageManager imageManager;
+    private final LinkedList<PrefetchRequest> queue;
+    private final Set<String> queuedUrls;       // to avoid prefetching the same image twice
+    private int activeFetches;
+
+
+    ImagePrefetcher(@NonNull Context context, @NonNull ImageManager imageManager) {
+
+        this.context = context;
+        this.imageManager = imageManager;
+
+        queue = new LinkedList<>();
+        queuedUrls = new HashSet<>();
+        activeFetches = 0;
+    }
+
+
+    // Queues a batch of images to prefetch (unless the device is not on a WiFi connection)
+    void prefetch(@NonNull List<String> imageUrls, @NonNull ImageManager.ImageSize size, boolean intoMemory) {
+
+        if ( !BandwidthPolicy.allowsPrefetch() ) {
+            Log.d(LOG_TAG, "Not on a WiFi connection, skipping the prefetch of "+ imageUrls.size() +" image(s)");
+            return;
+        }
+
+        for (String url : imageUrls)
+            if (url != null && queuedUrls.add(url))
+                queue.add( new PrefetchRequest(url, size, intoMemory) );
+
+        startNextFetches();
+    }
+
+    // Cancels the prefetches in progress, and forgets the pending ones
+    void cancel() {
+
+        queue.clear();
+        queuedUrls.clear();
+        activeFetches = 0;
+
+        Picasso.with(context).cancelTag(PREFETCH_TAG);
+    }
+
+
+    // Auxiliary methods:
+
+    // Starts as many queued prefetches as allowed
+    private void startNextFetches() {
+
+        while (activeFetches < PREFETCH_MAX_CONCURRENT && !queue.isEmpty())
+            fetch( queue.poll() );
+    }
+
+    // Downloads one image into the disk cache (and into the memory cache, if requested)
+    private void fetch(final PrefetchRequest request) {
+
+        activeFetches++;
+
+        RequestCreator fetchRequest = Picasso.with(context)
+                .load(request.url)
+                .tag(PREFETCH_TAG)
+                .priority(Picasso.Priority.LOW);
+
+        // Use the same size the image will be shown at, so that the memory cache entry can be reused
+        imageManager.applySize(fetchRequest, request.size);
+
+        if (!request.intoMemory)
+            fetchRequest.memoryPolicy(MemoryPolicy.NO_CACHE, MemoryPolicy.NO_STORE);
+
+        fetchRequest.fetch(new Callback() {
+
+            @Override
+            public void onError() {
+                Log.d(LOG_TAG, "Failed to prefetch image: "+ request.url);
+                onFetchFinished(request);
+            }
+
+            @Override
+            public void onSuccess() {
+                onFetchFinished(request);
+            }
+        });
+    }
+
+    // Frees the slot of a finished prefetch, and starts the next one
+    private void onFetchFinished(PrefetchRequest request) {
+
+        queuedUrls.remove(request.url);
+        activeFetches = Math.max(0, activeFetches - 1);
+
+        startNextFetches();
+    }
+}
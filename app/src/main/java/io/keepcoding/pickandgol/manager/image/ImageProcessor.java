@@ -11,18 +11,24 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 
+import io.keepcoding.pickandgol.manager.net.BandwidthPolicy;
+
 import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.COMPRESS_FORMAT;
 import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.COMPRESS_QUALITY;
+import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.COMPRESS_QUALITY_METERED;
 import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.PROCESSOR_TEMP_EXTENSION;
 import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.RESIZE_MAX_HEIGHT;
 import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.RESIZE_MAX_WIDTH;
-import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.PROCESSOR_TEMP_DIR;
 import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.PROCESSOR_TEMP_FILENAME;
+import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.getProcessorTempDir;
 
 
 /**
  * This class manages all the resize/rotate operations for local image files in background.
  * It is an auxiliary class of ImageManager, and has package-private visibility.
+ *
+ * The source image is never decoded at full resolution: it is subsampled while decoding
+ * to a size close to the final one, then scaled and rotated in a single step.
  */
 class ImageProcessor extends AsyncTask<Void, Void, Void> {
 
@@ -44,7 +50,7 @@ class ImageProcessor extends AsyncTask<Void, Void, Void> {
         else
             this.tempFilename = PROCESSOR_TEMP_FILENAME +"."+ PROCESSOR_TEMP_EXTENSION;
 
-        try                 {   tempFilePath = new File(PROCESSOR_TEMP_DIR.getPath(),
+        try                 {   tempFilePath = new File(getProcessorTempDir().getPath(),
                                                         this.tempFilename
                                                        ).getCanonicalPath();            }
 
@@ -65,21 +71,58 @@ class ImageProcessor extends AsyncTask<Void, Void, Void> {
             return null;
         }
 
-        Bitmap sourceImage = BitmapFactory.decodeFile(sourceFile.getAbsolutePath());
-        Bitmap resized = resizeIfNeeded(sourceImage);
+        String sourcePath = sourceFile.getAbsolutePath();
+
+        // First, read only the image dimensions (no memory is allocated for the pixels)
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(sourcePath, options);
+
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            error = new Exception("Unable to decode the image file");
+            return null;
+        }
+
+        int imageWidth = options.outWidth;
+        int imageHeight = options.outHeight;
+        float scale = getResizeScale(imageWidth, imageHeight);
 
-        // The resized image does not contain Exif rotation info, we get it from the original file
-        Bitmap rotatedResized = rotateIfNeeded(resized, sourceFile.getAbsolutePath());
+        // Next, decode a subsampled version of the image, as close as possible to the final size
+        // (never smaller, so the final scaling still produces a good quality image)
+        options.inJustDecodeBounds = false;
+        options.inScaled = false;
+        options.inSampleSize = getSampleSize(scale);
 
-        FileOutputStream outStream;
+        Bitmap decoded = BitmapFactory.decodeFile(sourcePath, options);
+        if (decoded == null) {
+            error = new Exception("Unable to decode the image file");
+            return null;
+        }
+
+        // Last, scale and rotate (the decoded image has no Exif info, we get it from the original file)
+        Bitmap processed = scaleAndRotate(decoded, imageWidth, imageHeight, scale, getExifRotation(sourcePath));
+
+        logPeakMemory(imageWidth, imageHeight, decoded, processed);
+
+        if (processed != decoded)
+            decoded.recycle();
+
+        FileOutputStream outStream = null;
         try {
             outStream = new FileOutputStream(tempFilePath);
-            rotatedResized.compress(COMPRESS_FORMAT, COMPRESS_QUALITY, outStream);
-            outStream.close();
+            // Smaller files on metered connections (see BandwidthPolicy)
+            int quality = BandwidthPolicy.isUnmetered() ? COMPRESS_QUALITY : COMPRESS_QUALITY_METERED;
+            processed.compress(COMPRESS_FORMAT, quality, outStream);
         }
         catch (Exception e) {
             error = e;
-            return null;
+        }
+        finally {
+            processed.recycle();
+
+            if (outStream != null)
+                try                     {   outStream.close();  }
+                catch (IOException e)   {   error = e;          }
         }
 
         return null;
@@ -98,79 +141,86 @@ class ImageProcessor extends AsyncTask<Void, Void, Void> {
         }
     }
 
-    // Returns a bitmap that fits into the max dimensions, scaling the given one if necessary
-    private Bitmap resizeIfNeeded(Bitmap image) {
-
-        int imageHeight = image.getHeight();
-        int imageWidth = image.getWidth();
+    // Gets the scale to apply to an image so that it fits into the max dimensions
+    // (1 if the image already fits into them, so it is never enlarged)
+    private float getResizeScale(int imageWidth, int imageHeight) {
 
         // If the source image already fits into the max dimensions, do not resize
         if (imageHeight <= RESIZE_MAX_HEIGHT && imageWidth <= RESIZE_MAX_WIDTH)
-            return image;
-
+            return 1;
 
         float widthRatio  = (float) RESIZE_MAX_WIDTH  / imageWidth;
         float heightRatio = (float) RESIZE_MAX_HEIGHT / imageHeight;
 
-        int newHeight, newWidth;
-        if(widthRatio > heightRatio) {
-            newHeight = (int) (imageHeight * heightRatio);
-            newWidth = (int) (imageWidth * heightRatio);
-        }
-        else {
-            newHeight = (int) (imageHeight * widthRatio);
-            newWidth = (int) (imageWidth * widthRatio);
-        }
+        return Math.min(widthRatio, heightRatio);
+    }
 
-        Log.d(LOG_TAG, "Resizing image "+
-                "("+imageWidth +"x"+ imageHeight+") --> ("+newWidth +"x"+ newHeight+")");
+    // Gets the largest power of 2 subsampling factor that keeps the decoded image
+    // at least as big as the final size (the decoder only supports powers of 2)
+    private int getSampleSize(float scale) {
 
-        Bitmap resized = Bitmap.createScaledBitmap(image, newWidth, newHeight, true);
+        int sampleSize = 1;
+        while (sampleSize * 2 * scale <= 1)
+            sampleSize *= 2;
 
-        image.recycle();
-        return resized;
+        return sampleSize;
     }
 
-    // Returns a rotated bitmap from the given one,
-    // depending on the Exif rotation info stored in the given file path.
-    private Bitmap rotateIfNeeded(Bitmap image, String imagePath) {
+    // Gets the rotation (in degrees) stored in the Exif info of the given file path
+    private int getExifRotation(String imagePath) {
 
         ExifInterface ei;
         try                     {   ei = new ExifInterface(imagePath);  }
-        catch (IOException e)   {   return image;                       }
+        catch (IOException e)   {   return 0;                           }
 
         int orientation = ei.getAttributeInt(ExifInterface.TAG_ORIENTATION,
                 ExifInterface.ORIENTATION_NORMAL
         );
 
-        int degrees = 0;
         switch (orientation) {
-            case ExifInterface.ORIENTATION_ROTATE_90:   degrees = 90;   break;
-            case ExifInterface.ORIENTATION_ROTATE_180:  degrees = 180;  break;
-            case ExifInterface.ORIENTATION_ROTATE_270:  degrees = 270;  break;
-            default: break;
+            case ExifInterface.ORIENTATION_ROTATE_90:   return 90;
+            case ExifInterface.ORIENTATION_ROTATE_180:  return 180;
+            case ExifInterface.ORIENTATION_ROTATE_270:  return 270;
+            default:                                    return 0;
         }
+    }
 
-        // If no rotation needed, return the original bitmap
-        if (degrees == 0)
-            return image;
+    // Returns a bitmap with the final size and rotation, applying both in a single matrix
+    // (returns the same bitmap if it already has the final size and needs no rotation)
+    private Bitmap scaleAndRotate(Bitmap decoded, int imageWidth, int imageHeight, float scale, int degrees) {
 
+        int newWidth = Math.max(1, (int) (imageWidth * scale));
+        int newHeight = Math.max(1, (int) (imageHeight * scale));
 
-        // Create the rotation matrix and apply it to the bitmap
-        Matrix rotationMatrix = new Matrix();
-        rotationMatrix.postRotate(degrees);
+        int decodedWidth = decoded.getWidth();
+        int decodedHeight = decoded.getHeight();
 
-        Log.d(LOG_TAG, "Rotating image "+ degrees +" degrees");
+        if (decodedWidth == newWidth && decodedHeight == newHeight && degrees == 0)
+            return decoded;
 
-        Bitmap rotatedImg = Bitmap.createBitmap(image, 0, 0,
-                image.getWidth(),
-                image.getHeight(),
-                rotationMatrix,
-                true
-        );
+        Log.d(LOG_TAG, "Resizing image ("+ imageWidth +"x"+ imageHeight +") --> ("+ newWidth +"x"+ newHeight +")"
+                + ((degrees != 0) ? " and rotating it "+ degrees +" degrees" : ""));
+
+        Matrix matrix = new Matrix();
+        matrix.postScale((float) newWidth / decodedWidth, (float) newHeight / decodedHeight);
+        matrix.postRotate(degrees);
+
+        return Bitmap.createBitmap(decoded, 0, 0, decodedWidth, decodedHeight, matrix, true);
+    }
+
+    // Logs the peak bitmap memory used to process the image (both the decoded and the final bitmap
+    // are alive at the same time), and the memory a full resolution decode would have needed
+    private void logPeakMemory(int imageWidth, int imageHeight, Bitmap decoded, Bitmap processed) {
+
+        long peakBytes = decoded.getByteCount();
+        if (processed != decoded)
+            peakBytes += processed.getByteCount();
+
+        long fullDecodeBytes = (long) imageWidth * imageHeight * 4;
 
-        image.recycle();
-        return rotatedImg;
+        Log.d(LOG_TAG, "Peak bitmap memory: "+ (peakBytes / 1024) +" KB "
+                + "(decoded "+ decoded.getWidth() +"x"+ decoded.getHeight() +", "
+                + "a full resolution decode alone would need "+ (fullDecodeBytes / 1024) +" KB)");
     }
 
 }
@@ -0,0 +1,95 @@
+package io.keepcoding.pickandgol.manager.image;
+
+import android.content.Context;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.amazonaws.auth.CognitoCachingCredentialsProvider;
+import com.amazonaws.mobileconnectors.s3.transferutility.TransferUtility;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3Client;
+
+import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.S3_POOL_REGION;
+import static io.keepcoding.pickandgol.manager.image.ImageManagerSettings.getS3PoolId;
+
+
+/**
+ * This class holds the AWS clients used to upload and delete remote images
+ * (Cognito credentials provider, S3 client and S3 Transfer Utility).
+ * It is an auxiliary class of ImageManager, and has package-private visibility.
+ *
+ * Most sessions only load images and never upload or delete any, so the clients are not
+ * created until they are first needed (or until prewarm() is called, when a screen that
+ * will need them is opened).
+ */
+class S3Storage {
+
+    private final static String LOG_TAG = "S3Storage";
+
+    private final Context context;
+    private AmazonS3 s3Client;
+    private TransferUtility transferUtility;
+
+
+    S3Storage(@NonNull Context context) {
+        this.context = context;
+    }
+
+
+    // Gets the S3 client, creating it if necessary
+    synchronized @NonNull AmazonS3 getClient() {
+
+        init();
+        return s3Client;
+    }
+
+    // Gets the S3 Transfer Utility, creating it if necessary
+    synchronized @NonNull TransferUtility getTransferUtility() {
+
+        init();
+        return transferUtility;
+    }
+
+    // Creates the clients in a background thread (if they were not created yet),
+    // so that they are ready when the first upload/delete starts
+    void prewarm() {
+
+        synchronized (this) {
+            if (transferUtility != null)
+                return;
+        }
+
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                getTransferUtility();
+            }
+        }, "S3Prewarm").start();
+    }
+
+
+    // Auxiliary methods:
+
+    // Creates the clients, if they were not created yet (must be called while holding the lock)
+    private void init() {
+
+        if (transferUtility != null)
+            return;
+
+        long start = System.currentTimeMillis();
+
+        // The credentials provider does not request any credentials until the first S3 operation
+        CognitoCachingCredentialsProvider credsProvider = new CognitoCachingCredentialsProvider(
+                context,
+                getS3PoolId(),
+                S3_POOL_REGION
+        );
+
+        s3Client = new AmazonS3Client(credsProvider);
+        transferUtility = new TransferUtility(s3Client, context);
+
+        Log.d(LOG_TAG, "S3 clients created in "+ (System.currentTimeMillis() - start) +"ms");
+    }
+}
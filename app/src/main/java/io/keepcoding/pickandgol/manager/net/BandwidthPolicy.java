@@ -0,0 +1,163 @@
+package io.keepcoding.pickandgol.manager.net;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.keepcoding.pickandgol.manager.net.NetworkManager.ConnectionType;
+
+import static io.keepcoding.pickandgol.manager.net.NetworkManagerSettings.SEARCH_PAGE_SIZE_METERED;
+import static io.keepcoding.pickandgol.manager.net.NetworkManagerSettings.SEARCH_PAGE_SIZE_UNMETERED;
+
+
+/**
+ * This class tells how much data the app should use, depending on the current connection type
+ * (see NetworkManager.getInternetConnectionType).
+ *
+ * On WiFi the app can be aggressive (bigger result pages, prefetching, full quality images),
+ * while on any other connection (mobile, or no connection at all) it must save data.
+ *
+ * The connection type is updated every time the connectivity changes, and the registered
+ * listeners are notified (in the main thread).
+ * This class is abstract, and all its methods are static.
+ */
+public abstract class BandwidthPolicy {
+
+    private final static String LOG_TAG = "BandwidthPolicy";
+
+    // This interface describes the behavior of an object that reacts to the connection type changes
+    public interface BandwidthPolicyListener {
+        void onConnectionTypeChanged(ConnectionType connectionType);
+    }
+
+    private static volatile ConnectionType connectionType = ConnectionType.NONE;
+    private static BroadcastReceiver connectivityReceiver;
+    private static final List<BandwidthPolicyListener> listeners = new ArrayList<>();
+
+
+    /**
+     * Reads the current connection type and starts listening to connectivity changes
+     * (it should be called once, when the application starts).
+     *
+     * @param context   a context for the operation.
+     */
+    public static synchronized void start(@NonNull Context context) {
+
+        if (connectivityReceiver != null)
+            return;
+
+        final Context appContext = context.getApplicationContext();
+        connectionType = NetworkManager.getInternetConnectionType(appContext);
+
+        connectivityReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context receiverContext, Intent intent) {
+                updateConnectionType( NetworkManager.getInternetConnectionType(appContext) );
+            }
+        };
+
+        appContext.registerReceiver(connectivityReceiver, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+
+        Log.d(LOG_TAG, "Bandwidth policy started, connection type: "+ connectionType);
+    }
+
+    /**
+     * Stops listening to connectivity changes.
+     *
+     * @param context   a context for the operation.
+     */
+    public static synchronized void stop(@NonNull Context context) {
+
+        if (connectivityReceiver == null)
+            return;
+
+        context.getApplicationContext().unregisterReceiver(connectivityReceiver);
+        connectivityReceiver = null;
+    }
+
+    /**
+     * Registers a listener for the connection type changes.
+     *
+     * @param listener  the listener to register.
+     */
+    public static synchronized void addListener(@NonNull BandwidthPolicyListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener for the connection type changes.
+     *
+     * @param listener  the listener to unregister.
+     */
+    public static synchronized void removeListener(@NonNull BandwidthPolicyListener listener) {
+        listeners.remove(listener);
+    }
+
+
+    /**
+     * Gets the current connection type.
+     *
+     * @return the type of the current internet connection.
+     */
+    public static @NonNull ConnectionType getConnectionType() {
+        return connectionType;
+    }
+
+    /**
+     * Tells if the app can use data freely (that is, if the device is on a WiFi connection).
+     *
+     * @return true if the current connection is not metered, false otherwise.
+     */
+    public static boolean isUnmetered() {
+        return connectionType == ConnectionType.WIFI;
+    }
+
+    /**
+     * Tells if the app can download data that may not be used (i.e. images of the next pages).
+     *
+     * @return true if prefetching is allowed on the current connection, false otherwise.
+     */
+    public static boolean allowsPrefetch() {
+        return isUnmetered();
+    }
+
+    /**
+     * Gets the number of results per page for a new search (all the pages of the same search
+     * must use the same size, so it is only used when the search params are created).
+     *
+     * @return the page size for the current connection.
+     */
+    public static int getSearchPageSize() {
+        return isUnmetered() ? SEARCH_PAGE_SIZE_UNMETERED : SEARCH_PAGE_SIZE_METERED;
+    }
+
+
+    // Auxiliary methods:
+
+    // Stores the new connection type, and notifies the listeners if it changed
+    private static void updateConnectionType(ConnectionType newConnectionType) {
+
+        List<BandwidthPolicyListener> listenersToNotify;
+
+        synchronized (BandwidthPolicy.class) {
+
+            if (newConnectionType == connectionType)
+                return;
+
+            Log.d(LOG_TAG, "Connection type changed: "+ connectionType +" -> "+ newConnectionType);
+
+            connectionType = newConnectionType;
+            listenersToNotify = new ArrayList<>(listeners);
+        }
+
+        for (BandwidthPolicyListener listener : listenersToNotify)
+            listener.onConnectionTypeChanged(newConnectionType);
+    }
+}
@@ -4,32 +4,16 @@ import android.content.Context;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.support.annotation.NonNull;
-import android.support.annotation.Nullable;
 import android.util.Log;
 
 import com.android.volley.Request;
 import com.android.volley.RequestQueue;
 import com.android.volley.Response;
 import com.android.volley.VolleyError;
-import com.android.volley.toolbox.StringRequest;
-import com.android.volley.toolbox.Volley;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
-import java.io.Reader;
-import java.io.StringReader;
 import java.lang.ref.WeakReference;
-import java.util.Map;
-
-import io.keepcoding.pickandgol.manager.net.response.CategoryListResponse;
-import io.keepcoding.pickandgol.manager.net.response.EventDetailResponse;
-import io.keepcoding.pickandgol.manager.net.response.EventListResponse;
-import io.keepcoding.pickandgol.manager.net.response.LinkEventPubResponse;
-import io.keepcoding.pickandgol.manager.net.response.LoginResponse;
-import io.keepcoding.pickandgol.manager.net.response.PubDetailResponse;
-import io.keepcoding.pickandgol.manager.net.response.PubListResponse;
-import io.keepcoding.pickandgol.manager.net.response.UserRegisterResponse;
-import io.keepcoding.pickandgol.manager.net.response.UserResponse;
+import java.util.ArrayList;
+import java.util.List;
 
 import static android.content.Context.CONNECTIVITY_SERVICE;
 import static io.keepcoding.pickandgol.manager.net.NetworkManagerSettings.JsonResponseType;
@@ -40,7 +24,8 @@ import static io.keepcoding.pickandgol.manager.net.NetworkManagerSettings.JsonRe
  *
  * - Detecting the device connection status
  * - Sending requests to remote URLs
- * - Parsing JSON responses and returning the data to a listener
+ * - Parsing JSON responses (and mapping them to model objects) and returning the data to a listener
+ * - Sharing a single network call between identical GET requests in flight (see NetworkRequestCoalescer)
  *
  * Does not include image requests, see the ImageManager for that.
  */
@@ -65,6 +50,29 @@ public class NetworkManager {
         void onNetworkRequestFail(Exception e);
     }
 
+    /**
+     * This interface describes a listener waiting for the model object built from a response.
+     *
+     * onNetworkModelReady() is called in the main thread, once the response has been parsed
+     * and mapped in background. Otherwise, onNetworkRequestFail() is called.
+     */
+    public interface NetworkModelListener<T> {
+        void onNetworkModelReady(T model);
+        void onNetworkRequestFail(Exception e);
+    }
+
+    /**
+     * This interface describes an object that builds a model object from the parsed data
+     * of a response. It is called in a background thread (so the main thread only gets the
+     * final model object), so it must not touch the UI.
+     *
+     * It must build a new object every time, without modifying the parsed data: the same data
+     * may be mapped again for each listener of a shared request (see NetworkRequestCoalescer).
+     */
+    public interface ParsedDataMapper<T> {
+        T map(@NonNull ParsedData parsedData);
+    }
+
     /**
      * Types of network connection the manager can detect
      */
@@ -86,7 +94,7 @@ public class NetworkManager {
         ConnectivityManager cm = (ConnectivityManager) context.getSystemService(CONNECTIVITY_SERVICE);
         NetworkInfo activeNetworkInfo = cm.getActiveNetworkInfo();
 
-        if ( !activeNetworkInfo.isConnectedOrConnecting() )
+        if ( activeNetworkInfo == null || !activeNetworkInfo.isConnectedOrConnecting() )
             return ConnectionType.NONE;
 
         if (activeNetworkInfo.getType() == ConnectivityManager.TYPE_WIFI)
@@ -118,19 +126,60 @@ public class NetworkManager {
         if (url == null || urlParams == null || listener == null)
             return;
 
+        launchGETRequest(url, urlParams, expectedResponseType, IDENTITY_MAPPER, getNewModelListener(listener));
+    }
+
+    /**
+     * Queues a new GET request through the network, whose parsed data will be mapped to a model
+     * object by the given mapper in background (before getting back to the main thread).
+     *
+     * If the request was successful, will call listener.onNetworkModelReady() passing
+     * the resulting model object to the listener.
+     *
+     * Otherwise, it will call listener.onNetworkRequestFail() passing the error to the listener.
+     *
+     * @param url the url to address the request
+     * @param urlParams a Map with the parameters to add to the request url
+     * @param expectedResponseType the expected response type for the request
+     * @param mapper the mapper that will build the model object from the parsed data
+     * @param listener the listener that will be waiting for the model object
+     */
+    public <T> void launchGETRequest(
+            final @NonNull String url,
+            final @NonNull RequestParams urlParams,
+            final JsonResponseType expectedResponseType,
+            final @NonNull ParsedDataMapper<T> mapper,
+            final @NonNull NetworkModelListener<T> listener) {
+
+        if (url == null || urlParams == null || mapper == null || listener == null)
+            return;
+
+        // If an identical request is already in flight, just wait for its result
+        String requestKey = NetworkRequestCoalescer.getKey("GET", url, urlParams, expectedResponseType, mapper);
+
+        NetworkRequestCoalescer.Registration registration = NetworkRequestCoalescer.join(requestKey, listener);
+
+        if (registration == null) {
+            Log.d(LOG_TAG, "Joining [GET] request already in flight to URL: "+ url);
+            return;
+        }
+
+        NetworkModelListener<SharedModels<T>> sharedListener = getNewSharedListener(registration);
         String urlWithParams = urlParams.addParamsToUrl(url);
 
-        StringRequest getRequest = new StringRequest(
+        ParsedResponseRequest<SharedModels<T>> getRequest = new ParsedResponseRequest<>(
                 Request.Method.GET,
                 urlWithParams,
-                getNewInternalListener(expectedResponseType, listener),
-                getNewInternalErrorListener(listener));
+                null,
+                expectedResponseType,
+                getNewSharedMapper(registration, mapper),
+                getNewInternalListener(sharedListener),
+                getNewInternalErrorListener(sharedListener));
 
         Log.d(LOG_TAG, "Launching [GET] request to URL: "+ url);
         Log.d(LOG_TAG, "[GET] URL params: "+ urlParams.debugString());
 
-        RequestQueue queue = Volley.newRequestQueue( context.get() );
-        queue.add(getRequest);
+        addToSharedQueue(getRequest, sharedListener);
     }
 
 
@@ -156,24 +205,35 @@ public class NetworkManager {
         if (url == null || bodyParams == null || listener == null)
             return;
 
-        StringRequest postRequest = new StringRequest(
-                Request.Method.POST,
-                url,
-                getNewInternalListener(expectedResponseType, listener),
-                getNewInternalErrorListener(listener))
-        {
-            // This override is necessary in order to pass params to the POST request
-            @Override
-            protected Map<String,String> getParams() {
-                return bodyParams.getParams();
-            }
-        };
+        launchPOSTRequest(url, bodyParams, expectedResponseType, IDENTITY_MAPPER, getNewModelListener(listener));
+    }
+
+    /**
+     * Queues a new POST request through the network, whose parsed data will be mapped to a model
+     * object by the given mapper in background (before getting back to the main thread).
+     *
+     * If the request was successful, will call listener.onNetworkModelReady() passing
+     * the resulting model object to the listener.
+     *
+     * Otherwise, it will call listener.onNetworkRequestFail() passing the error to the listener.
+     *
+     * @param url the url to address the request
+     * @param bodyParams a Map with the parameters to add to the request body
+     * @param expectedResponseType the response type expected for the request
+     * @param mapper the mapper that will build the model object from the parsed data
+     * @param listener the listener that will be waiting for the model object
+     */
+    public <T> void launchPOSTRequest(
+            final @NonNull String url,
+            final @NonNull RequestParams bodyParams,
+            final JsonResponseType expectedResponseType,
+            final @NonNull ParsedDataMapper<T> mapper,
+            final @NonNull NetworkModelListener<T> listener) {
 
-        Log.d(LOG_TAG, "Launching [POST] request to URL: "+ url);
-        Log.d(LOG_TAG, "[POST] Body params: "+ bodyParams.debugString());
+        if (url == null || bodyParams == null || mapper == null || listener == null)
+            return;
 
-        RequestQueue queue = Volley.newRequestQueue( context.get() );
-        queue.add(postRequest);
+        launchBodyRequest(Request.Method.POST, "POST", url, bodyParams, expectedResponseType, mapper, listener);
     }
 
     /**
@@ -199,299 +259,201 @@ public class NetworkManager {
             return;
         }
 
-        StringRequest putRequest = new StringRequest(
-                Request.Method.PUT,
-                url,
-                getNewInternalListener(expectedResponseType, listener),
-                getNewInternalErrorListener(listener))
-        {
-            // This override is necessary in order to pass params to the PUT request
-            @Override
-            protected Map<String,String> getParams() {
-                return bodyParams.getParams();
-            }
-        };
+        launchPUTRequest(url, bodyParams, expectedResponseType, IDENTITY_MAPPER, getNewModelListener(listener));
+    }
+
+    /**
+     * Queues a new PUT request through the network, whose parsed data will be mapped to a model
+     * object by the given mapper in background (before getting back to the main thread).
+     *
+     * If the request was successful, will call listener.onNetworkModelReady() passing
+     * the resulting model object to the listener.
+     *
+     * Otherwise, it will call listener.onNetworkRequestFail() passing the error to the listener.
+     *
+     * @param url the url to address the request
+     * @param bodyParams a Map with the parameters to add to the request body
+     * @param expectedResponseType the response type expected for the request
+     * @param mapper the mapper that will build the model object from the parsed data
+     * @param listener the listener that will be waiting for the model object
+     */
+    public <T> void launchPUTRequest(
+            final @NonNull String url,
+            final @NonNull RequestParams bodyParams,
+            final JsonResponseType expectedResponseType,
+            final @NonNull ParsedDataMapper<T> mapper,
+            final @NonNull NetworkModelListener<T> listener) {
 
-        Log.d(LOG_TAG, "Launching [PUT] request to URL: " + url);
-        Log.d(LOG_TAG, "[PUT] Body params: "+ bodyParams.debugString());
+        if (url == null || bodyParams == null || mapper == null || listener == null)
+            return;
 
-        RequestQueue queue = Volley.newRequestQueue(context.get());
-        queue.add(putRequest);
+        launchBodyRequest(Request.Method.PUT, "PUT", url, bodyParams, expectedResponseType, mapper, listener);
     }
 
 
     // Auxiliary methods:
 
-    // Creates a new custom Volley listener for a String request
-    private Response.Listener<String> getNewInternalListener(
-            final JsonResponseType expectedResponseType,
-            final NetworkRequestListener externalListener) {
+    // Mapper that just passes the parsed data through (for the requests that do not map it)
+    private static final ParsedDataMapper<ParsedData> IDENTITY_MAPPER = new ParsedDataMapper<ParsedData>() {
+        @Override
+        public ParsedData map(@NonNull ParsedData parsedData) {
+            return parsedData;
+        }
+    };
 
-        Response.Listener<String> newResponseListener;
+    // Adapts a NetworkRequestListener to receive the (unmapped) parsed data as a model
+    private NetworkModelListener<ParsedData> getNewModelListener(final NetworkRequestListener externalListener) {
 
-        newResponseListener = new Response.Listener<String>() {
+        return new NetworkModelListener<ParsedData>() {
             @Override
-            public void onResponse(String response) {
-                Log.d(LOG_TAG, "Response retrieved");
-
-                ParsedResponse parsedResponse = parseStringResponse(response, expectedResponseType);
-
-                if ( parsedResponse != null && parsedResponse.resultIsOK() ) {
-                    externalListener.onNetworkRequestSuccess(parsedResponse.getData());
-                }
-                else {
-                    String errorMsg = "NULL parsed response";
-                    if (parsedResponse != null)
-                        errorMsg = parsedResponse.getData().getErrorCode()
-                                +": "+ parsedResponse.getData().getErrorDescription();
-
-                    externalListener.onNetworkRequestFail( new IncorrectResponseException(errorMsg) );
-                }
+            public void onNetworkModelReady(ParsedData parsedData) {
+                externalListener.onNetworkRequestSuccess(parsedData);
             }
-        };
 
-        return newResponseListener;
-    }
-
-    // Creates a new custom Volley error listener for a request
-    private Response.ErrorListener getNewInternalErrorListener(
-            final NetworkRequestListener externalListener) {
-
-        Response.ErrorListener newResponseErrorListener;
-
-        newResponseErrorListener = new Response.ErrorListener() {
             @Override
-            public void onErrorResponse(VolleyError error) {
-                Log.e(LOG_TAG, "Unable to get response");
-                externalListener.onNetworkRequestFail(error);
+            public void onNetworkRequestFail(Exception e) {
+                externalListener.onNetworkRequestFail(e);
             }
         };
-
-        return newResponseErrorListener;
     }
 
+    // The listeners waiting for a shared request, along with the model object mapped for each of them
+    private static class SharedModels<T> {
 
-    // This method tries to parse a String response according to the given expected response type
-    @Nullable
-    private ParsedResponse parseStringResponse(String response, JsonResponseType expectedType) {
-
-        if (response != null)
-            Log.d(LOG_TAG, "Received response: \n" +response);
-
-        ParsedResponse parsedResponse;
-
-        switch (expectedType) {
-
-            case LOGIN:
-                parsedResponse = parseLoginResponse(response);
-                break;
-
-            case USER:
-                parsedResponse = parseUserResponse(response);
-                break;
-
-            case EVENT_LIST:
-                parsedResponse = parseEventListResponse(response);
-                break;
-
-            case EVENT_DETAIL:
-                parsedResponse = parseEventDetailResponse(response);
-                break;
-
-            case PUB_LIST:
-                parsedResponse = parsePubListResponse(response);
-                break;
-
-            case PUB_DETAIL:
-                parsedResponse = parsePubDetailResponse(response);
-                break;
-
-            case CATEGORY_LIST:
-                parsedResponse = parseCategoryListResponse(response);
-                break;
-
-            case REGISTER:
-                parsedResponse = parseUserRegisterResponse(response);
-                break;
+        final List<NetworkModelListener<?>> listeners;
+        final List<T> models;
 
-            case LINK_EVENT_PUB:
-                parsedResponse = parseLinkEventPubResponse(response);
-                break;
-
-            default:
-                parsedResponse = null;
-                break;
+        SharedModels(List<NetworkModelListener<?>> listeners, List<T> models) {
+            this.listeners = listeners;
+            this.models = models;
         }
-
-        if (parsedResponse != null)
-            Log.d(LOG_TAG, "Parsed response (expected type '"+ expectedType.toString() +"'): \n"
-                                                              + parsedResponse.debugString());
-
-        return parsedResponse;
     }
 
+    // Wraps a mapper so that the parsed data is mapped once for each listener of a shared request
+    // (see NetworkRequestCoalescer). It is called in background, once the response is parsed: from then
+    // on, the request takes no more listeners, so each of them gets its own model object without mapping
+    // anything in the main thread (and a listener modifying its model object, i.e. adding a page of
+    // results to it, does not affect the others).
+    private static <T> ParsedDataMapper<SharedModels<T>> getNewSharedMapper(
+            final NetworkRequestCoalescer.Registration registration,
+            final ParsedDataMapper<T> mapper) {
 
-    // Parsing methods for each expected response type:
-
-    // JsonResponseType: LOGIN
-    @Nullable
-    private LoginResponse parseLoginResponse(String responseString) {
-
-        LoginResponse loginResponse = null;
-
-        try {
-            Reader reader = new StringReader(responseString);
-            Gson gson = new GsonBuilder().create();
-            loginResponse = gson.fromJson(reader, LoginResponse.class);
-        }
-        catch (RuntimeException e) {
-            e.printStackTrace();
-        }
-
-        return loginResponse;
-    }
-
-    // JsonResponseType: USER
-    @Nullable
-    private UserResponse parseUserResponse(String responseString) {
+        return new ParsedDataMapper<SharedModels<T>>() {
+            @Override
+            public SharedModels<T> map(@NonNull ParsedData parsedData) {
 
-        UserResponse userEntity = null;
+                List<NetworkModelListener<?>> listeners = NetworkRequestCoalescer.complete(registration);
 
-        try {
-            Reader reader = new StringReader(responseString);
-            Gson gson = new GsonBuilder().create();
-            userEntity = gson.fromJson(reader, UserResponse.class);
-        }
-        catch (RuntimeException e) {
-            e.printStackTrace();
-        }
+                List<T> models = new ArrayList<>( listeners.size() );
+                for (int i = 0; i < listeners.size(); i++)
+                    models.add( mapper.map(parsedData) );
 
-        return userEntity;
+                return new SharedModels<>(listeners, models);
+            }
+        };
     }
 
-    // JsonResponseType: EVENT_LIST
-    @Nullable
-    private EventListResponse parseEventListResponse(String responseString) {
+    // Creates a listener that passes the result of a shared request to all the listeners waiting for it.
+    // If Volley delivers twice (a stale cached response, then the refreshed one), all the listeners
+    // get both results, as they would with their own request.
+    private <T> NetworkModelListener<SharedModels<T>> getNewSharedListener(
+            final NetworkRequestCoalescer.Registration registration) {
 
-        EventListResponse eventListResponse = null;
-
-        try {
-            Reader reader = new StringReader(responseString);
-            Gson gson = new GsonBuilder().create();
-            eventListResponse = gson.fromJson(reader, EventListResponse.class);
-        }
-        catch (RuntimeException e) {
-            e.printStackTrace();
-        }
-
-        return eventListResponse;
-    }
+        return new NetworkModelListener<SharedModels<T>>() {
 
-    // JsonResponseType: EVENT_DETAIL
-    @Nullable
-    private EventDetailResponse parseEventDetailResponse(String responseString) {
-
-        EventDetailResponse eventDetailResponse = null;
+            @Override
+            @SuppressWarnings("unchecked")
+            public void onNetworkModelReady(SharedModels<T> sharedModels) {
 
-        try {
-            Reader reader = new StringReader(responseString);
-            Gson gson = new GsonBuilder().create();
-            eventDetailResponse = gson.fromJson(reader, EventDetailResponse.class);
-        }
-        catch (RuntimeException e) {
-            e.printStackTrace();
-        }
+                for (int i = 0; i < sharedModels.listeners.size(); i++) {
+                    NetworkModelListener<T> listener = (NetworkModelListener<T>) sharedModels.listeners.get(i);
+                    listener.onNetworkModelReady( sharedModels.models.get(i) );
+                }
+            }
 
-        return eventDetailResponse;
+            @Override
+            public void onNetworkRequestFail(Exception e) {
+                for (NetworkModelListener<?> listener : NetworkRequestCoalescer.complete(registration))
+                    listener.onNetworkRequestFail(e);
+            }
+        };
     }
 
-    // JsonResponseType: PUB_LIST
-    @Nullable
-    private PubListResponse parsePubListResponse(String responseString) {
-
-        PubListResponse pubListResponse = null;
+    // Queues a new request with params in its body (POST, PUT)
+    private <T> void launchBodyRequest(int method,
+                                       String methodName,
+                                       String url,
+                                       RequestParams bodyParams,
+                                       JsonResponseType expectedResponseType,
+                                       ParsedDataMapper<T> mapper,
+                                       NetworkModelListener<T> listener) {
+
+        ParsedResponseRequest<T> request = new ParsedResponseRequest<>(
+                method,
+                url,
+                bodyParams,
+                expectedResponseType,
+                mapper,
+                getNewInternalListener(listener),
+                getNewInternalErrorListener(listener));
 
-        try {
-            Reader reader = new StringReader(responseString);
-            Gson gson = new GsonBuilder().create();
-            pubListResponse = gson.fromJson(reader, PubListResponse.class);
-        }
-        catch (RuntimeException e) {
-            e.printStackTrace();
-        }
+        Log.d(LOG_TAG, "Launching ["+ methodName +"] request to URL: "+ url);
+        Log.d(LOG_TAG, "["+ methodName +"] Body params: "+ bodyParams.debugString());
 
-        return pubListResponse;
+        addToSharedQueue(request, listener);
     }
 
-    // JsonResponseType: PUB_DETAIL
-    @Nullable
-    private PubDetailResponse parsePubDetailResponse(String responseString) {
+    // Adds a request to the process-wide request queue (see NetworkRequestQueue)
+    private void addToSharedQueue(Request<?> request, NetworkModelListener<?> listener) {
 
-        PubDetailResponse pubDetailResponse = null;
+        RequestQueue queue = NetworkRequestQueue.getQueue( context.get() );
 
-        try {
-            Reader reader = new StringReader(responseString);
-            Gson gson = new GsonBuilder().create();
-            pubDetailResponse = gson.fromJson(reader, PubDetailResponse.class);
-        }
-        catch (RuntimeException e) {
-            e.printStackTrace();
+        if (queue == null) {
+            Log.e(LOG_TAG, "Unable to launch request: the shared request queue is not available");
+            listener.onNetworkRequestFail( new Exception("The network request queue is not available") );
+            return;
         }
 
-        return pubDetailResponse;
+        queue.add(request);
     }
 
-    // JsonResponseType: CATEGORY_LIST
-    @Nullable
-    private CategoryListResponse parseCategoryListResponse(String responseString) {
+    // Creates a new custom Volley listener for a request (the response comes already parsed and mapped)
+    private <T> Response.Listener<T> getNewInternalListener(final NetworkModelListener<T> externalListener) {
 
-        CategoryListResponse categoryListResponse = null;
+        Response.Listener<T> newResponseListener;
 
-        try {
-            Reader reader = new StringReader(responseString);
-            Gson gson = new GsonBuilder().create();
-            categoryListResponse = gson.fromJson(reader, CategoryListResponse.class);
-        }
-        catch (RuntimeException e) {
-            e.printStackTrace();
-        }
+        newResponseListener = new Response.Listener<T>() {
+            @Override
+            public void onResponse(T model) {
+                externalListener.onNetworkModelReady(model);
+            }
+        };
 
-        return categoryListResponse;
+        return newResponseListener;
     }
 
-    // JsonResponseType: REGISTER
-    @Nullable
-    private UserRegisterResponse parseUserRegisterResponse(String responseString) {
-
-        UserRegisterResponse userResponse = null;
-
-        try {
-            Reader reader = new StringReader(responseString);
-            Gson gson = new GsonBuilder().create();
-            userResponse = gson.fromJson(reader, UserRegisterResponse.class);
-        }
-        catch (RuntimeException e) {
-            e.printStackTrace();
-        }
+    // Creates a new custom Volley error listener for a request
+    private Response.ErrorListener getNewInternalErrorListener(
+            final NetworkModelListener<?> externalListener) {
 
-        return userResponse;
-    }
+        Response.ErrorListener newResponseErrorListener;
 
-    // JsonResponseType: LINK_EVENT_PUB
-    @Nullable
-    private LinkEventPubResponse parseLinkEventPubResponse(String responseString) {
+        newResponseErrorListener = new Response.ErrorListener() {
+            @Override
+            public void onErrorResponse(VolleyError error) {
 
-        LinkEventPubResponse linkEventPubResponse = null;
+                // Responses with a wrong 'result' field are reported as they were before
+                if (error.getCause() instanceof IncorrectResponseException) {
+                    Log.e(LOG_TAG, "Incorrect response: "+ error.getCause().getMessage());
+                    externalListener.onNetworkRequestFail( (IncorrectResponseException) error.getCause() );
+                    return;
+                }
 
-        try {
-            Reader reader = new StringReader(responseString);
-            Gson gson = new GsonBuilder().create();
-            linkEventPubResponse = gson.fromJson(reader, LinkEventPubResponse.class);
-        }
-        catch (RuntimeException e) {
-            e.printStackTrace();
-        }
+                Log.e(LOG_TAG, "Unable to get response");
+                externalListener.onNetworkRequestFail(error);
+            }
+        };
 
-        return linkEventPubResponse;
+        return newResponseErrorListener;
     }
 }
@@ -24,6 +24,15 @@ public class NetworkManagerSettings {
     public static final String URL_USER_FAVORITES = BuildConfig.HOST + "/api/v1/users";
     public static final String URL_LINK_EVENT_PUB = BuildConfig.HOST + "/api/v1/events";
 
+    // Settings for the shared request queue (see NetworkRequestQueue)
+    public static final int NETWORK_THREAD_POOL_SIZE = 4;
+    public static final String REQUEST_CACHE_DIR = "volley";
+    public static final int REQUEST_CACHE_SIZE_MB = 5;
+
+    // Number of results per page of a search, depending on the connection (see BandwidthPolicy)
+    public static final int SEARCH_PAGE_SIZE_UNMETERED = 30;
+    public static final int SEARCH_PAGE_SIZE_METERED = 10;
+
     // Available JSON response types expected from the server
     public static enum JsonResponseType {
 
@@ -0,0 +1,129 @@
+package io.keepcoding.pickandgol.manager.net;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.keepcoding.pickandgol.manager.net.NetworkManagerSettings.JsonResponseType;
+
+
+/**
+ * This class keeps a registry of the requests currently in flight, so that identical requests
+ * launched at the same time (i.e. a swipe refresh while the same search is still running)
+ * share a single network call, and its result is passed to all their listeners.
+ *
+ * Two requests are identical if they have the same method, url, params, expected response type
+ * and mapper (so all their listeners expect the same kind of model object). The response is parsed
+ * only once, but each listener gets its own model object mapped from it (see NetworkManager).
+ * Once the response arrives, the request takes no more listeners (a later identical request
+ * is launched again, and may get its response from the local response cache).
+ *
+ * It also keeps count of the requests that joined another one (hits) and the ones that
+ * actually went to the network (misses), for instrumentation purposes.
+ * This class is abstract, and all its methods are static.
+ */
+public abstract class NetworkRequestCoalescer {
+
+    // Requests in flight that still accept new listeners, by request key
+    private static final Map<String, Registration> inFlight = new HashMap<>();
+
+    // Instrumentation counters
+    private static final AtomicInteger hits = new AtomicInteger(0);
+    private static final AtomicInteger misses = new AtomicInteger(0);
+
+
+    /**
+     * Gets the number of requests that joined an identical request already in flight.
+     *
+     * @return the number of requests that did not need their own network call.
+     */
+    public static int getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of requests that were actually sent through the network.
+     *
+     * @return the number of requests that needed their own network call.
+     */
+    public static int getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Resets the hit/miss counters.
+     */
+    public static void resetCounters() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+
+    // Builds the key that identifies a request (the params are sorted, so their order does not matter)
+    static @NonNull String getKey(@NonNull String method,
+                                  @NonNull String url,
+                                  @NonNull RequestParams params,
+                                  JsonResponseType expectedResponseType,
+                                  @NonNull NetworkManager.ParsedDataMapper<?> mapper) {
+
+        return method
+                + "|" + url
+                + "|" + new TreeMap<>( params.getParams() )
+                + "|" + expectedResponseType
+                + "|" + mapper.getClass().getName();
+    }
+
+    // Registers a listener for the request with the given key.
+    // Returns a new registration if there was no identical request in flight (so the caller must launch
+    // it, and then complete that registration), or null if the listener just joined the request in flight.
+    static synchronized @Nullable Registration join(@NonNull String key,
+                                                    @NonNull NetworkManager.NetworkModelListener<?> listener) {
+
+        Registration registration = inFlight.get(key);
+
+        if (registration != null) {
+            registration.listeners.add(listener);
+            hits.incrementAndGet();
+            return null;
+        }
+
+        registration = new Registration(key);
+        registration.listeners.add(listener);
+        inFlight.put(key, registration);
+
+        misses.incrementAndGet();
+        return registration;
+    }
+
+    // Removes the given request from the registry (identical requests launched from now on will need
+    // their own network call), and returns all the listeners waiting for its result.
+    // A newer identical request in flight is never removed. It can be called again for the same request
+    // (Volley delivers an intermediate response from the cache before the refreshed one), and then it
+    // returns the same listeners.
+    static synchronized @NonNull List<NetworkManager.NetworkModelListener<?>> complete(
+            @NonNull Registration registration) {
+
+        if (inFlight.get(registration.key) == registration)
+            inFlight.remove(registration.key);
+
+        return new ArrayList<>(registration.listeners);
+    }
+
+
+    // A request in flight, along with all the listeners waiting for its result
+    static class Registration {
+
+        private final String key;
+        private final List<NetworkManager.NetworkModelListener<?>> listeners = new ArrayList<>();
+
+        private Registration(@NonNull String key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package io.keepcoding.pickandgol.manager.net;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import com.android.volley.Cache;
+import com.android.volley.CacheDispatcher;
+import com.android.volley.Network;
+import com.android.volley.NetworkDispatcher;
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.BasicNetwork;
+import com.android.volley.toolbox.DiskBasedCache;
+import com.android.volley.toolbox.HurlStack;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.keepcoding.pickandgol.manager.net.NetworkManagerSettings.NETWORK_THREAD_POOL_SIZE;
+import static io.keepcoding.pickandgol.manager.net.NetworkManagerSettings.REQUEST_CACHE_DIR;
+import static io.keepcoding.pickandgol.manager.net.NetworkManagerSettings.REQUEST_CACHE_SIZE_MB;
+
+
+/**
+ * This class owns the process-wide Volley request queue used by the NetworkManager.
+ *
+ * The queue is started once by the application (see PickAndGolApp) and shared by all requests,
+ * instead of creating a new queue (with its own disk cache and dispatcher threads) every time.
+ *
+ * It also keeps count of the live queues and dispatcher threads, for instrumentation purposes.
+ * This class is abstract, and all its methods are static.
+ */
+public abstract class NetworkRequestQueue {
+
+    private final static String LOG_TAG = "NetworkRequestQueue";
+
+    private static RequestQueue sharedQueue;
+
+    // Instrumentation counters (queues started and not stopped yet, and their dispatcher threads)
+    private static final AtomicInteger liveQueues = new AtomicInteger(0);
+    private static final AtomicInteger liveDispatcherThreads = new AtomicInteger(0);
+    private static int sharedQueueThreads = 0;
+
+
+    /**
+     * Starts the shared request queue, using the default number of network dispatcher threads.
+     * If the queue is already running, does nothing.
+     *
+     * @param context   a context for the operation.
+     */
+    public static void start(final @NonNull Context context) {
+
+        start(context, NETWORK_THREAD_POOL_SIZE);
+    }
+
+    /**
+     * Starts the shared request queue with a given number of network dispatcher threads
+     * (the queue will also use one extra thread for the cache dispatcher).
+     * If the queue is already running, does nothing.
+     *
+     * @param context           a context for the operation.
+     * @param networkThreads    number of network dispatcher threads for the queue.
+     */
+    public static synchronized void start(final @NonNull Context context, int networkThreads) {
+
+        if (sharedQueue != null)
+            return;
+
+        if (networkThreads < 1)
+            networkThreads = 1;
+
+        File cacheDir = new File(context.getApplicationContext().getCacheDir(), REQUEST_CACHE_DIR);
+        Cache diskCache = new DiskBasedCache(cacheDir, REQUEST_CACHE_SIZE_MB * 1024 * 1024);
+        Network network = new BasicNetwork(new HurlStack());
+
+        sharedQueue = new RequestQueue(diskCache, network, networkThreads);
+        sharedQueue.start();
+
+        sharedQueueThreads = networkThreads + 1;
+        liveQueues.incrementAndGet();
+        liveDispatcherThreads.addAndGet(sharedQueueThreads);
+
+        Log.d(LOG_TAG, "Shared request queue started ("+ networkThreads +" network threads)");
+    }
+
+    /**
+     * Cancels all pending requests and stops the shared request queue, releasing its threads.
+     * If the queue is not running, does nothing.
+     */
+    public static synchronized void stop() {
+
+        if (sharedQueue == null)
+            return;
+
+        sharedQueue.cancelAll(new RequestQueue.RequestFilter() {
+            @Override
+            public boolean apply(Request<?> request) {
+                return true;
+            }
+        });
+
+        sharedQueue.stop();
+        sharedQueue = null;
+
+        liveQueues.decrementAndGet();
+        liveDispatcherThreads.addAndGet(-sharedQueueThreads);
+        sharedQueueThreads = 0;
+
+        Log.d(LOG_TAG, "Shared request queue stopped");
+    }
+
+    /**
+     * Gets the shared request queue (if it was not started yet, it will be started now).
+     *
+     * @param context   a context for the operation (only used if the queue must be started).
+     * @return          the shared request queue, or null if it was not started and the context is null.
+     */
+    public static synchronized @Nullable RequestQueue getQueue(final @Nullable Context context) {
+
+        if (sharedQueue == null && context != null)
+            start(context);
+
+        return sharedQueue;
+    }
+
+
+    /** Instrumentation methods **/
+
+    // Number of request queues currently started by this class (should never be greater than 1)
+    public static int getLiveQueueCount() {
+        return liveQueues.get();
+    }
+
+    // Number of dispatcher threads owned by the queues currently started by this class
+    public static int getLiveDispatcherThreadCount() {
+        return liveDispatcherThreads.get();
+    }
+
+    // Number of Volley dispatcher threads actually alive in the process, no matter who started them
+    // (useful to detect queues created outside this class, which would be leaked)
+    public static int countAliveVolleyThreads() {
+
+        int count = 0;
+
+        for (Thread thread : Thread.getAllStackTraces().keySet())
+            if ( thread.isAlive() &&
+                 (thread instanceof NetworkDispatcher || thread instanceof CacheDispatcher) )
+                count++;
+
+        return count;
+    }
+
+    // Outputs the instrumentation counters as a String (for debugging purposes)
+    public static String debugString() {
+
+        return "live queues: "+ getLiveQueueCount() +", "
+             + "live dispatcher threads: "+ getLiveDispatcherThreadCount() +", "
+             + "alive Volley threads in process: "+ countAliveVolleyThreads();
+    }
+}
@@ -0,0 +1,157 @@
+package io.keepcoding.pickandgol.manager.net;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.google.gson.stream.JsonReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Map;
+
+import io.keepcoding.pickandgol.manager.net.response.ResponseGson;
+
+import static io.keepcoding.pickandgol.manager.net.NetworkManagerSettings.JsonResponseType;
+
+
+/**
+ * This class represents a Volley request whose response is parsed (and then mapped to a model
+ * object) while still in the network dispatcher thread, so the listener gets the final result.
+ *
+ * The JSON is read directly from the response body bytes, without building an intermediate
+ * String with the whole response.
+ *
+ * GET responses with validators are kept in the local response cache, so that repeating the
+ * request only downloads the body again if it has changed (see ResponseCachePolicy).
+ */
+class ParsedResponseRequest<T> extends Request<T> {
+
+    private final static String LOG_TAG = "ParsedResponseRequest";
+    private final static String DEFAULT_CHARSET = "UTF-8";
+
+    private final JsonResponseType expectedType;
+    private final NetworkManager.ParsedDataMapper<T> mapper;
+    private final Response.Listener<T> listener;
+    private final RequestParams bodyParams;
+
+
+    /**
+     * Creates a new request.
+     *
+     * @param method            the request method (see Request.Method).
+     * @param url               the url to address the request (including the url params, if any).
+     * @param bodyParams        the params to add to the request body (null if there is no body).
+     * @param expectedType      the expected response type for the request.
+     * @param mapper            the mapper that converts the parsed data to the final result.
+     * @param listener          the listener that will receive the final result.
+     * @param errorListener     the listener that will receive the error, if any.
+     */
+    ParsedResponseRequest(int method,
+                          @NonNull String url,
+                          @Nullable RequestParams bodyParams,
+                          @NonNull JsonResponseType expectedType,
+                          @NonNull NetworkManager.ParsedDataMapper<T> mapper,
+                          @NonNull Response.Listener<T> listener,
+                          @NonNull Response.ErrorListener errorListener) {
+
+        super(method, url, errorListener);
+
+        this.bodyParams = bodyParams;
+        this.expectedType = expectedType;
+        this.mapper = mapper;
+        this.listener = listener;
+
+        // Only GET responses are cached (and revalidated later, see ResponseCachePolicy)
+        setShouldCache(method == Method.GET);
+    }
+
+
+    // This override is necessary in order to pass params to POST and PUT requests
+    @Override
+    protected Map<String, String> getParams() {
+
+        if (bodyParams == null)
+            return null;
+
+        return bodyParams.getParams();
+    }
+
+    // Called in the network dispatcher thread: parses the response body and maps the parsed data
+    @Override
+    protected Response<T> parseNetworkResponse(NetworkResponse response) {
+
+        Log.d(LOG_TAG, "Response retrieved ("+ response.data.length +" bytes)");
+
+        ParsedResponse parsedResponse;
+
+        try {
+            parsedResponse = parse(response);
+        }
+        catch (IOException | RuntimeException e) {
+            Log.e(LOG_TAG, "Unable to parse response (expected type '"+ expectedType +"')");
+            return Response.error( new ParseError(e) );
+        }
+
+        if ( parsedResponse == null || !parsedResponse.resultIsOK() ) {
+
+            String errorMsg = "NULL parsed response";
+            if (parsedResponse != null)
+                errorMsg = parsedResponse.getData().getErrorCode()
+                        +": "+ parsedResponse.getData().getErrorDescription();
+
+            return Response.error( new VolleyError(new IncorrectResponseException(errorMsg)) );
+        }
+
+        if ( Log.isLoggable(LOG_TAG, Log.VERBOSE) )
+            Log.v(LOG_TAG, "Parsed response (expected type '"+ expectedType +"'): \n"
+                                                            + parsedResponse.debugString());
+
+        T result;
+
+        try {
+            result = mapper.map( parsedResponse.getData() );
+        }
+        catch (RuntimeException e) {
+            Log.e(LOG_TAG, "Unable to map response data (expected type '"+ expectedType +"')", e);
+            return Response.error( new ParseError(e) );
+        }
+
+        return Response.success(result, ResponseCachePolicy.getCacheEntry(response));
+    }
+
+    // Called in the main thread
+    @Override
+    protected void deliverResponse(T result) {
+        listener.onResponse(result);
+    }
+
+
+    // Auxiliary methods:
+
+    // Reads the response body as a stream of JSON tokens, according to the expected response type
+    private @Nullable ParsedResponse parse(NetworkResponse response) throws IOException {
+
+        Class<? extends ParsedResponse> responseClass = ResponseGson.getResponseClass(expectedType);
+        if (responseClass == null)
+            return null;
+
+        String charset = HttpHeaderParser.parseCharset(response.headers, DEFAULT_CHARSET);
+        JsonReader reader = new JsonReader(
+                new InputStreamReader(new ByteArrayInputStream(response.data), charset) );
+
+        try {
+            return ResponseGson.get().getAdapter(responseClass).read(reader);
+        }
+        finally {
+            reader.close();
+        }
+    }
+}
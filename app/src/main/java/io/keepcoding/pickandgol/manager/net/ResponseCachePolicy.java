@@ -0,0 +1,121 @@
+package io.keepcoding.pickandgol.manager.net;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import com.android.volley.Cache;
+import com.android.volley.NetworkResponse;
+import com.android.volley.toolbox.HttpHeaderParser;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * This class decides which responses are kept in the local response cache (see NetworkRequestQueue),
+ * so that the next identical GET request can be sent as a conditional request.
+ *
+ * Volley stores the validators of a cached response (ETag, Last-Modified) and, once the response
+ * expires, sends them back as If-None-Match/If-Modified-Since. If the server answers 304 (Not
+ * Modified), the cached body is used instead of downloading it again.
+ *
+ * Unlike Volley's default policy, a response with "Cache-Control: no-cache" is still kept if it has
+ * validators (it can not be used without asking the server, but it can be revalidated), and
+ * responses that can be neither reused nor revalidated are not written to disk at all.
+ *
+ * It also keeps count of the 304 responses, for instrumentation purposes.
+ * This class is abstract, and all its methods are static.
+ */
+public abstract class ResponseCachePolicy {
+
+    private final static String LOG_TAG = "ResponseCachePolicy";
+
+    // Instrumentation counters
+    private static final AtomicInteger notModifiedResponses = new AtomicInteger(0);
+
+
+    /**
+     * Gets the number of responses served from the local cache after a 304 (Not Modified).
+     *
+     * @return the number of responses whose body did not need to be downloaded again.
+     */
+    public static int getNotModifiedCount() {
+        return notModifiedResponses.get();
+    }
+
+    /**
+     * Resets the 304 counter.
+     */
+    public static void resetCounters() {
+        notModifiedResponses.set(0);
+    }
+
+
+    // Builds the cache entry to store for a successful response (or null if it must not be stored)
+    static @Nullable Cache.Entry getCacheEntry(@NonNull NetworkResponse response) {
+
+        if (response.notModified) {
+            notModifiedResponses.incrementAndGet();
+            Log.d(LOG_TAG, "Response not modified, using the cached body ("+ response.data.length +" bytes)");
+        }
+
+        Map<String, String> headers = response.headers;
+
+        String cacheControl = getHeader(headers, "Cache-Control");
+        if (cacheControl != null && cacheControl.toLowerCase(Locale.US).contains("no-store"))
+            return null;
+
+        String etag = getHeader(headers, "ETag");
+        String lastModified = getHeader(headers, "Last-Modified");
+        boolean hasValidators = (etag != null || lastModified != null);
+
+        Cache.Entry entry = HttpHeaderParser.parseCacheHeaders(response);
+
+        // Volley does not store "no-cache" responses, keep them anyway to revalidate them later
+        if (entry == null) {
+
+            if (!hasValidators)
+                return null;
+
+            entry = new Cache.Entry();
+            entry.data = response.data;
+            entry.etag = etag;
+            entry.responseHeaders = headers;
+            entry.softTtl = 0;
+            entry.ttl = 0;
+
+            String serverDate = getHeader(headers, "Date");
+            if (serverDate != null)
+                entry.serverDate = HttpHeaderParser.parseDateAsEpoch(serverDate);
+
+            if (lastModified != null)
+                entry.lastModified = HttpHeaderParser.parseDateAsEpoch(lastModified);
+
+            return entry;
+        }
+
+        // If the response is already expired and can not be revalidated, there is no point in storing it
+        if (!hasValidators && entry.ttl <= System.currentTimeMillis())
+            return null;
+
+        return entry;
+    }
+
+
+    // Auxiliary methods:
+
+    // Gets the value of a response header (header names are case insensitive)
+    private static @Nullable String getHeader(@Nullable Map<String, String> headers, @NonNull String name) {
+
+        if (headers == null)
+            return null;
+
+        for (Map.Entry<String, String> header : headers.entrySet())
+            if ( name.equalsIgnoreCase(header.getKey()) )
+                return header.getValue();
+
+        return null;
+    }
+}
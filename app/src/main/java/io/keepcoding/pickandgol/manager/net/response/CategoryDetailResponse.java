@@ -3,7 +3,11 @@ package io.keepcoding.pickandgol.manager.net.response;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
 
 import io.keepcoding.pickandgol.manager.net.ParsedData;
 import io.keepcoding.pickandgol.manager.net.ParsedResponse;
@@ -60,6 +64,30 @@ public class CategoryDetailResponse implements ParsedResponse {
     }
 
 
+    // Reads the 'data' field of a category (used by the CategoryListResponse adapter)
+    static CategoryDetailData readData(JsonReader in, CategoryDetailResponse outer) throws IOException {
+
+        if ( ResponseGson.nextIsNull(in) )
+            return null;
+
+        CategoryDetailData data = outer.new CategoryDetailData();
+
+        in.beginObject();
+        while ( in.hasNext() ) {
+            switch ( in.nextName() ) {
+                case "code":         data.errorCode = ResponseGson.nextString(in);  break;
+                case "description":  data.errorDescription = ResponseGson.nextString(in);  break;
+                case "_id":          data.id = ResponseGson.nextString(in);  break;
+                case "name":         data.name = ResponseGson.nextString(in);  break;
+                default:             in.skipValue();  break;
+            }
+        }
+        in.endObject();
+
+        return data;
+    }
+
+
     // Outputs the response data as a String (for debugging purposes)
     public String debugString() {
 
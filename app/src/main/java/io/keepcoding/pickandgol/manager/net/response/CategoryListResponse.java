@@ -3,8 +3,12 @@ package io.keepcoding.pickandgol.manager.net.response;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import io.keepcoding.pickandgol.manager.net.ParsedData;
@@ -61,4 +65,70 @@ public class CategoryListResponse implements ParsedResponse {
             return items;
         }
     }
+
+
+    // Hand-written Gson adapter for this response (registered in ResponseGson, avoids reflection)
+    static final TypeAdapter<CategoryListResponse> ADAPTER = new ResponseGson.ResponseAdapter<CategoryListResponse>() {
+
+        @Override
+        public CategoryListResponse read(JsonReader in) throws IOException {
+
+            if ( ResponseGson.nextIsNull(in) )
+                return null;
+
+            CategoryListResponse response = new CategoryListResponse();
+
+            in.beginObject();
+            while ( in.hasNext() ) {
+                switch ( in.nextName() ) {
+                    case "result":  response.result = ResponseGson.nextString(in);  break;
+                    case "data":    response.data = readData(in, response);  break;
+                    default:        in.skipValue();  break;
+                }
+            }
+            in.endObject();
+
+            return response;
+        }
+    };
+
+    // Reads the 'data' field of the response (see ADAPTER)
+    private static CategoryListData readData(JsonReader in, CategoryListResponse outer) throws IOException {
+
+        if ( ResponseGson.nextIsNull(in) )
+            return null;
+
+        CategoryListData data = outer.new CategoryListData();
+
+        in.beginObject();
+        while ( in.hasNext() ) {
+            switch ( in.nextName() ) {
+                case "code":         data.errorCode = ResponseGson.nextString(in);  break;
+                case "description":  data.errorDescription = ResponseGson.nextString(in);  break;
+                case "total":        data.total = ResponseGson.nextInt(in);  break;
+                case "items":        data.items = readCategoryList(in);  break;
+                default:             in.skipValue();  break;
+            }
+        }
+        in.endObject();
+
+        return data;
+    }
+
+    // Reads the 'items' field of the response
+    private static List<CategoryDetailResponse.CategoryDetailData> readCategoryList(JsonReader in) throws IOException {
+
+        if ( ResponseGson.nextIsNull(in) )
+            return null;
+
+        CategoryDetailResponse outer = new CategoryDetailResponse();
+        List<CategoryDetailResponse.CategoryDetailData> items = new ArrayList<>();
+
+        in.beginArray();
+        while ( in.hasNext() )
+            items.add( CategoryDetailResponse.readData(in, outer) );
+        in.endArray();
+
+        return items;
+    }
 }
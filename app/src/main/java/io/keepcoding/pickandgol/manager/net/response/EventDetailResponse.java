@@ -3,8 +3,11 @@ package io.keepcoding.pickandgol.manager.net.response;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
 
+import java.io.IOException;
 import java.util.Date;
 import java.util.List;
 
@@ -96,6 +99,59 @@ public class EventDetailResponse implements ParsedResponse {
     }
 
 
+    // Hand-written Gson adapter for this response (registered in ResponseGson, avoids reflection)
+    static final TypeAdapter<EventDetailResponse> ADAPTER = new ResponseGson.ResponseAdapter<EventDetailResponse>() {
+
+        @Override
+        public EventDetailResponse read(JsonReader in) throws IOException {
+
+            if ( ResponseGson.nextIsNull(in) )
+                return null;
+
+            EventDetailResponse response = new EventDetailResponse();
+
+            in.beginObject();
+            while ( in.hasNext() ) {
+                switch ( in.nextName() ) {
+                    case "result":  response.result = ResponseGson.nextString(in);  break;
+                    case "data":    response.data = readData(in, response);  break;
+                    default:        in.skipValue();  break;
+                }
+            }
+            in.endObject();
+
+            return response;
+        }
+    };
+
+    // Reads the 'data' field of the response (see ADAPTER)
+    static EventDetailData readData(JsonReader in, EventDetailResponse outer) throws IOException {
+
+        if ( ResponseGson.nextIsNull(in) )
+            return null;
+
+        EventDetailData data = outer.new EventDetailData();
+
+        in.beginObject();
+        while ( in.hasNext() ) {
+            switch ( in.nextName() ) {
+                case "code":         data.errorCode = ResponseGson.nextString(in);  break;
+                case "description":  data.description = ResponseGson.nextString(in);  break;
+                case "_id":          data.id = ResponseGson.nextString(in);  break;
+                case "name":         data.name = ResponseGson.nextString(in);  break;
+                case "date":         data.dateString = ResponseGson.nextString(in);  break;
+                case "photo_url":    data.photoUrl = ResponseGson.nextString(in);  break;
+                case "pubs":         data.pubs = ResponseGson.nextStringList(in);  break;
+                case "category":     data.categories = ResponseGson.nextStringList(in);  break;
+                default:             in.skipValue();  break;
+            }
+        }
+        in.endObject();
+
+        return data;
+    }
+
+
     // Outputs the response data as a String (for debugging purposes)
     public String debugString() {
 
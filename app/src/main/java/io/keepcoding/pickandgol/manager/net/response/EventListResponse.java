@@ -3,8 +3,12 @@ package io.keepcoding.pickandgol.manager.net.response;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import io.keepcoding.pickandgol.manager.net.ParsedData;
@@ -64,6 +68,72 @@ public class EventListResponse implements ParsedResponse {
     }
 
 
+    // Hand-written Gson adapter for this response (registered in ResponseGson, avoids reflection)
+    static final TypeAdapter<EventListResponse> ADAPTER = new ResponseGson.ResponseAdapter<EventListResponse>() {
+
+        @Override
+        public EventListResponse read(JsonReader in) throws IOException {
+
+            if ( ResponseGson.nextIsNull(in) )
+                return null;
+
+            EventListResponse response = new EventListResponse();
+
+            in.beginObject();
+            while ( in.hasNext() ) {
+                switch ( in.nextName() ) {
+                    case "result":  response.result = ResponseGson.nextString(in);  break;
+                    case "data":    response.data = readData(in, response);  break;
+                    default:        in.skipValue();  break;
+                }
+            }
+            in.endObject();
+
+            return response;
+        }
+    };
+
+    // Reads the 'data' field of the response (see ADAPTER)
+    private static EventListData readData(JsonReader in, EventListResponse outer) throws IOException {
+
+        if ( ResponseGson.nextIsNull(in) )
+            return null;
+
+        EventListData data = outer.new EventListData();
+
+        in.beginObject();
+        while ( in.hasNext() ) {
+            switch ( in.nextName() ) {
+                case "code":         data.errorCode = ResponseGson.nextString(in);  break;
+                case "description":  data.errorDescription = ResponseGson.nextString(in);  break;
+                case "total":        data.total = ResponseGson.nextInt(in);  break;
+                case "items":        data.items = readEventList(in);  break;
+                default:             in.skipValue();  break;
+            }
+        }
+        in.endObject();
+
+        return data;
+    }
+
+    // Reads the 'items' field of the response
+    private static List<EventDetailData> readEventList(JsonReader in) throws IOException {
+
+        if ( ResponseGson.nextIsNull(in) )
+            return null;
+
+        EventDetailResponse outer = new EventDetailResponse();
+        List<EventDetailData> items = new ArrayList<>();
+
+        in.beginArray();
+        while ( in.hasNext() )
+            items.add( EventDetailResponse.readData(in, outer) );
+        in.endArray();
+
+        return items;
+    }
+
+
     // Outputs the response data as a String (for debugging purposes)
     public String debugString() {
 
@@ -3,7 +3,11 @@ package io.keepcoding.pickandgol.manager.net.response;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
 
 import io.keepcoding.pickandgol.manager.net.ParsedData;
 import io.keepcoding.pickandgol.manager.net.ParsedResponse;
@@ -61,6 +65,55 @@ public class LinkEventPubResponse implements ParsedResponse {
     }
 
 
+    // Hand-written Gson adapter for this response (registered in ResponseGson, avoids reflection)
+    static final TypeAdapter<LinkEventPubResponse> ADAPTER = new ResponseGson.ResponseAdapter<LinkEventPubResponse>() {
+
+        @Override
+        public LinkEventPubResponse read(JsonReader in) throws IOException {
+
+            if ( ResponseGson.nextIsNull(in) )
+                return null;
+
+            LinkEventPubResponse response = new LinkEventPubResponse();
+
+            in.beginObject();
+            while ( in.hasNext() ) {
+                switch ( in.nextName() ) {
+                    case "result":  response.result = ResponseGson.nextString(in);  break;
+                    case "data":    response.data = readData(in, response);  break;
+                    default:        in.skipValue();  break;
+                }
+            }
+            in.endObject();
+
+            return response;
+        }
+    };
+
+    // Reads the 'data' field of the response (see ADAPTER)
+    private static LinkEventPubData readData(JsonReader in, LinkEventPubResponse outer) throws IOException {
+
+        if ( ResponseGson.nextIsNull(in) )
+            return null;
+
+        LinkEventPubData data = outer.new LinkEventPubData();
+
+        in.beginObject();
+        while ( in.hasNext() ) {
+            switch ( in.nextName() ) {
+                case "code":         data.errorCode = ResponseGson.nextString(in);  break;
+                case "description":  data.description = ResponseGson.nextString(in);  break;
+                case "pub":          data.pub = PubDetailResponse.readData(in, new PubDetailResponse());  break;
+                case "event":        data.event = EventDetailResponse.readData(in, new EventDetailResponse());  break;
+                default:             in.skipValue();  break;
+            }
+        }
+        in.endObject();
+
+        return data;
+    }
+
+
     // Outputs the response data as a String (for debugging purposes)
     public String debugString() {
 
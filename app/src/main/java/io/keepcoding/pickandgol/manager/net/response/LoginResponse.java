@@ -3,7 +3,11 @@ package io.keepcoding.pickandgol.manager.net.response;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
 
 import io.keepcoding.pickandgol.manager.net.ParsedData;
 import io.keepcoding.pickandgol.manager.net.ParsedResponse;
@@ -76,6 +80,58 @@ public class LoginResponse implements ParsedResponse {
     }
 
 
+    // Hand-written Gson adapter for this response (registered in ResponseGson, avoids reflection)
+    static final TypeAdapter<LoginResponse> ADAPTER = new ResponseGson.ResponseAdapter<LoginResponse>() {
+
+        @Override
+        public LoginResponse read(JsonReader in) throws IOException {
+
+            if ( ResponseGson.nextIsNull(in) )
+                return null;
+
+            LoginResponse response = new LoginResponse();
+
+            in.beginObject();
+            while ( in.hasNext() ) {
+                switch ( in.nextName() ) {
+                    case "result":  response.result = ResponseGson.nextString(in);  break;
+                    case "data":    response.data = readData(in, response);  break;
+                    default:        in.skipValue();  break;
+                }
+            }
+            in.endObject();
+
+            return response;
+        }
+    };
+
+    // Reads the 'data' field of the response (see ADAPTER)
+    private static LoginData readData(JsonReader in, LoginResponse outer) throws IOException {
+
+        if ( ResponseGson.nextIsNull(in) )
+            return null;
+
+        LoginData data = outer.new LoginData();
+
+        in.beginObject();
+        while ( in.hasNext() ) {
+            switch ( in.nextName() ) {
+                case "code":         data.errorCode = ResponseGson.nextString(in);  break;
+                case "description":  data.errorDescription = ResponseGson.nextString(in);  break;
+                case "id":           data.id = ResponseGson.nextString(in);  break;
+                case "email":        data.email = ResponseGson.nextString(in);  break;
+                case "name":         data.name = ResponseGson.nextString(in);  break;
+                case "token":        data.token = ResponseGson.nextString(in);  break;
+                case "photo_url":    data.photoUrl = ResponseGson.nextString(in);  break;
+                default:             in.skipValue();  break;
+            }
+        }
+        in.endObject();
+
+        return data;
+    }
+
+
     // Outputs the response data as a String (for debugging purposes)
     public String debugString() {
 
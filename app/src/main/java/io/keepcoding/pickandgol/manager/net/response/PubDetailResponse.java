@@ -3,8 +3,11 @@ package io.keepcoding.pickandgol.manager.net.response;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -110,6 +113,80 @@ public class PubDetailResponse implements ParsedResponse {
     }
 
 
+    // Hand-written Gson adapter for this response (registered in ResponseGson, avoids reflection)
+    static final TypeAdapter<PubDetailResponse> ADAPTER = new ResponseGson.ResponseAdapter<PubDetailResponse>() {
+
+        @Override
+        public PubDetailResponse read(JsonReader in) throws IOException {
+
+            if ( ResponseGson.nextIsNull(in) )
+                return null;
+
+            PubDetailResponse response = new PubDetailResponse();
+
+            in.beginObject();
+            while ( in.hasNext() ) {
+                switch ( in.nextName() ) {
+                    case "result":  response.result = ResponseGson.nextString(in);  break;
+                    case "data":    response.data = readData(in, response);  break;
+                    default:        in.skipValue();  break;
+                }
+            }
+            in.endObject();
+
+            return response;
+        }
+    };
+
+    // Reads the 'data' field of the response (see ADAPTER)
+    static PubDetailData readData(JsonReader in, PubDetailResponse outer) throws IOException {
+
+        if ( ResponseGson.nextIsNull(in) )
+            return null;
+
+        PubDetailData data = outer.new PubDetailData();
+
+        in.beginObject();
+        while ( in.hasNext() ) {
+            switch ( in.nextName() ) {
+                case "code":         data.errorCode = ResponseGson.nextString(in);  break;
+                case "description":  data.description = ResponseGson.nextString(in);  break;
+                case "_id":          data.id = ResponseGson.nextString(in);  break;
+                case "name":         data.name = ResponseGson.nextString(in);  break;
+                case "location":     data.location = readLocation(in, data);  break;
+                case "url":          data.url = ResponseGson.nextString(in);  break;
+                case "owner_id":     data.owner = ResponseGson.nextString(in);  break;
+                case "events":       data.events = ResponseGson.nextStringList(in);  break;
+                case "photos":       data.photos = ResponseGson.nextStringList(in);  break;
+                default:             in.skipValue();  break;
+            }
+        }
+        in.endObject();
+
+        return data;
+    }
+
+    // Reads the 'location' field of a pub
+    private static PubDetailData.Location readLocation(JsonReader in, PubDetailData pub) throws IOException {
+
+        if ( ResponseGson.nextIsNull(in) )
+            return null;
+
+        PubDetailData.Location location = pub.new Location();
+
+        in.beginObject();
+        while ( in.hasNext() ) {
+            if ( in.nextName().equals("coordinates") )
+                location.coordinates = ResponseGson.nextDoubleList(in);
+            else
+                in.skipValue();
+        }
+        in.endObject();
+
+        return location;
+    }
+
+
     // Outputs the response data as a String (for debugging purposes)
     public String debugString() {
 
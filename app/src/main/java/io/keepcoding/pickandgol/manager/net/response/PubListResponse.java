@@ -3,8 +3,12 @@ package io.keepcoding.pickandgol.manager.net.response;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import io.keepcoding.pickandgol.manager.net.ParsedData;
@@ -64,6 +68,72 @@ public class PubListResponse implements ParsedResponse {
     }
 
 
+    // Hand-written Gson adapter for this response (registered in ResponseGson, avoids reflection)
+    static final TypeAdapter<PubListResponse> ADAPTER = new ResponseGson.ResponseAdapter<PubListResponse>() {
+
+        @Override
+        public PubListResponse read(JsonReader in) throws IOException {
+
+            if ( ResponseGson.nextIsNull(in) )
+                return null;
+
+            PubListResponse response = new PubListResponse();
+
+            in.beginObject();
+            while ( in.hasNext() ) {
+                switch ( in.nextName() ) {
+                    case "result":  response.result = ResponseGson.nextString(in);  break;
+                    case "data":    response.data = readData(in, response);  break;
+                    default:        in.skipValue();  break;
+                }
+            }
+            in.endObject();
+
+            return response;
+        }
+    };
+
+    // Reads the 'data' field of the response (see ADAPTER)
+    private static PubListData readData(JsonReader in, PubListResponse outer) throws IOException {
+
+        if ( ResponseGson.nextIsNull(in) )
+            return null;
+
+        PubListData data = outer.new PubListData();
+
+        in.beginObject();
+        while ( in.hasNext() ) {
+            switch ( in.nextName() ) {
+                case "code":         data.errorCode = ResponseGson.nextString(in);  break;
+                case "description":  data.errorDescription = ResponseGson.nextString(in);  break;
+                case "total":        data.total = ResponseGson.nextInt(in);  break;
+                case "items":        data.items = readPubList(in);  break;
+                default:             in.skipValue();  break;
+            }
+        }
+        in.endObject();
+
+        return data;
+    }
+
+    // Reads the 'items' field of the response
+    private static List<PubDetailData> readPubList(JsonReader in) throws IOException {
+
+        if ( ResponseGson.nextIsNull(in) )
+            return null;
+
+        PubDetailResponse outer = new PubDetailResponse();
+        List<PubDetailData> items = new ArrayList<>();
+
+        in.beginArray();
+        while ( in.hasNext() )
+            items.add( PubDetailResponse.readData(in, outer) );
+        in.endArray();
+
+        return items;
+    }
+
+
     // Outputs the response data as a String (for debugging purposes)
     public String debugString() {
 
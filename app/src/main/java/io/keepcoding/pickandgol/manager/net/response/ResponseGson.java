@@ -0,0 +1,165 @@
+package io.keepcoding.pickandgol.manager.net.response;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.keepcoding.pickandgol.manager.net.ParsedResponse;
+
+import static io.keepcoding.pickandgol.manager.net.NetworkManagerSettings.JsonResponseType;
+
+
+/**
+ * This class provides the Gson instance shared by all the JSON response parsing operations.
+ *
+ * The instance is built only once, with a hand-written TypeAdapter registered for each
+ * JsonResponseType class (see the ADAPTER field of every response class), so parsing
+ * a response never needs to inspect the response classes through reflection.
+ *
+ * This class is abstract, and all its methods are static.
+ */
+public abstract class ResponseGson {
+
+    private static final Gson sharedGson = new GsonBuilder()
+            .registerTypeAdapter(LoginResponse.class, LoginResponse.ADAPTER)
+            .registerTypeAdapter(UserResponse.class, UserResponse.ADAPTER)
+            .registerTypeAdapter(EventListResponse.class, EventListResponse.ADAPTER)
+            .registerTypeAdapter(EventDetailResponse.class, EventDetailResponse.ADAPTER)
+            .registerTypeAdapter(PubListResponse.class, PubListResponse.ADAPTER)
+            .registerTypeAdapter(PubDetailResponse.class, PubDetailResponse.ADAPTER)
+            .registerTypeAdapter(CategoryListResponse.class, CategoryListResponse.ADAPTER)
+            .registerTypeAdapter(UserRegisterResponse.class, UserRegisterResponse.ADAPTER)
+            .registerTypeAdapter(LinkEventPubResponse.class, LinkEventPubResponse.ADAPTER)
+            .create();
+
+
+    /**
+     * Gets the shared Gson instance (it is thread-safe, so it can be used from any thread).
+     *
+     * @return the Gson instance to parse all the JSON responses.
+     */
+    public static @NonNull Gson get() {
+        return sharedGson;
+    }
+
+    /**
+     * Gets the class that represents a given response type.
+     *
+     * @param type  the expected response type.
+     * @return      the response class for that type, or null if the type is unknown.
+     */
+    public static @Nullable Class<? extends ParsedResponse> getResponseClass(JsonResponseType type) {
+
+        if (type == null)
+            return null;
+
+        switch (type) {
+            case LOGIN:             return LoginResponse.class;
+            case USER:              return UserResponse.class;
+            case EVENT_LIST:        return EventListResponse.class;
+            case EVENT_DETAIL:      return EventDetailResponse.class;
+            case PUB_LIST:          return PubListResponse.class;
+            case PUB_DETAIL:        return PubDetailResponse.class;
+            case CATEGORY_LIST:     return CategoryListResponse.class;
+            case REGISTER:          return UserRegisterResponse.class;
+            case LINK_EVENT_PUB:    return LinkEventPubResponse.class;
+            default:                return null;
+        }
+    }
+
+
+    /**
+     * Base class for the response adapters: responses are read by hand, and written through
+     * reflection (writing a response is never part of a network operation, so speed does not
+     * matter there). The fields keep their @SerializedName, so the output is the JSON it reads.
+     */
+    static abstract class ResponseAdapter<T> extends TypeAdapter<T> {
+
+        // A plain Gson, without the response adapters (so writing a response does not get back here)
+        private static final Gson reflectiveGson = new Gson();
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            reflectiveGson.toJson(value, value.getClass(), out);
+        }
+    }
+
+
+    // Auxiliary read methods used by the adapters
+    // (they accept the same input Gson would accept for a field of the same type)
+
+    // Returns true (and consumes the token) if the next value is null
+    static boolean nextIsNull(JsonReader in) throws IOException {
+
+        if (in.peek() != JsonToken.NULL)
+            return false;
+
+        in.nextNull();
+        return true;
+    }
+
+    static @Nullable String nextString(JsonReader in) throws IOException {
+
+        if ( nextIsNull(in) )
+            return null;
+
+        if (in.peek() == JsonToken.BOOLEAN)
+            return Boolean.toString( in.nextBoolean() );
+
+        return in.nextString();
+    }
+
+    static int nextInt(JsonReader in) throws IOException {
+
+        if ( nextIsNull(in) )
+            return 0;
+
+        return in.nextInt();
+    }
+
+    static @Nullable List<String> nextStringList(JsonReader in) throws IOException {
+
+        if ( nextIsNull(in) )
+            return null;
+
+        List<String> list = new ArrayList<>();
+
+        in.beginArray();
+        while ( in.hasNext() )
+            list.add( nextString(in) );
+        in.endArray();
+
+        return list;
+    }
+
+    static @Nullable List<Double> nextDoubleList(JsonReader in) throws IOException {
+
+        if ( nextIsNull(in) )
+            return null;
+
+        List<Double> list = new ArrayList<>();
+
+        in.beginArray();
+        while ( in.hasNext() )
+            list.add( nextIsNull(in) ? null : in.nextDouble() );
+        in.endArray();
+
+        return list;
+    }
+}
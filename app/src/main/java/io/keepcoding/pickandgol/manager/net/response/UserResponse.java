@@ -3,8 +3,11 @@ package io.keepcoding.pickandgol.manager.net.response;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
 
+import java.io.IOException;
 import java.util.List;
 
 import io.keepcoding.pickandgol.manager.net.ParsedData;
@@ -78,6 +81,58 @@ public class UserResponse implements ParsedResponse {
     }
 
 
+    // Hand-written Gson adapter for this response (registered in ResponseGson, avoids reflection)
+    static final TypeAdapter<UserResponse> ADAPTER = new ResponseGson.ResponseAdapter<UserResponse>() {
+
+        @Override
+        public UserResponse read(JsonReader in) throws IOException {
+
+            if ( ResponseGson.nextIsNull(in) )
+                return null;
+
+            UserResponse response = new UserResponse();
+
+            in.beginObject();
+            while ( in.hasNext() ) {
+                switch ( in.nextName() ) {
+                    case "result":  response.result = ResponseGson.nextString(in);  break;
+                    case "data":    response.data = readData(in, response);  break;
+                    default:        in.skipValue();  break;
+                }
+            }
+            in.endObject();
+
+            return response;
+        }
+    };
+
+    // Reads the 'data' field of the response (see ADAPTER)
+    private static UserData readData(JsonReader in, UserResponse outer) throws IOException {
+
+        if ( ResponseGson.nextIsNull(in) )
+            return null;
+
+        UserData data = outer.new UserData();
+
+        in.beginObject();
+        while ( in.hasNext() ) {
+            switch ( in.nextName() ) {
+                case "code":           data.errorCode = ResponseGson.nextString(in);  break;
+                case "description":    data.errorDescription = ResponseGson.nextString(in);  break;
+                case "_id":            data.id = ResponseGson.nextString(in);  break;
+                case "email":          data.email = ResponseGson.nextString(in);  break;
+                case "name":           data.name = ResponseGson.nextString(in);  break;
+                case "favorite_pubs":  data.favoritePubs = ResponseGson.nextStringList(in);  break;
+                case "photo_url":      data.photoUrl = ResponseGson.nextString(in);  break;
+                default:               in.skipValue();  break;
+            }
+        }
+        in.endObject();
+
+        return data;
+    }
+
+
     // Outputs the response data as a String (for debugging purposes)
     public String debugString() {
 
@@ -4,6 +4,9 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import java.io.Serializable;
+import java.util.Locale;
+
+import io.keepcoding.pickandgol.manager.net.BandwidthPolicy;
 
 
 /**
@@ -12,7 +15,6 @@ import java.io.Serializable;
  */
 public class EventSearchParams implements Serializable {
 
-    private static Integer DEFAULT_LIMIT = 20;
     private static Integer DEFAULT_RADIUS = 5;
 
 
@@ -53,7 +55,7 @@ public class EventSearchParams implements Serializable {
         this.categoryId = categoryId;
         this.radiusKm = radiusKm;
         this.offset = offset;
-        this.limit = DEFAULT_LIMIT;
+        this.limit = BandwidthPolicy.getSearchPageSize();     // smaller pages on metered connections
         this.latitude = latitude;
         this.longitude = longitude;
     }
@@ -69,6 +71,21 @@ public class EventSearchParams implements Serializable {
         return new EventSearchParams(null, null, null, DEFAULT_RADIUS, 0, null, null);
     }
 
+    /**
+     * Creates a copy of this search parameter set, that can be modified without affecting this one
+     * (useful to request several pages of results of the same search at the same time).
+     *
+     * @return a new event search filter set, with the same values as this one.
+     */
+    public @NonNull EventSearchParams copy() {
+
+        EventSearchParams copy = new EventSearchParams(pubId, keyWords, categoryId, radiusKm,
+                                                       offset, latitude, longitude);
+        copy.limit = limit;
+
+        return copy;
+    }
+
 
     // Getters:
 
@@ -117,4 +134,46 @@ public class EventSearchParams implements Serializable {
         this.longitude = longitude;
         return this;
     }
+
+
+    /**
+     * Builds a key that identifies the results of this search, to use in the local search cache.
+     *
+     * Searches expected to get the same results from the server get the same key:
+     * key words are trimmed and lower-cased, and the location is ignored if no radius is set
+     * (it is not sent then) or rounded to ~100 meters otherwise.
+     * The page size is not part of the key, since it changes with the type of connection
+     * (the cached page is trimmed to the current page size when it is used).
+     *
+     * @return the normalized key of this search.
+     */
+    public @NonNull String getCacheKey() {
+
+        return "events"
+                + "|pub=" + normalize(pubId)
+                + "|text=" + normalize(keyWords)
+                + "|category=" + normalize(categoryId)
+                + "|location=" + normalizeLocation(latitude, longitude, radiusKm)
+                + "|offset=" + (offset != null ? offset : 0);
+    }
+
+
+    // Auxiliary methods:
+
+    private static String normalize(@Nullable String value) {
+
+        if (value == null)
+            return "";
+
+        return value.trim().toLowerCase(Locale.US);
+    }
+
+    private static String normalizeLocation(@Nullable Double latitude, @Nullable Double longitude,
+                                            @Nullable Integer radiusKm) {
+
+        if (latitude == null || longitude == null || radiusKm == null || radiusKm <= 0)
+            return "";
+
+        return String.format(Locale.US, "%.3f,%.3f,%d", latitude, longitude, radiusKm);
+    }
 }
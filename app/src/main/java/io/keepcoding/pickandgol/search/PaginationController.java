@@ -0,0 +1,246 @@
+package io.keepcoding.pickandgol.search;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * This class loads the pages of results of a search in advance, so that they are already
+ * available (or at least on their way) when the user scrolls to the end of the list.
+ *
+ * As soon as a page is shown, the next ones (up to the look-ahead size) are requested and kept
+ * in a buffer. Each offset is requested only once at a time, and the responses of a previous
+ * search (after calling start() or stop() again) are discarded.
+ *
+ * All its methods must be called from the main thread, and the page loader must also return
+ * its results in the main thread.
+ */
+public class PaginationController<P> {
+
+    private final static String LOG_TAG = "PaginationController";
+
+    public static final int DEFAULT_LOOK_AHEAD_PAGES = 2;
+
+
+    // This interface describes the behavior of an object that can load one page of results
+    // (it should work on a copy of the search params, so that several pages can be loaded at a time)
+    public interface PageLoader<P> {
+        void loadPage(int offset, @NonNull PageLoaderListener<P> listener);
+    }
+
+    // This interface describes the behavior of a listener waiting for a page to be loaded
+    public interface PageLoaderListener<P> {
+        void onPageLoaded(@NonNull P page);
+        void onPageLoadFail(Exception e);
+    }
+
+    // This interface describes the behavior of the object that shows the pages, in order
+    public interface PageConsumer<P> {
+        void onNextPageReady(@NonNull P page);
+        void onNextPageFail(Exception e);
+    }
+
+
+    private final PageLoader<P> loader;
+    private final PageConsumer<P> consumer;
+    private final int lookAheadPages;
+
+    private int pageSize;
+    private int totalResults;
+    private int nextOffset;                     // offset of the next page to show
+    private boolean waitingForNextPage;         // the consumer asked for a page that is not ready yet
+    private int generation;                     // changes on every start/stop, to discard old responses
+
+    private final Map<Integer, P> readyPages;   // pages already loaded, by offset
+    private final Set<Integer> pendingOffsets;  // pages requested but not loaded yet
+
+
+    /**
+     * Creates a new controller, using the default look-ahead size.
+     *
+     * @param loader    the object that loads each page.
+     * @param consumer  the object that will receive the pages, in order.
+     */
+    public PaginationController(@NonNull PageLoader<P> loader, @NonNull PageConsumer<P> consumer) {
+
+        this(loader, consumer, DEFAULT_LOOK_AHEAD_PAGES);
+    }
+
+    /**
+     * Creates a new controller.
+     *
+     * @param loader            the object that loads each page.
+     * @param consumer          the object that will receive the pages, in order.
+     * @param lookAheadPages    number of pages to keep loaded (or loading) after the last one shown.
+     */
+    public PaginationController(@NonNull PageLoader<P> loader, @NonNull PageConsumer<P> consumer,
+                                int lookAheadPages) {
+
+        this.loader = loader;
+        this.consumer = consumer;
+        this.lookAheadPages = Math.max(1, lookAheadPages);
+
+        readyPages = new HashMap<>();
+        pendingOffsets = new HashSet<>();
+        generation = 0;
+        stop();
+    }
+
+
+    /**
+     * Starts paginating a new search (discarding the pages of the previous one, if any),
+     * and begins to load the next pages right away.
+     *
+     * @param nextOffset    offset of the next page to show (i.e. the number of results already shown).
+     * @param pageSize      number of results per page.
+     * @param totalResults  total number of results of the search.
+     */
+    public void start(int nextOffset, int pageSize, int totalResults) {
+
+        stop();
+
+        this.nextOffset = nextOffset;
+        this.pageSize = Math.max(1, pageSize);
+        this.totalResults = totalResults;
+
+        prefetch();
+    }
+
+    /**
+     * Updates the total number of results of the current search (i.e. when the first page shown is
+     * replaced with a fresher one of the same size), keeping the pages already loaded.
+     * If there are more results now, begins to load the next pages right away.
+     *
+     * @param totalResults  total number of results of the search.
+     */
+    public void updateTotalResults(int totalResults) {
+
+        this.totalResults = totalResults;
+
+        prefetch();
+    }
+
+    /**
+     * Stops paginating the current search, the pages being loaded will be discarded when they arrive.
+     */
+    public void stop() {
+
+        generation++;
+        readyPages.clear();
+        pendingOffsets.clear();
+        waitingForNextPage = false;
+
+        nextOffset = 0;
+        totalResults = 0;
+    }
+
+    /**
+     * Asks for the next page of results. If it is already loaded, it is passed to the consumer
+     * right away. If not, it will be passed as soon as it arrives.
+     * If there are no more pages, does nothing.
+     */
+    public void requestNextPage() {
+
+        if ( !hasMorePages() || waitingForNextPage )
+            return;
+
+        P page = readyPages.remove(nextOffset);
+
+        if (page != null) {
+            showPage(page);
+            return;
+        }
+
+        Log.d(LOG_TAG, "Page at offset "+ nextOffset +" is not ready yet, waiting for it...");
+
+        waitingForNextPage = true;
+        loadPage(nextOffset);
+    }
+
+    /**
+     * Tells if there are pages of results not shown yet.
+     *
+     * @return true if there are more pages to show, false otherwise.
+     */
+    public boolean hasMorePages() {
+        return nextOffset < totalResults;
+    }
+
+
+    // Auxiliary methods:
+
+    // Passes a page to the consumer, then keeps loading the following ones
+    private void showPage(@NonNull P page) {
+
+        nextOffset += pageSize;
+        consumer.onNextPageReady(page);
+
+        prefetch();
+    }
+
+    // Loads the pages after the last one shown, up to the look-ahead size (if not loaded yet)
+    private void prefetch() {
+
+        for (int i = 0; i < lookAheadPages; i++) {
+
+            int offset = nextOffset + i * pageSize;
+            if (offset >= totalResults)
+                break;
+
+            if ( !readyPages.containsKey(offset) )
+                loadPage(offset);
+        }
+    }
+
+    // Requests the page at the given offset, unless it was already requested
+    private void loadPage(final int offset) {
+
+        if ( pendingOffsets.contains(offset) )
+            return;
+
+        pendingOffsets.add(offset);
+
+        final int requestGeneration = generation;
+
+        loader.loadPage(offset, new PageLoaderListener<P>() {
+
+            @Override
+            public void onPageLoaded(@NonNull P page) {
+
+                if (requestGeneration != generation)
+                    return;
+
+                pendingOffsets.remove(offset);
+
+                if (waitingForNextPage && offset == nextOffset) {
+                    waitingForNextPage = false;
+                    showPage(page);
+                }
+                else {
+                    readyPages.put(offset, page);
+                }
+            }
+
+            @Override
+            public void onPageLoadFail(Exception e) {
+
+                if (requestGeneration != generation)
+                    return;
+
+                pendingOffsets.remove(offset);
+
+                // Failed prefetches are just forgotten (they will be requested again when needed),
+                // only the page the consumer is waiting for reports the error
+                if (waitingForNextPage && offset == nextOffset) {
+                    waitingForNextPage = false;
+                    consumer.onNextPageFail(e);
+                }
+            }
+        });
+    }
+}
@@ -4,6 +4,9 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import java.io.Serializable;
+import java.util.Locale;
+
+import io.keepcoding.pickandgol.manager.net.BandwidthPolicy;
 
 
 /**
@@ -12,7 +15,6 @@ import java.io.Serializable;
  */
 public class PubSearchParams implements Serializable {
 
-    private static Integer DEFAULT_LIMIT = 20;
     private static Integer DEFAULT_RADIUS = 5;
 
 
@@ -54,7 +56,7 @@ public class PubSearchParams implements Serializable {
         this.keyWords = keyWords;
         this.radiusKm = radiusKm;
         this.offset = offset;
-        this.limit = DEFAULT_LIMIT;
+        this.limit = BandwidthPolicy.getSearchPageSize();     // smaller pages on metered connections
         this.latitude = latitude;
         this.longitude = longitude;
         this.useCurrentLocation = useCurrentLocation;
@@ -72,6 +74,22 @@ public class PubSearchParams implements Serializable {
         return new PubSearchParams(null, null, DEFAULT_RADIUS, 0, null, null, true);
     }
 
+    /**
+     * Creates a copy of this search parameter set, that can be modified without affecting this one
+     * (useful to request several pages of results of the same search at the same time).
+     *
+     * @return a new pub search filter set, with the same values as this one.
+     */
+    public @NonNull PubSearchParams copy() {
+
+        PubSearchParams copy = new PubSearchParams(sort, keyWords, radiusKm, offset,
+                                                   latitude, longitude, useCurrentLocation);
+        copy.limit = limit;
+        copy.eventId = eventId;
+
+        return copy;
+    }
+
 
     // Getters:
 
@@ -128,4 +146,46 @@ public class PubSearchParams implements Serializable {
         this.eventId = eventId;
         return this;
     }
+
+
+    /**
+     * Builds a key that identifies the results of this search, to use in the local search cache.
+     *
+     * Searches expected to get the same results from the server get the same key:
+     * key words are trimmed and lower-cased, and the location is ignored if no radius is set
+     * (it is not sent then) or rounded to ~100 meters otherwise.
+     * The page size is not part of the key, since it changes with the type of connection
+     * (the cached page is trimmed to the current page size when it is used).
+     *
+     * @return the normalized key of this search.
+     */
+    public @NonNull String getCacheKey() {
+
+        return "pubs"
+                + "|sort=" + normalize(sort)
+                + "|text=" + normalize(keyWords)
+                + "|event=" + normalize(eventId)
+                + "|location=" + normalizeLocation(latitude, longitude, radiusKm)
+                + "|offset=" + (offset != null ? offset : 0);
+    }
+
+
+    // Auxiliary methods:
+
+    private static String normalize(@Nullable String value) {
+
+        if (value == null)
+            return "";
+
+        return value.trim().toLowerCase(Locale.US);
+    }
+
+    private static String normalizeLocation(@Nullable Double latitude, @Nullable Double longitude,
+                                            @Nullable Integer radiusKm) {
+
+        if (latitude == null || longitude == null || radiusKm == null || radiusKm <= 0)
+            return "";
+
+        return String.format(Locale.US, "%.3f,%.3f,%d", latitude, longitude, radiusKm);
+    }
 }
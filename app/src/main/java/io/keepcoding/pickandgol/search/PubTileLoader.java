@@ -0,0 +1,322 @@
+package io.keepcoding.pickandgol.search;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.keepcoding.pickandgol.interactor.SearchPubsInteractor;
+import io.keepcoding.pickandgol.model.Pub;
+import io.keepcoding.pickandgol.model.PubAggregate;
+
+
+/**
+ * This class loads the pubs shown in the visible area of a map, tile by tile.
+ *
+ * The world is divided in fixed square tiles (the Mercator tiles at TILE_ZOOM), and the pubs of each
+ * tile are requested with a search around its center. The results of each tile are kept in memory
+ * (the least recently used ones are evicted after TILE_CACHE_SIZE tiles), so when the map is moved
+ * only the tiles never seen before go to the network.
+ *
+ * If a tile has more results than TILE_MAX_PAGES pages, it is split in its four child tiles (the tiles
+ * at the next zoom level), that are loaded instead, down to MAX_SPLIT_ZOOM (where all the pages are
+ * loaded). So a tile in memory always has all its pubs.
+ *
+ * All its methods must be called from the main thread.
+ */
+public class PubTileLoader {
+
+    private final static String LOG_TAG = "PubTileLoader";
+
+    // Zoom level of the tiles (at zoom 11, each tile is ~20km wide at the equator, less towards the poles)
+    public static final int TILE_ZOOM = 11;
+
+    // Below this camera zoom, the visible area has too many tiles and nothing is loaded
+    // (at TILE_ZOOM, each tile is 256dp wide on screen, so a phone screen shows only a few of them)
+    public static final int MIN_LOADING_ZOOM = TILE_ZOOM;
+
+    // Maximum number of tiles kept in memory
+    public static final int TILE_CACHE_SIZE = 64;
+
+    // Maximum number of pages of results requested for each tile (if it has more, it is split)
+    public static final int TILE_MAX_PAGES = 5;
+
+    // Tiles at this zoom are never split, all their pages are requested (each tile is ~1.2km wide)
+    public static final int MAX_SPLIT_ZOOM = 15;
+
+    private static final double EARTH_RADIUS_KM = 6371;
+
+
+    // This interface describes the behavior of the object that shows the pubs of each tile
+    public interface PubTileLoaderListener {
+        void onTilePubsReady(@NonNull List<Pub> pubs);
+        void onTileLoadFail(Exception e);
+    }
+
+
+    private final Context context;
+    private final PubSearchParams baseParams;
+    private final PubTileLoaderListener listener;
+
+    private final LruCache<String, List<Pub>> tileCache;   // pubs of each tile already loaded, by tile key
+    private final Set<String> pendingTiles;                 // tiles being loaded
+    private final Set<String> splitTiles;                   // tiles with too many pubs, loaded by their children
+    private int generation;                                 // changes on every clear, to discard old responses
+
+
+    /**
+     * Creates a new loader.
+     *
+     * @param context       context for the search operations.
+     * @param baseParams    params of the search (i.e. the event id), its location and offset are
+     *                      replaced for each tile.
+     * @param listener      the object that will receive the pubs of each tile.
+     */
+    public PubTileLoader(@NonNull Context context, @NonNull PubSearchParams baseParams,
+                         @NonNull PubTileLoaderListener listener) {
+
+        this.context = context;
+        this.baseParams = baseParams.copy();
+        this.listener = listener;
+
+        tileCache = new LruCache<>(TILE_CACHE_SIZE);
+        pendingTiles = new HashSet<>();
+        splitTiles = new HashSet<>();
+        generation = 0;
+    }
+
+
+    /**
+     * Loads the pubs of all the tiles in the given area: the pubs of the tiles already in memory
+     * are passed to the listener right away (in a single call), and the rest of tiles are requested
+     * to the server (the listener is called once for each of them, when it arrives).
+     *
+     * @param visibleBounds the area currently shown on the map.
+     * @param cameraZoom    the current zoom of the map.
+     */
+    public void loadArea(@NonNull LatLngBounds visibleBounds, float cameraZoom) {
+
+        if (cameraZoom < MIN_LOADING_ZOOM)
+            return;
+
+        int tiles = 1 << TILE_ZOOM;
+
+        int minX = getTileX(visibleBounds.southwest.longitude, tiles);
+        int maxX = getTileX(visibleBounds.northeast.longitude, tiles);
+        int minY = getTileY(visibleBounds.northeast.latitude, tiles);
+        int maxY = getTileY(visibleBounds.southwest.latitude, tiles);
+
+        // The visible area may cross the antimeridian
+        if (maxX < minX)
+            maxX += tiles;
+
+        List<Pub> cachedPubs = new ArrayList<>();
+        int requestedTiles = 0;
+
+        for (int x = minX; x <= maxX; x++)
+            for (int y = minY; y <= maxY; y++)
+                requestedTiles += collectTile(TILE_ZOOM, x % tiles, y, cachedPubs);
+
+        Log.d(LOG_TAG, "Loading area: "+ cachedPubs.size() +" pubs in memory, "+ requestedTiles +" tiles requested, "
+                + pendingTiles.size() +" pending");
+
+        if (cachedPubs.size() > 0)
+            listener.onTilePubsReady(cachedPubs);
+    }
+
+    /**
+     * Forgets all the tiles in memory, and discards the ones being loaded when they arrive.
+     */
+    public void clear() {
+
+        generation++;
+        tileCache.evictAll();
+        pendingTiles.clear();
+        splitTiles.clear();
+    }
+
+
+    // Auxiliary methods:
+
+    // Adds the pubs of a tile (or of its child tiles, if it was split) to the list if they are in memory,
+    // and requests the ones that are not. Returns the number of tiles requested.
+    private int collectTile(int zoom, int tileX, int tileY, @NonNull List<Pub> cachedPubs) {
+
+        String tileKey = getTileKey(zoom, tileX, tileY);
+
+        if ( splitTiles.contains(tileKey) ) {
+
+            int requestedTiles = 0;
+            for (int i = 0; i < 4; i++)
+                requestedTiles += collectTile(zoom + 1, 2 * tileX + i % 2, 2 * tileY + i / 2, cachedPubs);
+
+            return requestedTiles;
+        }
+
+        List<Pub> tilePubs = tileCache.get(tileKey);
+
+        if (tilePubs != null) {
+            cachedPubs.addAll(tilePubs);
+            return 0;
+        }
+
+        return loadTile(zoom, tileX, tileY) ? 1 : 0;
+    }
+
+    // Requests the pubs of a tile, unless it is already being loaded. Returns true if it was requested.
+    private boolean loadTile(int zoom, int tileX, int tileY) {
+
+        final String tileKey = getTileKey(zoom, tileX, tileY);
+        int tiles = 1 << zoom;
+
+        if ( pendingTiles.contains(tileKey) )
+            return false;
+
+        pendingTiles.add(tileKey);
+
+        // Search around the center of the tile, far enough to reach its corners
+        double north = getTileLatitude(tileY, tiles);
+        double south = getTileLatitude(tileY + 1, tiles);
+        double west = getTileLongitude(tileX, tiles);
+        double east = getTileLongitude(tileX + 1, tiles);
+
+        final LatLngBounds tileBounds = new LatLngBounds(new LatLng(south, west), new LatLng(north, east));
+        LatLng center = tileBounds.getCenter();
+        int radiusKm = (int) Math.ceil( getDistanceKm(center, tileBounds.northeast) );
+
+        PubSearchParams tileParams = new PubSearchParams(baseParams.getSort(), baseParams.getKeyWords(),
+                                                         Math.max(1, radiusKm), 0,
+                                                         center.latitude, center.longitude, false);
+        tileParams.setEventId( baseParams.getEventId() );
+
+        loadTilePage(zoom, tileX, tileY, tileBounds, tileParams, new ArrayList<Pub>(), generation);
+        return true;
+    }
+
+    // Requests one page of results of a tile, and the next ones until all the pubs are loaded.
+    // Then stores the tile and passes it to the listener. If the tile has more results than
+    // TILE_MAX_PAGES pages, it is split and its child tiles are loaded instead.
+    private void loadTilePage(final int zoom,
+                              final int tileX,
+                              final int tileY,
+                              final @NonNull LatLngBounds tileBounds,
+                              final @NonNull PubSearchParams tileParams,
+                              final @NonNull List<Pub> tilePubs,
+                              final int requestGeneration) {
+
+        final String tileKey = getTileKey(zoom, tileX, tileY);
+
+        new SearchPubsInteractor().execute(context, tileParams, new SearchPubsInteractor.SearchPubsInteractorListener() {
+
+            @Override
+            public void onSearchPubsFail(Exception e) {
+
+                if (requestGeneration != generation)
+                    return;
+
+                // The tile will be requested again the next time it is visible
+                pendingTiles.remove(tileKey);
+                listener.onTileLoadFail(e);
+            }
+
+            @Override
+            public void onSearchPubsSuccess(PubAggregate pubs) {
+
+                if (requestGeneration != generation)
+                    return;
+
+                // Too many pubs for a tile, load its child tiles instead (so no tile is stored incomplete)
+                int maxTileResults = TILE_MAX_PAGES * tileParams.getLimit();
+
+                if (zoom < MAX_SPLIT_ZOOM && pubs.getTotalResults() > maxTileResults) {
+                    Log.d(LOG_TAG, "Tile "+ tileKey +" has "+ pubs.getTotalResults() +" results, splitting it");
+
+                    pendingTiles.remove(tileKey);
+                    splitTiles.add(tileKey);
+
+                    for (int i = 0; i < 4; i++)
+                        loadTile(zoom + 1, 2 * tileX + i % 2, 2 * tileY + i / 2);
+
+                    return;
+                }
+
+                // The search area is a circle around the tile, keep only the pubs inside it
+                // (so that each pub belongs to a single tile)
+                for (Pub pub : pubs.getAll())
+                    if ( pub.hasLocation() && tileBounds.contains(new LatLng(pub.getLatitude(), pub.getLongitude())) )
+                        tilePubs.add(pub);
+
+                int nextOffset = tileParams.getOffset() + tileParams.getLimit();
+                boolean lastPage = pubs.size() == 0 || nextOffset >= pubs.getTotalResults();
+
+                if ( !lastPage ) {
+                    tileParams.setOffset(nextOffset);
+                    loadTilePage(zoom, tileX, tileY, tileBounds, tileParams, tilePubs, requestGeneration);
+                    return;
+                }
+
+                pendingTiles.remove(tileKey);
+                tileCache.put(tileKey, tilePubs);
+
+                if (tilePubs.size() > 0)
+                    listener.onTilePubsReady(tilePubs);
+            }
+        });
+    }
+
+    private static @NonNull String getTileKey(int zoom, int tileX, int tileY) {
+        return zoom +"/"+ tileX +"/"+ tileY;
+    }
+
+    // Gets the horizontal index of the tile that contains the given longitude
+    private static int getTileX(double longitude, int tiles) {
+
+        int tileX = (int) Math.floor( (longitude + 180) / 360 * tiles );
+        return Math.min(Math.max(tileX, 0), tiles - 1);
+    }
+
+    // Gets the vertical index of the tile that contains the given latitude (Mercator projection)
+    private static int getTileY(double latitude, int tiles) {
+
+        double sinLatitude = Math.sin( Math.toRadians(latitude) );
+        sinLatitude = Math.min(Math.max(sinLatitude, -0.9999), 0.9999);
+
+        double worldY = 0.5 - Math.log( (1 + sinLatitude) / (1 - sinLatitude) ) / (4 * Math.PI);
+
+        int tileY = (int) Math.floor(worldY * tiles);
+        return Math.min(Math.max(tileY, 0), tiles - 1);
+    }
+
+    // Gets the longitude of the west edge of a tile
+    private static double getTileLongitude(int tileX, int tiles) {
+        return (double) tileX / tiles * 360 - 180;
+    }
+
+    // Gets the latitude of the north edge of a tile (Mercator projection)
+    private static double getTileLatitude(int tileY, int tiles) {
+
+        double n = Math.PI - 2 * Math.PI * tileY / tiles;
+        return Math.toDegrees( Math.atan(Math.sinh(n)) );
+    }
+
+    // Gets the distance (in km) between two locations (haversine formula)
+    private static double getDistanceKm(@NonNull LatLng from, @NonNull LatLng to) {
+
+        double dLat = Math.toRadians(to.latitude - from.latitude);
+        double dLon = Math.toRadians(to.longitude - from.longitude);
+
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                 + Math.cos(Math.toRadians(from.latitude)) * Math.cos(Math.toRadians(to.latitude))
+                 * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+
+        return 2 * EARTH_RADIUS_KM * Math.asin( Math.sqrt(a) );
+    }
+}
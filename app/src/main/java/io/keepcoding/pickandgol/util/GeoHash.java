@@ -0,0 +1,195 @@
+package io.keepcoding.pickandgol.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * This class provides the geohash operations used to index locations in the local database.
+ *
+ * A geohash divides the world in a grid of cells, and the longer the hash the smaller the cell
+ * (at precision 5, each cell is ~4.9km x 4.9km at the equator). Storing the geohash of each location
+ * in an indexed column allows to find all the locations in an area with an equality (IN) query on the
+ * cells that cover it, instead of checking every location.
+ *
+ * It does not depend on the Android framework, so it can be used in local unit tests.
+ * This class is abstract, and all its methods are static.
+ */
+public abstract class GeoHash {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final double EARTH_RADIUS_KM = 6371;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+
+    /**
+     * Gets the geohash of a location.
+     *
+     * @param latitude  latitude of the location.
+     * @param longitude longitude of the location.
+     * @param precision number of characters of the hash (from 1 to 12).
+     * @return          the geohash of the cell that contains the location.
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;     // bits alternate: longitude, latitude, longitude...
+        int bit = 0, character = 0;
+
+        while (hash.length() < precision) {
+
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid)   {   character = (character << 1) | 1;   minLon = mid;   }
+                else                    {   character = character << 1;         maxLon = mid;   }
+            }
+            else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid)    {   character = (character << 1) | 1;   minLat = mid;   }
+                else                    {   character = character << 1;         maxLat = mid;   }
+            }
+
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                hash.append( BASE32.charAt(character) );
+                bit = 0;
+                character = 0;
+            }
+        }
+
+        return hash.toString();
+    }
+
+    /**
+     * Gets the geohashes of all the cells that cover an area.
+     *
+     * @param south     latitude of the south edge of the area.
+     * @param west      longitude of the west edge of the area.
+     * @param north     latitude of the north edge of the area.
+     * @param east      longitude of the east edge of the area (if lower than west, the area crosses the antimeridian).
+     * @param precision number of characters of the hashes.
+     * @param maxCells  maximum number of cells to return.
+     * @return          the geohashes of the cells, or null if the area needs more than maxCells cells.
+     */
+    public static List<String> getCellsInArea(double south, double west, double north, double east,
+                                              int precision, int maxCells) {
+
+        // Size of a cell at this precision (longitude gets the extra bit when the number of bits is odd)
+        int bits = 5 * precision;
+        double cellHeight = 180 / Math.pow(2, bits / 2);
+        double cellWidth = 360 / Math.pow(2, bits - bits / 2);
+
+        south = Math.max(south, -90);
+        north = Math.min(north, 90);
+
+        double width = (east >= west) ? (east - west) : (east + 360 - west);
+        long rows = (long) Math.floor((north + 90) / cellHeight) - (long) Math.floor((south + 90) / cellHeight) + 1;
+        long columns = (long) Math.floor(width / cellWidth) + 2;
+
+        if (rows * columns > maxCells)
+            return null;
+
+        Set<String> cells = new LinkedHashSet<>();
+
+        // Walk the area from corner to corner, one cell at a time (plus the edges, that may fall on a new cell)
+        for (double lat = south; ; lat += cellHeight) {
+
+            double rowLat = Math.min(lat, north);
+
+            for (double offset = 0; ; offset += cellWidth) {
+
+                double columnOffset = Math.min(offset, width);
+                cells.add( encode(rowLat, normalizeLongitude(west + columnOffset), precision) );
+
+                if (columnOffset >= width)
+                    break;
+            }
+
+            if (rowLat >= north)
+                break;
+        }
+
+        if (cells.size() > maxCells)
+            return null;
+
+        return new ArrayList<>(cells);
+    }
+
+    /**
+     * Gets the area that contains a circle (as south, west, north, east).
+     *
+     * @param latitude  latitude of the center of the circle.
+     * @param longitude longitude of the center of the circle.
+     * @param radiusKm  radius of the circle, in km.
+     * @return          the bounds of the area (east is lower than west if it crosses the antimeridian).
+     */
+    public static double[] getAreaAround(double latitude, double longitude, double radiusKm) {
+
+        double latDelta = radiusKm / KM_PER_DEGREE;
+        double south = Math.max(latitude - latDelta, -90);
+        double north = Math.min(latitude + latDelta, 90);
+
+        // Near the poles the circle covers all the longitudes
+        double cosLatitude = Math.cos( Math.toRadians(Math.max(Math.abs(south), Math.abs(north))) );
+        double lonDelta = (cosLatitude > 0) ? radiusKm / (KM_PER_DEGREE * cosLatitude) : 180;
+
+        if (lonDelta >= 180)
+            return new double[] {south, -180, north, 180};
+
+        return new double[] {south, normalizeLongitude(longitude - lonDelta),
+                             north, normalizeLongitude(longitude + lonDelta)};
+    }
+
+    /**
+     * Tells if a location is inside an area.
+     *
+     * @return true if the location is inside the area (or on its edges), false otherwise.
+     */
+    public static boolean isInArea(double latitude, double longitude,
+                                   double south, double west, double north, double east) {
+
+        if (latitude < south || latitude > north)
+            return false;
+
+        if (west <= east)
+            return longitude >= west && longitude <= east;
+
+        return longitude >= west || longitude <= east;
+    }
+
+    /**
+     * Gets the distance between two locations (haversine formula).
+     *
+     * @return the distance, in km.
+     */
+    public static double getDistanceKm(double fromLatitude, double fromLongitude,
+                                       double toLatitude, double toLongitude) {
+
+        double dLat = Math.toRadians(toLatitude - fromLatitude);
+        double dLon = Math.toRadians(toLongitude - fromLongitude);
+
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                 + Math.cos(Math.toRadians(fromLatitude)) * Math.cos(Math.toRadians(toLatitude))
+                 * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+
+        return 2 * EARTH_RADIUS_KM * Math.asin( Math.min(1, Math.sqrt(a)) );
+    }
+
+
+    // Auxiliary methods:
+
+    // Brings a longitude back to the [-180, 180) range
+    private static double normalizeLongitude(double longitude) {
+
+        while (longitude >= 180)    longitude -= 360;
+        while (longitude < -180)    longitude += 360;
+
+        return longitude;
+    }
+}
@@ -0,0 +1,306 @@
+package io.keepcoding.pickandgol.util;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Process;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+
+/**
+ * This class runs the initialization tasks of the application, so that only the ones that are
+ * really needed before showing the first screen run in Application.onCreate().
+ *
+ * Each task has a name, a stage and the names of the tasks it depends on (that must be added before it):
+ *
+ * - CRITICAL tasks run in the main thread, as soon as start() is called.
+ * - BACKGROUND tasks run (one after another) in a background thread, also starting at start(),
+ *   so they run while the first activity is being created. The thread keeps the default priority,
+ *   since the first activity may be waiting for them (i.e. for a singleton being built there).
+ * - DEFERRED tasks run in the main thread, right after the first activity draws its first frame.
+ *
+ * A task always runs after its dependencies (if a dependency has not run yet, it runs first, in the
+ * same thread, or waits for it if it is running in another thread).
+ * When all the tasks have finished, the startup timeline is written to the log.
+ */
+public class StartupOrchestrator {
+
+    private final static String LOG_TAG = "StartupOrchestrator";
+
+    // The moment when each task runs
+    public enum Stage {
+        CRITICAL,
+        BACKGROUND,
+        DEFERRED
+    }
+
+    // This interface describes an initialization task
+    public interface Initializer {
+        void run(@NonNull Context context);
+    }
+
+    // Possible states of a task
+    private enum State {
+        PENDING,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    // Info about each task, also used to build the timeline
+    private static class Task {
+
+        final String name;
+        final Stage stage;
+        final Initializer initializer;
+        final String[] dependencies;
+
+        State state = State.PENDING;
+        String threadName;
+        long startMillis;
+        long endMillis;
+
+        Task(String name, Stage stage, Initializer initializer, String[] dependencies) {
+            this.name = name;
+            this.stage = stage;
+            this.initializer = initializer;
+            this.dependencies = dependencies;
+        }
+    }
+
+
+    private final Application application;
+    private final long originMillis;                // all times in the timeline are relative to this
+    private final Map<String, Task> tasks;          // in the same order they were added
+    private long firstFrameMillis;
+    private int pendingStages;                      // stages not finished yet (the timeline is logged at 0)
+
+
+    /**
+     * Creates a new orchestrator. The times in the startup timeline are relative to this moment,
+     * so it should be created at the very beginning of Application.onCreate().
+     *
+     * @param application   the application being initialized.
+     */
+    public StartupOrchestrator(@NonNull Application application) {
+
+        this.application = application;
+        originMillis = SystemClock.elapsedRealtime();
+        tasks = new LinkedHashMap<>();
+        firstFrameMillis = -1;
+    }
+
+
+    /**
+     * Adds a new initialization task.
+     *
+     * @param name          a unique name for the task.
+     * @param stage         the moment when the task must run.
+     * @param initializer   the task itself.
+     * @param dependencies  the names of the tasks that must run before this one (already added).
+     * @return              this same orchestrator, to chain several calls.
+     */
+    public StartupOrchestrator add(@NonNull String name,
+                                   @NonNull Stage stage,
+                                   @NonNull Initializer initializer,
+                                   String... dependencies) {
+
+        if ( tasks.containsKey(name) )
+            throw new IllegalArgumentException("Startup task '"+ name +"' was already added");
+
+        // Dependencies must be added first, so there can not be cycles
+        for (String dependency : dependencies)
+            if ( !tasks.containsKey(dependency) )
+                throw new IllegalArgumentException("Startup task '"+ name +"' depends on unknown task '"+ dependency +"'");
+
+        tasks.put(name, new Task(name, stage, initializer, dependencies));
+        return this;
+    }
+
+    /**
+     * Runs the CRITICAL tasks (in the calling thread, that must be the main thread), starts the
+     * BACKGROUND ones and schedules the DEFERRED ones to run after the first frame.
+     */
+    public void start() {
+
+        final List<Task> backgroundTasks = getTasks(Stage.BACKGROUND);
+        final List<Task> deferredTasks = getTasks(Stage.DEFERRED);
+
+        pendingStages = 2;
+
+        for (Task task : getTasks(Stage.CRITICAL))
+            run(task);
+
+        // Background tasks
+        ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull final Runnable runnable) {
+
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_DEFAULT);
+                        runnable.run();
+                    }
+                }, "Startup");
+            }
+        });
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+
+                for (Task task : backgroundTasks)
+                    run(task);
+
+                onStageFinished();
+            }
+        });
+
+        executor.shutdown();
+
+        // Deferred tasks
+        runAfterFirstFrame(new Runnable() {
+            @Override
+            public void run() {
+
+                for (Task task : deferredTasks)
+                    run(task);
+
+                onStageFinished();
+            }
+        });
+    }
+
+
+    // Auxiliary methods:
+
+    // Gets the tasks of a stage, in the same order they were added
+    private @NonNull List<Task> getTasks(Stage stage) {
+
+        List<Task> stageTasks = new ArrayList<>();
+        for (Task task : tasks.values())
+            if (task.stage == stage)
+                stageTasks.add(task);
+
+        return stageTasks;
+    }
+
+    // Runs a task (and its dependencies) in the calling thread, unless it already ran or is running
+    // in another thread (in that case, waits for it). Returns true if the task finished successfully.
+    private boolean run(Task task) {
+
+        synchronized (this) {
+
+            while (task.state == State.RUNNING) {
+                try                             {   wait();     }
+                catch (InterruptedException e)  {   Thread.currentThread().interrupt();     return false;   }
+            }
+
+            if (task.state != State.PENDING)
+                return task.state == State.DONE;
+
+            task.state = State.RUNNING;
+        }
+
+        boolean success = true;
+        for (String dependency : task.dependencies)
+            success &= run( tasks.get(dependency) );
+
+        long start = SystemClock.elapsedRealtime();
+
+        if (success) {
+            try {
+                task.initializer.run(application);
+            }
+            catch (Exception e) {
+                Log.e(LOG_TAG, "Startup task '"+ task.name +"' failed: ", e);
+                success = false;
+            }
+        }
+        else {
+            Log.e(LOG_TAG, "Startup task '"+ task.name +"' skipped, one of its dependencies failed");
+        }
+
+        synchronized (this) {
+
+            task.threadName = Thread.currentThread().getName();
+            task.startMillis = start - originMillis;
+            task.endMillis = SystemClock.elapsedRealtime() - originMillis;
+            task.state = success ? State.DONE : State.FAILED;
+
+            notifyAll();
+        }
+
+        Log.d(LOG_TAG, "Startup task '"+ task.name +"' finished in "+ (task.endMillis - task.startMillis) +"ms");
+        return success;
+    }
+
+    // Runs the given Runnable in the main thread, right after the first activity draws its first frame
+    // (the first activity to be resumed posts it to its view hierarchy, so it runs after the first layout & draw)
+    private void runAfterFirstFrame(final Runnable runnable) {
+
+        application.registerActivityLifecycleCallbacks(new Application.ActivityLifecycleCallbacks() {
+
+            @Override
+            public void onActivityResumed(Activity activity) {
+
+                application.unregisterActivityLifecycleCallbacks(this);
+
+                activity.getWindow().getDecorView().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        firstFrameMillis = SystemClock.elapsedRealtime() - originMillis;
+                        runnable.run();
+                    }
+                });
+            }
+
+            @Override public void onActivityCreated(Activity activity, Bundle savedInstanceState) {}
+            @Override public void onActivityStarted(Activity activity) {}
+            @Override public void onActivityPaused(Activity activity) {}
+            @Override public void onActivityStopped(Activity activity) {}
+            @Override public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+            @Override public void onActivityDestroyed(Activity activity) {}
+        });
+    }
+
+    // Called every time a stage finishes, logs the timeline after the last one
+    private void onStageFinished() {
+
+        synchronized (this) {
+            if (--pendingStages > 0)
+                return;
+        }
+
+        logTimeline();
+    }
+
+    // Writes the startup timeline to the log
+    private synchronized void logTimeline() {
+
+        StringBuilder timeline = new StringBuilder("Startup timeline (ms since Application.onCreate):");
+
+        for (Task task : tasks.values())
+            timeline.append("\n  ")
+                    .append(task.stage).append(" '").append(task.name).append("': ")
+                    .append(task.startMillis).append(" -> ").append(task.endMillis)
+                    .append(" (").append(task.endMillis - task.startMillis).append("ms, ")
+                    .append(task.threadName).append(", ").append(task.state).append(")");
+
+        timeline.append("\n  First frame: ").append(firstFrameMillis);
+
+        Log.d(LOG_TAG, timeline.toString());
+    }
+}
@@ -0,0 +1,42 @@
+package io.keepcoding.pickandgol.view;
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+
+import io.keepcoding.pickandgol.manager.image.ImageManager;
+
+/**
+ * This class is an implementation of RecyclerView.OnScrollListener that pauses the image loads of
+ * a list while it is being flung, and resumes them as soon as it slows down or the user touches it.
+ *
+ * During a fling most of the bound items are off screen again before their image arrives, so their
+ * loads would only compete with the visible ones (and with the next page request) for bandwidth
+ * and decoding threads.
+ */
+public class ImageLoadScrollListener extends RecyclerView.OnScrollListener {
+
+    private final ImageManager imageManager;
+    private final Object imageLoadTag;
+
+
+    /**
+     * Creates a new listener.
+     *
+     * @param imageManager  the image manager that loads the images of the list.
+     * @param imageLoadTag  the tag used to load the images of the list (see ImageManager.loadImage()).
+     */
+    public ImageLoadScrollListener(@NonNull ImageManager imageManager, @NonNull Object imageLoadTag) {
+
+        this.imageManager = imageManager;
+        this.imageLoadTag = imageLoadTag;
+    }
+
+    @Override
+    public void onScrollStateChanged(RecyclerView view, int newState) {
+
+        if (newState == RecyclerView.SCROLL_STATE_SETTLING)
+            imageManager.pauseImageLoads(imageLoadTag);
+        else
+            imageManager.resumeImageLoads(imageLoadTag);
+    }
+}
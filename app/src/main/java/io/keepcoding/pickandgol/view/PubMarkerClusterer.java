@@ -0,0 +1,401 @@
+package io.keepcoding.pickandgol.view;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.support.annotation.NonNull;
+import android.support.v4.content.ContextCompat;
+import android.util.Log;
+
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.keepcoding.pickandgol.R;
+import io.keepcoding.pickandgol.model.Pub;
+
+
+/**
+ * This class manages the pub markers of a map, grouping the pubs that are close to each other
+ * (at the current zoom level) into a single cluster marker.
+ *
+ * The world is divided in a grid of square cells (of CLUSTER_CELL_SIZE_DP at the current zoom),
+ * and the pubs in the same cell form a cluster. Only the markers inside the visible region are
+ * materialized, and every time the map is refreshed the new set of markers is compared with the
+ * current one, so only the markers that actually changed are added to or removed from the map.
+ *
+ * The tag of a pub marker is its Pub, and the tag of a cluster marker is its Cluster.
+ * All its methods must be called from the main thread.
+ */
+public class PubMarkerClusterer {
+
+    private final static String LOG_TAG = "PubMarkerClusterer";
+
+    // Size of each grid cell, in dp (the map world is 256dp wide at zoom 0)
+    public static final int CLUSTER_CELL_SIZE_DP = 64;
+
+    // From this zoom level on, pubs are never clustered
+    public static final int MAX_CLUSTER_ZOOM = 17;
+
+    private static final int WORLD_SIZE_DP = 256;
+    private static final int CLUSTER_ICON_SIZE_DP = 40;
+    private static final int CLUSTER_TEXT_SIZE_DP = 14;
+
+
+    /**
+     * This class represents a group of pubs shown as a single marker.
+     */
+    public static class Cluster {
+
+        private final List<Pub> pubs = new ArrayList<>();
+        private double latitudeSum;
+        private double longitudeSum;
+
+        private void add(@NonNull Pub pub) {
+            pubs.add(pub);
+            latitudeSum += pub.getLatitude();
+            longitudeSum += pub.getLongitude();
+        }
+
+        /**
+         * Gets the pubs of the cluster.
+         *
+         * @return the pubs grouped in this cluster.
+         */
+        public @NonNull List<Pub> getPubs() {
+            return pubs;
+        }
+
+        /**
+         * Gets the center of the cluster (the average location of its pubs).
+         *
+         * @return the position of the cluster marker.
+         */
+        public @NonNull LatLng getPosition() {
+            return new LatLng(latitudeSum / pubs.size(), longitudeSum / pubs.size());
+        }
+
+        /**
+         * Gets the smallest area that contains all the pubs of the cluster.
+         *
+         * @return the bounds of the cluster.
+         */
+        public @NonNull LatLngBounds getBounds() {
+
+            LatLngBounds.Builder builder = new LatLngBounds.Builder();
+            for (Pub pub : pubs)
+                builder.include( new LatLng(pub.getLatitude(), pub.getLongitude()) );
+
+            return builder.build();
+        }
+    }
+
+
+    private final Context context;
+    private final GoogleMap map;
+
+    private final Map<String, Pub> pubs;                    // all the pubs, by key (no duplicates)
+    private final Map<String, Marker> currentMarkers;       // markers on the map, by key
+    private final Map<String, BitmapDescriptor> clusterIcons;   // icons already rendered, by label
+
+
+    /**
+     * Creates a new clusterer for the given map (with no pubs).
+     *
+     * @param context   a context to render the cluster icons.
+     * @param map       the map where the markers will be shown.
+     */
+    public PubMarkerClusterer(@NonNull Context context, @NonNull GoogleMap map) {
+
+        this.context = context;
+        this.map = map;
+
+        pubs = new LinkedHashMap<>();
+        currentMarkers = new HashMap<>();
+        clusterIcons = new HashMap<>();
+    }
+
+
+    /**
+     * Replaces all the pubs of the map with the given ones, then refreshes the markers.
+     *
+     * @param newPubs   the pubs to show on the map.
+     */
+    public void setPubs(@NonNull List<Pub> newPubs) {
+
+        pubs.clear();
+        addPubs(newPubs);
+    }
+
+    /**
+     * Adds the given pubs to the ones already on the map (i.e. a new page of results),
+     * then refreshes the markers.
+     *
+     * @param newPubs   the pubs to add.
+     */
+    public void addPubs(@NonNull List<Pub> newPubs) {
+
+        for (Pub pub : newPubs)
+            if ( pub.hasLocation() )
+                pubs.put(getKey(pub), pub);
+
+        refresh();
+    }
+
+    /**
+     * Removes all the markers from the map, and forgets all the pubs.
+     */
+    public void clear() {
+
+        for (Marker marker : currentMarkers.values())
+            marker.remove();
+
+        currentMarkers.clear();
+        pubs.clear();
+    }
+
+    /**
+     * Updates the markers to the current camera position (call it every time the camera stops moving):
+     * clusters the visible pubs, then adds the new markers and removes the ones no longer needed.
+     */
+    public void refresh() {
+
+        LatLngBounds visibleBounds = map.getProjection().getVisibleRegion().latLngBounds;
+        int zoom = (int) map.getCameraPosition().zoom;
+
+        Map<String, Object> targetItems = buildClusters(visibleBounds, zoom);
+
+        int removed = 0, added = 0;
+
+        // Remove the markers not needed anymore
+        Iterator<Map.Entry<String, Marker>> iterator = currentMarkers.entrySet().iterator();
+        while ( iterator.hasNext() ) {
+
+            Map.Entry<String, Marker> entry = iterator.next();
+            if ( !targetItems.containsKey(entry.getKey()) ) {
+                entry.getValue().remove();
+                iterator.remove();
+                removed++;
+            }
+        }
+
+        // Add the new markers, and update the ones that are already on the map
+        for (Map.Entry<String, Object> entry : targetItems.entrySet()) {
+
+            Marker marker = currentMarkers.get( entry.getKey() );
+            Object item = entry.getValue();
+
+            if (marker == null) {
+                currentMarkers.put(entry.getKey(), addMarker(item));
+                added++;
+            }
+            else if (item instanceof Cluster) {
+                updateClusterMarker(marker, (Cluster) item);
+            }
+            else {
+                updatePubMarker(marker, (Pub) item);
+            }
+        }
+
+        Log.d(LOG_TAG, "Markers refreshed at zoom "+ zoom +": "+ currentMarkers.size() +" on the map ("
+                + added +" added, "+ removed +" removed), "+ pubs.size() +" pubs in total");
+    }
+
+
+    // Auxiliary methods:
+
+    // Groups the visible pubs by grid cell at the given zoom.
+    // Returns the items to show by key: a Pub for the cells with only one pub, a Cluster for the rest.
+    private @NonNull Map<String, Object> buildClusters(@NonNull LatLngBounds visibleBounds, int zoom) {
+
+        Map<String, Cluster> cells = new HashMap<>();
+        Map<String, Object> items = new HashMap<>();
+
+        double cellsPerWorld = (WORLD_SIZE_DP * Math.pow(2, zoom)) / CLUSTER_CELL_SIZE_DP;
+
+        for (Map.Entry<String, Pub> entry : pubs.entrySet()) {
+
+            Pub pub = entry.getValue();
+            LatLng position = new LatLng(pub.getLatitude(), pub.getLongitude());
+
+            if ( !visibleBounds.contains(position) )
+                continue;
+
+            if (zoom >= MAX_CLUSTER_ZOOM) {
+                items.put(entry.getKey(), pub);
+                continue;
+            }
+
+            long cellX = (long) Math.floor( getWorldX(position) * cellsPerWorld );
+            long cellY = (long) Math.floor( getWorldY(position) * cellsPerWorld );
+            String cellKey = "cluster:"+ zoom +":"+ cellX +":"+ cellY;
+
+            Cluster cluster = cells.get(cellKey);
+            if (cluster == null) {
+                cluster = new Cluster();
+                cells.put(cellKey, cluster);
+            }
+
+            cluster.add(pub);
+        }
+
+        for (Map.Entry<String, Cluster> cell : cells.entrySet()) {
+
+            Cluster cluster = cell.getValue();
+
+            if (cluster.getPubs().size() == 1) {
+                Pub pub = cluster.getPubs().get(0);
+                items.put(getKey(pub), pub);
+            }
+            else {
+                items.put(cell.getKey(), cluster);
+            }
+        }
+
+        return items;
+    }
+
+    // Adds a new marker to the map for the given item (a Pub or a Cluster)
+    private @NonNull Marker addMarker(@NonNull Object item) {
+
+        MarkerOptions markerOptions;
+
+        if (item instanceof Cluster) {
+            Cluster cluster = (Cluster) item;
+            markerOptions = new MarkerOptions()
+                    .position( cluster.getPosition() )
+                    .icon( getClusterIcon(cluster.getPubs().size()) )
+                    .anchor(0.5f, 0.5f);
+        }
+        else {
+            // The pub name allows to show at least the name in the marker's info window
+            // if no custom info window is configured
+            Pub pub = (Pub) item;
+            markerOptions = new MarkerOptions()
+                    .position( new LatLng(pub.getLatitude(), pub.getLongitude()) )
+                    .title( pub.getName() );
+        }
+
+        Marker marker = map.addMarker(markerOptions);
+        marker.setTag(item);
+
+        return marker;
+    }
+
+    // Updates a cluster marker that is already on the map (its pubs may have changed, i.e. after loading
+    // a new page, so its center may have moved even if the number of pubs is the same)
+    private void updateClusterMarker(@NonNull Marker marker, @NonNull Cluster cluster) {
+
+        Cluster oldCluster = (Cluster) marker.getTag();
+        marker.setTag(cluster);
+
+        LatLng position = cluster.getPosition();
+        if ( !position.equals(marker.getPosition()) )
+            marker.setPosition(position);
+
+        String label = getClusterLabel( cluster.getPubs().size() );
+        if ( oldCluster == null || !label.equals(getClusterLabel(oldCluster.getPubs().size())) )
+            marker.setIcon( getClusterIcon(cluster.getPubs().size()) );
+    }
+
+    // Updates a pub marker that is already on the map (the pub object may have been replaced, i.e. after
+    // setPubs(), so the marker must point to the new one, that may have a different name or location)
+    private void updatePubMarker(@NonNull Marker marker, @NonNull Pub pub) {
+
+        marker.setTag(pub);
+
+        LatLng position = new LatLng(pub.getLatitude(), pub.getLongitude());
+        if ( !position.equals(marker.getPosition()) )
+            marker.setPosition(position);
+
+        if ( pub.getName() != null && !pub.getName().equals(marker.getTitle()) )
+            marker.setTitle( pub.getName() );
+    }
+
+    // Gets the icon for a cluster of the given size (icons are rendered only once per label)
+    private @NonNull BitmapDescriptor getClusterIcon(int clusterSize) {
+
+        String label = getClusterLabel(clusterSize);
+
+        BitmapDescriptor icon = clusterIcons.get(label);
+        if (icon == null) {
+            icon = BitmapDescriptorFactory.fromBitmap( renderClusterIcon(label) );
+            clusterIcons.put(label, icon);
+        }
+
+        return icon;
+    }
+
+    // Draws a circle with the given label in its center
+    private @NonNull Bitmap renderClusterIcon(@NonNull String label) {
+
+        float density = context.getResources().getDisplayMetrics().density;
+        int size = (int) (CLUSTER_ICON_SIZE_DP * density);
+
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+
+        Paint circlePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        circlePaint.setColor( ContextCompat.getColor(context, R.color.colorPrimary) );
+        canvas.drawCircle(size / 2f, size / 2f, size / 2f, circlePaint);
+
+        Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        textPaint.setColor(0xFFFFFFFF);
+        textPaint.setTextSize(CLUSTER_TEXT_SIZE_DP * density);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        textPaint.setFakeBoldText(true);
+
+        float textY = size / 2f - (textPaint.descent() + textPaint.ascent()) / 2f;
+        canvas.drawText(label, size / 2f, textY, textPaint);
+
+        return bitmap;
+    }
+
+    // Gets the text to show in a cluster of the given size
+    // (big clusters are rounded down, so there are only a few different icons)
+    private static @NonNull String getClusterLabel(int clusterSize) {
+
+        int[] thresholds = {1000, 500, 200, 100, 50, 20, 10};
+
+        for (int threshold : thresholds)
+            if (clusterSize >= threshold)
+                return threshold + "+";
+
+        return String.valueOf(clusterSize);
+    }
+
+    // Gets the key that identifies the marker of a pub
+    private static @NonNull String getKey(@NonNull Pub pub) {
+
+        if (pub.getId() != null)
+            return "pub:"+ pub.getId();
+
+        return "pub:"+ pub.getName() +"@"+ pub.getLatitude() +","+ pub.getLongitude();
+    }
+
+    // Gets the horizontal position of a location in the map world (Mercator projection), from 0 to 1
+    private static double getWorldX(@NonNull LatLng position) {
+        return (position.longitude + 180) / 360;
+    }
+
+    // Gets the vertical position of a location in the map world (Mercator projection), from 0 to 1
+    private static double getWorldY(@NonNull LatLng position) {
+
+        double sinLatitude = Math.sin( Math.toRadians(position.latitude) );
+        sinLatitude = Math.min(Math.max(sinLatitude, -0.9999), 0.9999);
+
+        return 0.5 - Math.log( (1 + sinLatitude) / (1 - sinLatitude) ) / (4 * Math.PI);
+    }
+}
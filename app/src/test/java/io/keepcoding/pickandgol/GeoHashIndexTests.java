@@ -0,0 +1,178 @@
+package io.keepcoding.pickandgol;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import io.keepcoding.pickandgol.util.GeoHash;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Local unit test (executes on the development machine) that checks the geohash operations used by
+ * the local nearby search (see RealmDBManager.getPubsNearby): the cells of a search area must contain
+ * all its locations, and looking up those cells in an index over 10k and 100k synthetic pubs must find
+ * the same pubs as a full scan while examining only a small part of them.
+ *
+ * The latency of the actual database query is measured on a device, see RealmNearbyPubsBenchmarkTests.
+ */
+public class GeoHashIndexTests {
+
+    private static final int PRECISION = 5;             // same as RealmPub.GEOHASH_PRECISION
+    private static final int MAX_QUERY_CELLS = 64;      // same as RealmDBManager.MAX_GEOHASH_QUERY_CELLS
+    private static final double RADIUS_KM = 5;
+    private static final int QUERIES = 500;
+
+    // Synthetic pubs are spread over the Iberian Peninsula
+    private static final double MIN_LATITUDE = 36, MAX_LATITUDE = 43.5;
+    private static final double MIN_LONGITUDE = -9, MAX_LONGITUDE = 3;
+
+
+    // Test a known geohash, and that the cells of an area contain all the locations inside it
+    @Test
+    public void testThatCellsCoverTheArea() {
+
+        assertEquals("ezs42", GeoHash.encode(42.605, -5.603, 5));
+
+        Random random = new Random(1);
+        double[] area = GeoHash.getAreaAround(40.41665, -3.70381, RADIUS_KM);
+
+        List<String> cells = GeoHash.getCellsInArea(area[0], area[1], area[2], area[3], PRECISION, MAX_QUERY_CELLS);
+        assertNotNull(cells);
+
+        for (int i = 0; i < 10000; i++) {
+            double lat = area[0] + random.nextDouble() * (area[2] - area[0]);
+            double lon = area[1] + random.nextDouble() * (area[3] - area[1]);
+            assertTrue( cells.contains(GeoHash.encode(lat, lon, PRECISION)) );
+        }
+
+        // Areas across the antimeridian
+        List<String> crossingCells = GeoHash.getCellsInArea(-0.05, 179.9, 0.05, -179.9, PRECISION, MAX_QUERY_CELLS);
+        assertNotNull(crossingCells);
+        assertTrue( crossingCells.contains(GeoHash.encode(0, 179.95, PRECISION)) );
+        assertTrue( crossingCells.contains(GeoHash.encode(0, -179.95, PRECISION)) );
+
+        // Too big areas
+        assertNull( GeoHash.getCellsInArea(MIN_LATITUDE, MIN_LONGITUDE, MAX_LATITUDE, MAX_LONGITUDE, PRECISION, MAX_QUERY_CELLS) );
+    }
+
+    // Test that the cell lookup finds the same pubs as a full scan, examining few of them (10k pubs)
+    @Test
+    public void testThatCellLookupExaminesFewPubsWith10kPubs() {
+        checkCellLookup(10000);
+    }
+
+    // Test that the cell lookup finds the same pubs as a full scan, examining few of them (100k pubs)
+    @Test
+    public void testThatCellLookupExaminesFewPubsWith100kPubs() {
+        checkCellLookup(100000);
+    }
+
+
+    // Auxiliary types & methods
+
+    private static class Pubs {
+
+        final double[] latitudes;
+        final double[] longitudes;
+        final Map<String, int[]> cells = new HashMap<>();   // pub indexes by geohash (like the indexed column)
+
+        Pubs(int count, Random random) {
+
+            latitudes = new double[count];
+            longitudes = new double[count];
+
+            Map<String, List<Integer>> cellLists = new HashMap<>();
+
+            for (int i = 0; i < count; i++) {
+
+                latitudes[i] = MIN_LATITUDE + random.nextDouble() * (MAX_LATITUDE - MIN_LATITUDE);
+                longitudes[i] = MIN_LONGITUDE + random.nextDouble() * (MAX_LONGITUDE - MIN_LONGITUDE);
+
+                String cell = GeoHash.encode(latitudes[i], longitudes[i], PRECISION);
+                List<Integer> cellList = cellLists.get(cell);
+                if (cellList == null) {
+                    cellList = new ArrayList<>();
+                    cellLists.put(cell, cellList);
+                }
+                cellList.add(i);
+            }
+
+            for (Map.Entry<String, List<Integer>> entry : cellLists.entrySet()) {
+
+                int[] indexes = new int[ entry.getValue().size() ];
+                for (int i = 0; i < indexes.length; i++)
+                    indexes[i] = entry.getValue().get(i);
+
+                cells.put(entry.getKey(), indexes);
+            }
+        }
+    }
+
+    private static void checkCellLookup(int pubCount) {
+
+        Random random = new Random(pubCount);
+        Pubs pubs = new Pubs(pubCount, random);
+
+        int[] examined = new int[1];
+
+        for (int i = 0; i < QUERIES; i++) {
+
+            double latitude = MIN_LATITUDE + random.nextDouble() * (MAX_LATITUDE - MIN_LATITUDE);
+            double longitude = MIN_LONGITUDE + random.nextDouble() * (MAX_LONGITUDE - MIN_LONGITUDE);
+
+            assertEquals( fullScan(pubs, latitude, longitude), indexedQuery(pubs, latitude, longitude, examined) );
+        }
+
+        assertTrue("The cell lookup should examine less than 1% of the pubs",
+                   examined[0] / QUERIES < pubCount / 100);
+    }
+
+    // Finds the pubs within the radius by checking the distance to all of them
+    private static Set<Integer> fullScan(Pubs pubs, double latitude, double longitude) {
+
+        Set<Integer> found = new HashSet<>();
+
+        for (int i = 0; i < pubs.latitudes.length; i++)
+            if (GeoHash.getDistanceKm(latitude, longitude, pubs.latitudes[i], pubs.longitudes[i]) <= RADIUS_KM)
+                found.add(i);
+
+        return found;
+    }
+
+    // Finds the pubs within the radius by looking up the cells that cover the search area
+    private static Set<Integer> indexedQuery(Pubs pubs, double latitude, double longitude, int[] examined) {
+
+        Set<Integer> found = new HashSet<>();
+
+        double[] area = GeoHash.getAreaAround(latitude, longitude, RADIUS_KM);
+        List<String> cells = GeoHash.getCellsInArea(area[0], area[1], area[2], area[3], PRECISION, MAX_QUERY_CELLS);
+        assertNotNull(cells);
+
+        for (String cell : cells) {
+
+            int[] indexes = pubs.cells.get(cell);
+            if (indexes == null)
+                continue;
+
+            examined[0] += indexes.length;
+
+            for (int i : indexes)
+                if ( GeoHash.isInArea(pubs.latitudes[i], pubs.longitudes[i], area[0], area[1], area[2], area[3])
+                        && GeoHash.getDistanceKm(latitude, longitude, pubs.latitudes[i], pubs.longitudes[i]) <= RADIUS_KM )
+                    found.add(i);
+        }
+
+        return found;
+    }
+}
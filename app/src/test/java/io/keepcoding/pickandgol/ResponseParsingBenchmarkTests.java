@@ -0,0 +1,174 @@
+package io.keepcoding.pickandgol;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import io.keepcoding.pickandgol.manager.net.response.PubDetailResponse.PubDetailData;
+import io.keepcoding.pickandgol.manager.net.response.PubListResponse;
+import io.keepcoding.pickandgol.manager.net.response.ResponseGson;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Local unit test (executes on the development machine) that compares the cost of parsing
+ * a 20-item Pub List response with a new reflection-based Gson per response (the old behavior)
+ * and with the shared Gson and its hand-written type adapters (see ResponseGson).
+ */
+public class ResponseParsingBenchmarkTests {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 2000;
+
+
+    // Test that both parsers produce the same result for the same page
+    @Test
+    public void testThatBothParsersProduceTheSameResult() {
+
+        String json = createPubListJson(PAGE_SIZE);
+
+        PubListResponse reflective = new GsonBuilder().create().fromJson(json, PubListResponse.class);
+        PubListResponse adapted = ResponseGson.get().fromJson(json, PubListResponse.class);
+
+        assertTrue(reflective.resultIsOK());
+        assertTrue(adapted.resultIsOK());
+        assertEquals(reflective.getData().getTotal(), adapted.getData().getTotal());
+
+        List<PubDetailData> expected = reflective.getData().getPubList();
+        List<PubDetailData> actual = adapted.getData().getPubList();
+        assertEquals(PAGE_SIZE, actual.size());
+
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getName(), actual.get(i).getName());
+            assertEquals(expected.get(i).getUrl(), actual.get(i).getUrl());
+            assertEquals(expected.get(i).getOwner(), actual.get(i).getOwner());
+            assertEquals(expected.get(i).getEvents(), actual.get(i).getEvents());
+            assertEquals(expected.get(i).getPhotos(), actual.get(i).getPhotos());
+            assertEquals(expected.get(i).getLocation().getCoordinates(),
+                         actual.get(i).getLocation().getCoordinates());
+        }
+    }
+
+    // Measures parse time and allocated bytes per page, before and after the shared Gson
+    @Test
+    public void benchmarkPubListPageParsing() {
+
+        final String json = createPubListJson(PAGE_SIZE);
+
+        Parser before = new Parser() {
+            @Override
+            public PubListResponse parse(String json) {
+                Gson gson = new GsonBuilder().create();
+                return gson.fromJson(json, PubListResponse.class);
+            }
+        };
+
+        Parser after = new Parser() {
+            @Override
+            public PubListResponse parse(String json) {
+                return ResponseGson.get().fromJson(json, PubListResponse.class);
+            }
+        };
+
+        Measure beforeMeasure = measure(before, json);
+        Measure afterMeasure = measure(after, json);
+
+        // Timings are too noisy on a shared machine to assert on them, but allocations are stable
+        if (beforeMeasure.bytesPerPage > 0 && afterMeasure.bytesPerPage > 0)
+            assertTrue("The shared Gson should allocate less memory per page ("+ PAGE_SIZE +" pubs) - "
+                            + "new Gson per response: "+ beforeMeasure +", shared Gson + adapters: "+ afterMeasure,
+                       afterMeasure.bytesPerPage < beforeMeasure.bytesPerPage);
+    }
+
+
+    // Auxiliary types & methods
+
+    private interface Parser {
+        PubListResponse parse(String json);
+    }
+
+    private static class Measure {
+
+        long nanosPerPage;
+        long bytesPerPage;  // -1 if the JVM cannot measure thread allocations
+
+        @Override
+        public String toString() {
+            return (nanosPerPage / 1000) +" us/page, "
+                 + (bytesPerPage < 0 ? "n/a" : (bytesPerPage / 1024) +" KB") +" allocated/page";
+        }
+    }
+
+    private static Measure measure(Parser parser, String json) {
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++)
+            parser.parse(json);
+
+        long startBytes = allocatedBytes();
+        long startTime = System.nanoTime();
+
+        int checksum = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++)
+            checksum += parser.parse(json).getData().getPubList().size();
+
+        long elapsed = System.nanoTime() - startTime;
+        long endBytes = allocatedBytes();
+
+        assertEquals(PAGE_SIZE * MEASURED_ROUNDS, checksum);
+
+        Measure result = new Measure();
+        result.nanosPerPage = elapsed / MEASURED_ROUNDS;
+        result.bytesPerPage = (startBytes < 0 || endBytes < 0) ? -1 : (endBytes - startBytes) / MEASURED_ROUNDS;
+        return result;
+    }
+
+    // Allocated bytes by the current thread so far (-1 if not supported by the JVM)
+    private static long allocatedBytes() {
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if ( !(bean instanceof com.sun.management.ThreadMXBean) )
+            return -1;
+
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        if ( !sunBean.isThreadAllocatedMemorySupported() || !sunBean.isThreadAllocatedMemoryEnabled() )
+            return -1;
+
+        return sunBean.getThreadAllocatedBytes( Thread.currentThread().getId() );
+    }
+
+    // Builds a synthetic Pub List response with the same shape the server returns
+    private static String createPubListJson(int items) {
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\"result\":\"OK\",\"data\":{\"total\":").append(items * 10).append(",\"items\":[");
+
+        for (int i = 0; i < items; i++) {
+
+            if (i > 0)
+                json.append(",");
+
+            json.append("{\"_id\":\"58f5b1c2a3d4e5f6a7b8c9").append(String.format("%02d", i)).append("\",")
+                .append("\"name\":\"Pub number ").append(i).append("\",")
+                .append("\"location\":{\"type\":\"Point\",\"coordinates\":[-3.70").append(i).append(",40.41").append(i).append("]},")
+                .append("\"url\":\"http://www.pub").append(i).append(".com\",")
+                .append("\"owner_id\":\"58f5b1c2a3d4e5f6a7b8c000\",")
+                .append("\"events\":[\"58f5b1c2a3d4e5f6a7b8d001\",\"58f5b1c2a3d4e5f6a7b8d002\"],")
+                .append("\"photos\":[\"https://s3.amazonaws.com/pickandgol/pub").append(i).append("_1.jpg\",")
+                .append("\"https://s3.amazonaws.com/pickandgol/pub").append(i).append("_2.jpg\"],")
+                .append("\"__v\":0}");
+        }
+
+        json.append("]}}");
+        return json.toString();
+    }
+}